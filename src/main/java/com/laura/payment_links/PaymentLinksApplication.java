@@ -3,7 +3,8 @@ package com.laura.payment_links;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+// Con -Preactive el driver R2DBC queda en el classpath; esta aplicación sigue usando solo JDBC
+@SpringBootApplication(excludeName = "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration")
 public class PaymentLinksApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,30 @@
+package com.laura.payment_links.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Negociación de contenido binaria para integraciones de alto volumen:
+ * Accept / Content-Type application/cbor o application/x-jackson-smile en lugar de JSON.
+ * Los convertidores usan el mismo builder que el ObjectMapper de JSON (spring.jackson.*, fechas ISO-8601),
+ * así que los DTOs se serializan igual en los tres formatos.
+ * Quedan después del convertidor JSON: sin Accept (o aceptando cualquier tipo) la respuesta sigue siendo JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,94 @@
+package com.laura.payment_links.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que mide cuánto tiempo se retiene cada conexión (de getConnection() a close())
+ * y lo publica como histograma db.connection.hold, etiquetado con el endpoint que la pidió.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+    static final String METRIC_NAME = "db.connection.hold";
+    private static final String NO_ENDPOINT = "none";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ConnectionHoldTimeDataSource(DataSource target, Supplier<MeterRegistry> meterRegistry) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        String endpoint = currentEndpoint();
+        long acquiredAt = System.nanoTime();
+        boolean[] closed = {false};
+
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionHoldTimeDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && !closed[0]) {
+                        closed[0] = true;
+                        timerFor(endpoint).record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+                    }
+                    if ("unwrap".equals(method.getName()) || "isWrapperFor".equals(method.getName())) {
+                        Class<?> type = (Class<?>) args[0];
+                        if (type.isInstance(proxy)) {
+                            return "unwrap".equals(method.getName()) ? proxy : true;
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private Timer timerFor(String endpoint) {
+        return timers.computeIfAbsent(endpoint, key -> Timer.builder(METRIC_NAME)
+                .description("Tiempo que una petición retiene una conexión del pool")
+                .tag("endpoint", key)
+                .publishPercentileHistogram()
+                .register(meterRegistry.get()));
+    }
+
+    // "GET /payment-links/{identifier}" si la conexión se pidió dentro de una petición HTTP
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return NO_ENDPOINT;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+    }
+}
@@ -0,0 +1,24 @@
+package com.laura.payment_links.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Funciones HQL propias de PostgreSQL.
+ * jsonb_contains(columna, json) se traduce al operador @> (no a la función jsonb_contains de
+ * PostgreSQL) para que el planificador pueda usar el índice GIN sobre la columna.
+ * Se registra en META-INF/services/org.hibernate.boot.model.FunctionContributor.
+ */
+public class PostgresFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                "jsonb_contains",
+                "(?1 @> cast(?2 as jsonb))",
+                functionContributions.getTypeConfiguration()
+                        .getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
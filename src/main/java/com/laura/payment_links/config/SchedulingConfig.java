@@ -0,0 +1,12 @@
+package com.laura.payment_links.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Jobs programados (@Scheduled). Se apagan con payment-links.scheduling.enabled=false (p. ej. en el rebalanceo offline)
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "payment-links.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,70 @@
+package com.laura.payment_links.controller;
+
+import com.laura.payment_links.dto.response.CheckoutResponse;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import com.laura.payment_links.repository.CheckoutView;
+import com.laura.payment_links.service.CheckoutService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Checkout pública: no requiere JWT, solo expone campos aptos para el pagador.
+ * Se accede con el token de checkout del link (referencia firmada), no con la referencia sola.
+ */
+@RestController
+@RequestMapping("/p")
+public class CheckoutController {
+
+    private final CheckoutService checkoutService;
+    private final Duration openMaxAge;
+    private final Duration terminalMaxAge;
+
+    public CheckoutController(CheckoutService checkoutService,
+                              @Value("${payment-links.checkout.max-age-seconds:5}") long openMaxAgeSeconds,
+                              @Value("${payment-links.checkout.terminal-max-age-seconds:3600}") long terminalMaxAgeSeconds) {
+        this.checkoutService = checkoutService;
+        this.openMaxAge = Duration.ofSeconds(openMaxAgeSeconds);
+        this.terminalMaxAge = Duration.ofSeconds(terminalMaxAgeSeconds);
+    }
+
+    /**
+     * Vista de checkout de un link por su token (checkoutToken en la respuesta de creación y en el detalle).
+     * ETag fuerte (versión + estado) y Cache-Control según el estado: los links abiertos se revalidan
+     * enseguida y los terminales (PAID, CANCELLED, EXPIRED) se pueden guardar más tiempo.
+     * Con If-None-Match igual al ETag actual responde 304 sin cuerpo.
+     */
+    @GetMapping("/{token}")
+    public ResponseEntity<CheckoutResponse> getCheckout(@PathVariable String token, WebRequest request) {
+        CheckoutView view = checkoutService.getCheckout(token);
+        Instant now = Instant.now();
+        PaymentLinkStatus status = checkoutService.effectiveStatus(view, now);
+
+        String eTag = "\"" + view.version() + "-" + status.name() + "\"";
+        CacheControl cacheControl = cacheControl(view, status, now);
+
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(checkoutService.toResponse(view, now));
+    }
+
+    // Un link abierto no se guarda más allá de su vencimiento
+    private CacheControl cacheControl(CheckoutView view, PaymentLinkStatus status, Instant now) {
+        if (status != PaymentLinkStatus.CREATED) {
+            return CacheControl.maxAge(terminalMaxAge).cachePublic();
+        }
+        Duration untilExpiry = Duration.between(now, view.expiresAt());
+        Duration maxAge = untilExpiry.compareTo(openMaxAge) < 0 ? untilExpiry : openMaxAge;
+        return CacheControl.maxAge(maxAge).cachePublic().mustRevalidate();
+    }
+}
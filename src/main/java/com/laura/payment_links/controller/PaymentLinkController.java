@@ -2,33 +2,55 @@ package com.laura.payment_links.controller;
 
 import com.laura.payment_links.dto.request.*;
 import com.laura.payment_links.dto.response.*;
+import com.laura.payment_links.event.PaymentLinkEventHub;
 import com.laura.payment_links.model.PaymentLinkStatus;
 import com.laura.payment_links.service.MerchantAuthService;
 import com.laura.payment_links.service.PaymentLinkService;
+import com.laura.payment_links.service.VolumeRollupService;
+import com.laura.payment_links.service.WriteConcurrencyLimiter;
+import com.laura.payment_links.util.MetadataFilters;
+import com.laura.payment_links.util.PaymentLinkFields;
 import com.laura.payment_links.util.PaymentLinkFilter;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/payment-links")
 public class PaymentLinkController {
 
+    private static final int MAX_ATTEMPTS_PAGE_SIZE = 100;
+
     private final PaymentLinkService paymentLinkService;
     private final MerchantAuthService merchantAuthService;
+    private final PaymentLinkEventHub eventHub;
+    private final VolumeRollupService volumeRollupService;
+    private final WriteConcurrencyLimiter writeLimiter;
 
-    public PaymentLinkController(PaymentLinkService paymentLinkService, MerchantAuthService merchantAuthService) {
+    public PaymentLinkController(PaymentLinkService paymentLinkService, MerchantAuthService merchantAuthService,
+                                 PaymentLinkEventHub eventHub, VolumeRollupService volumeRollupService,
+                                 WriteConcurrencyLimiter writeLimiter) {
         this.paymentLinkService = paymentLinkService;
         this.merchantAuthService = merchantAuthService;
+        this.eventHub = eventHub;
+        this.volumeRollupService = volumeRollupService;
+        this.writeLimiter = writeLimiter;
     }
 
     /**
      * Endpoint 1: Crear link de pago
+     * Con límite adaptativo de concurrencia: con sobrecarga responde 503 de inmediato.
      */
     @PostMapping
     public ResponseEntity<PaymentLinkResponse> createPaymentLink(
@@ -36,24 +58,34 @@ public class PaymentLinkController {
             @RequestBody @Valid CreatePaymentLinkRequest request) {
 
         UUID merchantId = extractMerchantIdFromAuth(authHeader);
-        PaymentLinkResponse response = paymentLinkService.createPaymentLink(merchantId, request);
+        PaymentLinkResponse response = writeLimiter.create(
+                () -> paymentLinkService.createPaymentLink(merchantId, request));
         return ResponseEntity.status(201).body(response);
     }
 
     /**
      * Endpoint 2: Listar links con filtros
+     * fields= permite recortar columnas (ej: fields=id,status,amountCents): la consulta trae solo esas columnas
+     * y la respuesta omite el resto. Sin fields= la forma de la respuesta no cambia.
+     * metadata.<clave>=<valor> filtra por contenido de metadata (ej: metadata.orderId=123).
+     * q= busca fragmentos en description y reference (ej: q=PL-2026-00).
      */
     @GetMapping
-    public ResponseEntity<Page<PaymentLinkResponse>> getPaymentLinks(
+    public ResponseEntity<PageResponse<PaymentLinkResponse>> getPaymentLinks(
             @RequestHeader("Authorization") String authHeader,
             @RequestParam(required = false) PaymentLinkStatus status,
             @RequestParam(required = false) Integer minAmount,
             @RequestParam(required = false) Integer maxAmount,
             @RequestParam(required = false) String fromDate,
             @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean includeLatestAttempt,
+            @RequestParam(required = false) String fields,
+            @RequestParam Map<String, String> queryParams,
             Pageable pageable) {
 
         UUID merchantId = extractMerchantIdFromAuth(authHeader);
+        Set<String> selectedFields = PaymentLinkFields.parse(fields);
 
         PaymentLinkFilter filter = PaymentLinkFilter.builder()
                 .status(status)
@@ -61,10 +93,17 @@ public class PaymentLinkController {
                 .maxAmount(maxAmount)
                 .fromDate(parseInstant(fromDate))
                 .toDate(parseInstant(toDate))
+                .metadata(MetadataFilters.fromQueryParams(queryParams))
+                .query(q)
                 .build();
 
-        Page<PaymentLinkResponse> response = paymentLinkService.getPaymentLinks(merchantId, filter, pageable);
-        return ResponseEntity.ok(response);
+        Page<PaymentLinkResponse> page = paymentLinkService.getPaymentLinks(
+                merchantId, filter, pageable, includeLatestAttempt,
+                PaymentLinkFields.columns(selectedFields, includeLatestAttempt));
+        if (selectedFields != null) {
+            page = page.map(link -> PaymentLinkFields.select(link, selectedFields));
+        }
+        return ResponseEntity.ok(PageResponse.of(page));
     }
 
     /**
@@ -73,26 +112,35 @@ public class PaymentLinkController {
     @GetMapping("/{identifier}")
     public ResponseEntity<PaymentLinkDetailsResponse> getPaymentLinkDetails(
             @RequestHeader("Authorization") String authHeader,
-            @PathVariable String identifier) {
+            @PathVariable String identifier,
+            @RequestParam(defaultValue = "false") boolean includeAttempts,
+            @RequestParam(defaultValue = "0") int attemptsPage,
+            @RequestParam(defaultValue = "20") int attemptsSize) {
 
         UUID merchantId = extractMerchantIdFromAuth(authHeader);
-        PaymentLinkDetailsResponse response = paymentLinkService.getPaymentLinkDetails(merchantId, identifier);
+        Pageable attemptsPageable = includeAttempts
+                ? PageRequest.of(Math.max(attemptsPage, 0), Math.min(Math.max(attemptsSize, 1), MAX_ATTEMPTS_PAGE_SIZE))
+                : null;
+        PaymentLinkDetailsResponse response =
+                paymentLinkService.getPaymentLinkDetails(merchantId, identifier, attemptsPageable);
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Endpoint 4: Pagar un link (simulación)
+     * Endpoint 4: Pagar un link
+     * Respuesta asíncrona: el hilo de la petición se libera mientras la pasarela responde.
+     * Con límite adaptativo de concurrencia (el lugar se libera cuando termina el pago).
      */
     @PostMapping("/{id}/pay")
-    public ResponseEntity<PaymentAttemptResponse> payPaymentLink(
+    public CompletableFuture<ResponseEntity<PaymentAttemptResponse>> payPaymentLink(
             @RequestHeader("Authorization") String authHeader,
             @RequestHeader("Idempotency-Key") String idempotencyKey,
             @PathVariable UUID id,
             @RequestBody @Valid PayPaymentLinkRequest request) {
 
         UUID merchantId = extractMerchantIdFromAuth(authHeader);
-        PaymentAttemptResponse response = paymentLinkService.payPaymentLink(merchantId, id, request, idempotencyKey);
-        return ResponseEntity.ok(response);
+        return writeLimiter.pay(() -> paymentLinkService.payPaymentLink(merchantId, id, request, idempotencyKey))
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -108,6 +156,74 @@ public class PaymentLinkController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Endpoint 5b: Cancelación masiva por lista de ids o por filtro (solo links en CREATED).
+     * Responde el resultado de cada id: CANCELLED, NOT_FOUND o INVALID_STATE.
+     */
+    @PostMapping("/cancel")
+    public ResponseEntity<BulkCancelResponse> cancelPaymentLinks(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody @Valid BulkCancelRequest request) {
+
+        UUID merchantId = extractMerchantIdFromAuth(authHeader);
+        BulkCancelResponse response = paymentLinkService.cancelPaymentLinks(merchantId, request);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint 5c: Estado de varios links por id (una sola consulta)
+     */
+    @PostMapping("/status")
+    public ResponseEntity<BulkStatusResponse> getPaymentLinkStatuses(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody @Valid BulkStatusRequest request) {
+
+        UUID merchantId = extractMerchantIdFromAuth(authHeader);
+        BulkStatusResponse response = paymentLinkService.getPaymentLinkStatuses(merchantId, request.getIds());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint 6: Stream (SSE) de cambios de estado de un link.
+     * El primer evento es el estado actual; después llegan PAID, CANCELLED o EXPIRED.
+     * El hub registra la suscripción antes de leer el estado (no se pierde un cambio entre ambos) y cierra
+     * el stream si el estado ya es final.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPaymentLinkEvents(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable UUID id) {
+
+        UUID merchantId = extractMerchantIdFromAuth(authHeader);
+        return eventHub.subscribeToLink(id, () -> paymentLinkService.getPaymentLinkStatus(merchantId, id));
+    }
+
+    /**
+     * Endpoint 7: Stream (SSE) de cambios de estado de todos los links del comercio
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMerchantEvents(@RequestHeader("Authorization") String authHeader) {
+        UUID merchantId = extractMerchantIdFromAuth(authHeader);
+        return eventHub.subscribeToMerchant(merchantId);
+    }
+
+    /**
+     * Endpoint 8: Serie horaria de volumen (creados, pagados y expirados; cantidad y monto por moneda).
+     * Se lee del rollup horario (máximo 90 días); por defecto las últimas 24 horas.
+     */
+    @GetMapping("/stats/timeseries")
+    public ResponseEntity<VolumeTimeSeriesResponse> getVolumeTimeSeries(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String fromDate,
+            @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String currency) {
+
+        UUID merchantId = extractMerchantIdFromAuth(authHeader);
+        VolumeTimeSeriesResponse response = volumeRollupService.getTimeSeries(
+                merchantId, parseInstant(fromDate), parseInstant(toDate), currency);
+        return ResponseEntity.ok(response);
+    }
+
     // Métodos auxiliares
     private UUID extractMerchantIdFromAuth(String authHeader) {
         // Implementación basada en MerchantAuthService
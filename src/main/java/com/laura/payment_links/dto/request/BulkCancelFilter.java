@@ -0,0 +1,26 @@
+package com.laura.payment_links.dto.request;
+
+import jakarta.validation.constraints.Min;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Mismos filtros que GET /payment-links (el estado siempre es CREATED)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCancelFilter {
+    private Instant fromDate;               // Fecha mínima de creación
+    private Instant toDate;                 // Fecha máxima de creación
+
+    @Min(value = 1, message = "El monto mínimo debe ser mayor a 0")
+    private Integer minAmount;
+
+    @Min(value = 1, message = "El monto máximo debe ser mayor a 0")
+    private Integer maxAmount;
+
+    private Map<String, String> metadata;   // {"orderId": "123"} -> contención @>
+    private String q;                       // Texto libre sobre description y reference
+}
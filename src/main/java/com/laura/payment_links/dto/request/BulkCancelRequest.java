@@ -0,0 +1,29 @@
+package com.laura.payment_links.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// Cancelación masiva: una lista de ids o un filtro (solo links en CREATED)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCancelRequest {
+    @Size(max = 1000, message = "Máximo 1000 ids por solicitud")
+    private List<@NotNull UUID> ids;
+
+    @Valid
+    private BulkCancelFilter filter;
+
+    @JsonIgnore
+    @AssertTrue(message = "Se debe enviar ids o filter (solo uno de los dos)")
+    public boolean isSingleSelector() {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        return hasIds != (filter != null);
+    }
+}
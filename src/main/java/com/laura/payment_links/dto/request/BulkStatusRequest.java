@@ -0,0 +1,17 @@
+package com.laura.payment_links.dto.request;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+    @NotEmpty(message = "Se requiere al menos un id")
+    @Size(max = 1000, message = "Máximo 1000 ids por solicitud")
+    private List<@NotNull UUID> ids;
+}
@@ -0,0 +1,22 @@
+package com.laura.payment_links.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import java.util.UUID;
+
+// Resultado de un id en la cancelación masiva
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCancelItemResponse {
+    public static final String CANCELLED = "CANCELLED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID_STATE = "INVALID_STATE";
+    public static final String PAYMENT_IN_PROGRESS = "PAYMENT_IN_PROGRESS";
+
+    private UUID id;
+    private String result;  // CANCELLED, NOT_FOUND, INVALID_STATE o PAYMENT_IN_PROGRESS
+    private String status;  // Estado actual del link (null si no existe)
+}
@@ -0,0 +1,15 @@
+package com.laura.payment_links.dto.response;
+
+import lombok.*;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCancelResponse {
+    private int requested;      // Ids procesados
+    private int cancelled;
+    private boolean hasMore;    // Con filtro: quedan links por cancelar (repetir la solicitud)
+    private List<BulkCancelItemResponse> results;
+}
@@ -0,0 +1,14 @@
+package com.laura.payment_links.dto.response;
+
+import lombok.*;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResponse {
+    private List<PaymentLinkResponse> links;
+    private List<UUID> notFound;    // Ids inexistentes o de otro comercio
+}
@@ -0,0 +1,22 @@
+package com.laura.payment_links.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import java.time.Instant;
+
+// Vista pública de un link para el pagador: sin ids internos, metadata ni intentos
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckoutResponse {
+    private String reference;
+    private String merchantName;
+    private String description;
+    private Integer amountCents;
+    private String currency;
+    private String status;  // CREATED, PAID, CANCELLED o EXPIRED (vencido aunque el job aún no lo marque)
+    private Instant expiresAt;
+    private Instant paidAt;
+}
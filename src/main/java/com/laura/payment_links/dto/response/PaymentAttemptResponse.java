@@ -10,7 +10,7 @@ import java.util.UUID;
 @AllArgsConstructor
 public class PaymentAttemptResponse {
     private UUID id;
-    private String status;  // SUCCESS o FAILED
+    private String status;  // SUCCESS o FAILED (PENDING solo en el historial, mientras la pasarela responde)
     private String reason;  // Null si fue exitoso
     private Instant createdAt;
     private String paymentLinkId;  // Referencia al link de pago
@@ -1,6 +1,8 @@
 package com.laura.payment_links.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
+import org.springframework.data.domain.Page;
 import java.time.Instant;
 import java.util.Map;
 import java.util.UUID;
@@ -14,4 +16,7 @@ public class PaymentLinkDetailsResponse extends PaymentLinkResponse {
     private Instant createdAt;
     private Map<String, Object> metadata;
     private UUID merchantId;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Page<PaymentAttemptResponse> attempts;  // Solo si se pide includeAttempts
 }
\ No newline at end of file
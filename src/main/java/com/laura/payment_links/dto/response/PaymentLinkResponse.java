@@ -1,5 +1,7 @@
 package com.laura.payment_links.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.laura.payment_links.model.PaymentLinkStatus;
 import lombok.*;
 import java.time.Instant;
 import java.util.UUID;
@@ -15,4 +17,16 @@ public class PaymentLinkResponse {
     private Instant expiresAt;
     private Integer amountCents;
     private String currency;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private PaymentAttemptResponse latestAttempt;  // Solo si se pide includeLatestAttempt
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String checkoutToken;  // Solo en la creación y el detalle: /p/{checkoutToken}
+
+    // Constructor para proyecciones JPQL (SELECT new ...), sin cargar la entidad completa
+    public PaymentLinkResponse(UUID id, String reference, PaymentLinkStatus status, Instant expiresAt,
+                               Integer amountCents, String currency) {
+        this(id, reference, status.name(), expiresAt, amountCents, currency, null, null);
+    }
 }
@@ -0,0 +1,18 @@
+package com.laura.payment_links.dto.response;
+
+import lombok.*;
+import java.time.Instant;
+import java.util.UUID;
+
+// Evento de cambio de estado de un link (se envía por SSE)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLinkStatusEvent {
+    private UUID paymentLinkId;
+    private String reference;
+    private UUID merchantId;
+    private String status;  // PAID, CANCELLED, EXPIRED (o el estado actual al suscribirse)
+    private Instant occurredAt;
+}
@@ -0,0 +1,13 @@
+package com.laura.payment_links.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Link recortado con fields=: solo se serializan los campos pedidos (el resto queda null y se omite)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SelectedFieldsPaymentLinkResponse extends PaymentLinkResponse {
+
+    public SelectedFieldsPaymentLinkResponse(PaymentLinkResponse source) {
+        super(source.getId(), source.getReference(), source.getStatus(), source.getExpiresAt(),
+                source.getAmountCents(), source.getCurrency(), source.getLatestAttempt(), source.getCheckoutToken());
+    }
+}
@@ -0,0 +1,20 @@
+package com.laura.payment_links.dto.response;
+
+import lombok.*;
+import java.time.Instant;
+
+// Un punto de la serie de tiempo: volumen de una hora en una moneda
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VolumePointResponse {
+    private Instant hour;           // Inicio de la hora (UTC)
+    private String currency;
+    private long createdCount;
+    private long createdAmountCents;
+    private long paidCount;
+    private long paidAmountCents;
+    private long expiredCount;
+    private long expiredAmountCents;
+}
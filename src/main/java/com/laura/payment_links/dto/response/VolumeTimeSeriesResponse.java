@@ -0,0 +1,17 @@
+package com.laura.payment_links.dto.response;
+
+import lombok.*;
+import java.time.Instant;
+import java.util.List;
+
+// Serie horaria del comercio en [from, to); las horas sin actividad no aparecen
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VolumeTimeSeriesResponse {
+    private Instant from;
+    private Instant to;
+    private Instant dataUntil;      // Marca de agua del rollup: los cambios posteriores aún no están incluidos
+    private List<VolumePointResponse> points;
+}
@@ -0,0 +1,305 @@
+package com.laura.payment_links.event;
+
+import com.laura.payment_links.dto.response.PaymentLinkStatusEvent;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out en memoria de cambios de estado hacia suscriptores SSE (por link y por comercio).
+ * - Cada suscriptor tiene un buffer acotado; si se llena (cliente lento) se le desconecta.
+ * - Los envíos los hace un pool pequeño compartido: una conexión inactiva no ocupa ningún hilo.
+ * - emitter.send bloquea si el socket del cliente no avanza. Cada envío se marca como bloqueo (ManagedBlocker)
+ *   para que el pool sume un hilo mientras tanto (hasta max-dispatch-threads) y los demás suscriptores sigan
+ *   recibiendo; si un envío supera send-timeout-ms, el suscriptor se desconecta (lo libera el timeout de
+ *   escritura de Tomcat, server.tomcat.connection-timeout).
+ * - Se envían heartbeats periódicos para mantener viva la conexión a través de proxies.
+ */
+@Slf4j
+@Component
+public class PaymentLinkEventHub {
+
+    private static final String EVENT_NAME = "status";
+
+    private final Map<UUID, Set<Subscriber>> linkSubscribers = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Subscriber>> merchantSubscribers = new ConcurrentHashMap<>();
+
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final ForkJoinPool dispatcher;
+    private final ScheduledExecutorService heartbeats;
+
+    public PaymentLinkEventHub(@Value("${payment-links.events.buffer-size:32}") int bufferSize,
+                               @Value("${payment-links.events.heartbeat-seconds:15}") long heartbeatSeconds,
+                               @Value("${payment-links.events.timeout-minutes:30}") long timeoutMinutes,
+                               @Value("${payment-links.events.dispatch-threads:4}") int dispatchThreads,
+                               @Value("${payment-links.events.max-dispatch-threads:64}") int maxDispatchThreads,
+                               @Value("${payment-links.events.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.bufferSize = bufferSize;
+        this.timeoutMs = Duration.ofMinutes(timeoutMinutes).toMillis();
+        this.sendTimeoutNanos = Duration.ofMillis(sendTimeoutMs).toNanos();
+        // asyncMode (FIFO); con max-dispatch-threads hilos bloqueados no se compensa más y se espera
+        this.dispatcher = new ForkJoinPool(dispatchThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("sse-dispatch-" + thread.getPoolIndex());
+            return thread;
+        }, null, true, 0, Math.max(dispatchThreads, maxDispatchThreads), 1, pool -> true, 60, TimeUnit.SECONDS);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("sse-heartbeat"));
+        this.heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long watchdogMs = Math.max(100, sendTimeoutMs / 2);
+        this.heartbeats.scheduleAtFixedRate(this::disconnectStalled, watchdogMs, watchdogMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Suscripción a un link concreto; recibe primero su estado actual.
+     * Se registra antes de leer el estado: un cambio confirmado mientras tanto queda retenido y se envía
+     * después del estado actual, salvo que repita ese mismo estado. Si el estado ya es final (PAID, CANCELLED,
+     * EXPIRED) se envía y se cierra el stream; también se cierra después de recibir un cambio a un estado final.
+     * @param current lectura del estado actual (puede lanzar, p. ej. 404; en ese caso no queda suscripción).
+     */
+    public SseEmitter subscribeToLink(UUID paymentLinkId, Supplier<PaymentLinkStatusEvent> current) {
+        Subscriber subscriber = register(linkSubscribers, paymentLinkId, true);
+        PaymentLinkStatusEvent snapshot;
+        try {
+            snapshot = current.get();
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
+        }
+        subscriber.start(message(snapshot));
+        return subscriber.emitter;
+    }
+
+    // Suscripción a todos los cambios de un comercio
+    public SseEmitter subscribeToMerchant(UUID merchantId) {
+        return register(merchantSubscribers, merchantId, false).emitter;
+    }
+
+    // Publica un cambio de estado (llamar después del commit)
+    public void publish(PaymentLinkStatusEvent event) {
+        Message message = message(event);
+        deliver(linkSubscribers.get(event.getPaymentLinkId()), message);
+        deliver(merchantSubscribers.get(event.getMerchantId()), message);
+    }
+
+    public int subscriberCount() {
+        return linkSubscribers.values().stream().mapToInt(Set::size).sum()
+                + merchantSubscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        linkSubscribers.values().forEach(set -> set.forEach(Subscriber::close));
+        merchantSubscribers.values().forEach(set -> set.forEach(Subscriber::close));
+        dispatcher.shutdown();
+    }
+
+    private Subscriber register(Map<UUID, Set<Subscriber>> registry, UUID key, boolean singleLink) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), singleLink);
+        registry.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        Runnable remove = () -> registry.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        subscriber.onClose = remove;
+        subscriber.emitter.onCompletion(remove);
+        subscriber.emitter.onTimeout(remove);
+        subscriber.emitter.onError(error -> remove.run());
+        return subscriber;
+    }
+
+    private void deliver(Set<Subscriber> subscribers, Message message) {
+        if (subscribers == null) return;
+        subscribers.forEach(subscriber -> subscriber.enqueue(message));
+    }
+
+    private void sendHeartbeats() {
+        Message heartbeat = new Message(SseEmitter.event().comment("heartbeat"), null);
+        linkSubscribers.values().forEach(set -> deliver(set, heartbeat));
+        merchantSubscribers.values().forEach(set -> deliver(set, heartbeat));
+    }
+
+    // Desconecta a los suscriptores con un envío trabado más de send-timeout-ms
+    private void disconnectStalled() {
+        long now = System.nanoTime();
+        linkSubscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.disconnectIfStalled(now)));
+        merchantSubscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.disconnectIfStalled(now)));
+    }
+
+    private static Message message(PaymentLinkStatusEvent event) {
+        return new Message(SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(event.getPaymentLinkId() + ":" + event.getStatus())
+                .data(event), event.getStatus());
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Evento listo para enviar; status es null en los heartbeats
+    private record Message(SseEmitter.SseEventBuilder event, String status) {
+
+        boolean isFinal() {
+            return status != null && !PaymentLinkStatus.CREATED.name().equals(status);
+        }
+    }
+
+    // Suscriptor con buffer acotado; solo un hilo del dispatcher lo vacía a la vez
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final boolean singleLink;
+        private final BlockingQueue<Message> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean held;           // Suscripción a un link: retiene los eventos hasta el estado actual
+        private volatile boolean closed;
+        private volatile long sendStartedAt;     // System.nanoTime() del envío en curso, 0 si no hay
+        private volatile Runnable onClose = () -> { };
+
+        Subscriber(SseEmitter emitter, boolean singleLink) {
+            this.emitter = emitter;
+            this.singleLink = singleLink;
+            this.held = singleLink;
+        }
+
+        void enqueue(Message message) {
+            if (closed) return;
+            if (held) {
+                synchronized (this) { // Serializado con start(): nada se cuela delante del estado actual
+                    if (held) {
+                        if (!buffer.offer(message)) close();
+                        return;
+                    }
+                }
+            }
+            if (!buffer.offer(message)) {
+                log.debug("Suscriptor SSE lento desconectado (buffer de {} lleno)", bufferSize);
+                close();
+                return;
+            }
+            if (!held) scheduleDrain();
+        }
+
+        // Pone el estado actual delante de lo retenido, sin los eventos que lo repiten, y empieza a enviar
+        synchronized void start(Message snapshot) {
+            List<Message> retained = new ArrayList<>(buffer.size());
+            buffer.drainTo(retained);
+            buffer.offer(snapshot);
+            for (Message message : retained) {
+                if (message.status() != null && message.status().equals(snapshot.status())) continue;
+                if (!buffer.offer(message)) {
+                    close();
+                    return;
+                }
+            }
+            held = false;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Message message;
+                while (!closed && (message = buffer.poll()) != null) {
+                    send(message);
+                    // Después de un estado final el link no cambia más
+                    if (singleLink && message.isFinal()) {
+                        close();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(); // El cliente se fue
+            } finally {
+                draining.set(false);
+            }
+            // Pudo llegar un mensaje entre el último poll y liberar el flag
+            if (!closed && !held && !buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(Message message) throws IOException {
+            sendStartedAt = System.nanoTime();
+            try {
+                blocking(() -> {
+                    try {
+                        emitter.send(message.event());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+
+        void disconnectIfStalled(long now) {
+            long started = sendStartedAt;
+            if (closed || started == 0 || now - started < sendTimeoutNanos) return;
+            log.debug("Suscriptor SSE desconectado: un envío lleva más de {} ms", sendTimeoutNanos / 1_000_000);
+            close();
+        }
+
+        // No completa el emitter en el hilo que llama (puede estar trabado en un envío): lo hace el dispatcher
+        void close() {
+            if (closed) return;
+            closed = true;
+            buffer.clear();
+            onClose.run();
+            dispatcher.execute(() -> blocking(emitter::complete));
+        }
+    }
+
+    // Ejecuta una escritura que puede bloquear en el socket: el pool compensa con otro hilo mientras tanto
+    private static void blocking(Runnable write) {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                private boolean done;
+
+                @Override
+                public boolean block() {
+                    write.run();
+                    done = true;
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return done;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envío SSE interrumpido", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.laura.payment_links.exception;
+
+// Excepción para cuando un endpoint de escritura alcanzó su límite de peticiones en vuelo (503)
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException(String endpoint, int limit) {
+        super(String.format("El servicio está saturado (%s: %d peticiones en curso). Reintente en unos segundos.",
+                endpoint, limit));
+    }
+}
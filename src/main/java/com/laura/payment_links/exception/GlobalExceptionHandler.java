@@ -1,5 +1,6 @@
 package com.laura.payment_links.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
@@ -54,6 +55,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.unprocessableEntity().body(error);
     }
 
+    // Parámetros de consulta inválidos (fields, filtros, etc.)
+    @ExceptionHandler(InvalidQueryParameterException.class)
+    public ResponseEntity<ApiError> handleInvalidQueryParameter(InvalidQueryParameterException ex) {
+        ApiError error = new ApiError(
+                "https://api.payment.com/errors/bad_request",
+                "Bad Request",
+                HttpStatus.BAD_REQUEST.value(),
+                ex.getMessage(),
+                "INVALID_PARAMETER"
+        );
+        return ResponseEntity.badRequest().body(error);
+    }
+
     // Errores de negocio //
     @ExceptionHandler(PaymentLinkNotFoundException.class)
     public ResponseEntity<ApiError> handleNotFound(PaymentLinkNotFoundException ex) {
@@ -79,6 +93,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // Otro cambio concurrente actualizó el link primero (versión optimista distinta)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        ApiError error = new ApiError(
+                "https://api.payment.com/errors/conflict",
+                "Conflict",
+                HttpStatus.CONFLICT.value(),
+                "El link fue modificado por otra operación. Consulte su estado y reintente.",
+                "CONCURRENT_MODIFICATION"
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     // Error cuando no se consigue un Merchant
     @ExceptionHandler(MerchantNotFoundException.class)
     public ResponseEntity<ApiError> handleMerchantNotFound(MerchantNotFoundException ex) {
@@ -132,6 +159,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // La pasarela de pagos no respondió a tiempo, hay demasiados cobros en curso o el circuito está abierto
+    @ExceptionHandler(PaymentProcessorUnavailableException.class)
+    public ResponseEntity<ApiError> handleProcessorUnavailable(PaymentProcessorUnavailableException ex) {
+        ApiError error = new ApiError(
+                "https://api.payment.com/errors/processor-unavailable",
+                "Payment Processor Unavailable",
+                HttpStatus.SERVICE_UNAVAILABLE.value(), // 503
+                ex.getMessage(),
+                "PROCESSOR_UNAVAILABLE"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    // Endpoint de escritura saturado: se rechaza rápido para no encolar (503)
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<ApiError> handleConcurrencyLimit(ConcurrencyLimitExceededException ex) {
+        ApiError error = new ApiError(
+                "https://api.payment.com/errors/overloaded",
+                "Service Overloaded",
+                HttpStatus.SERVICE_UNAVAILABLE.value(), // 503
+                ex.getMessage(),
+                "OVERLOADED"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     // Error genérico (500) //
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleInternalError(Exception ex) {
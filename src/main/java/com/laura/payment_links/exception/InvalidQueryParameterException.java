@@ -0,0 +1,8 @@
+package com.laura.payment_links.exception;
+
+// Clase personalizada para parámetros de consulta inválidos (400 BAD_REQUEST)
+public class InvalidQueryParameterException extends RuntimeException {
+    public InvalidQueryParameterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.laura.payment_links.exception;
+
+import lombok.Getter;
+
+// Excepción para cuando la pasarela no responde a tiempo o está protegida (503)
+@Getter
+public class PaymentProcessorUnavailableException extends RuntimeException {
+    // true si el cobro llegó a enviarse (timeout o error de la pasarela): no se sabe si se cobró
+    private final boolean outcomeUnknown;
+
+    public PaymentProcessorUnavailableException(String processor, String detail) {
+        this(processor, detail, false);
+    }
+
+    public PaymentProcessorUnavailableException(String processor, String detail, boolean outcomeUnknown) {
+        super(String.format("El procesador de pagos %s no está disponible: %s", processor, detail));
+        this.outcomeUnknown = outcomeUnknown;
+    }
+}
@@ -1,6 +1,8 @@
 package com.laura.payment_links.job;
 
 import com.laura.payment_links.service.PaymentLinkService;
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -15,6 +17,7 @@ public class ExpirationJob {
 
     // Cada minuto
     @Scheduled(cron = "0 * * * * *") // segundo 0 de cada minuto
+    @UseWorkload(Workload.BATCH)
     public void runExpiration() {
         paymentLinkService.expirePaymentLinks();
     }
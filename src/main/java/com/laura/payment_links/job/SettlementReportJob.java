@@ -0,0 +1,29 @@
+package com.laura.payment_links.job;
+
+import com.laura.payment_links.report.SettlementReportGenerator;
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Component
+@ConditionalOnProperty(name = "payment-links.reports.settlement.enabled", havingValue = "true", matchIfMissing = true)
+public class SettlementReportJob {
+
+    private final SettlementReportGenerator settlementReportGenerator;
+
+    public SettlementReportJob(SettlementReportGenerator settlementReportGenerator) {
+        this.settlementReportGenerator = settlementReportGenerator;
+    }
+
+    // Todos los días (por defecto 00:30 UTC) liquida el día anterior
+    @Scheduled(cron = "${payment-links.reports.settlement.cron:0 30 0 * * *}", zone = "UTC")
+    @UseWorkload(Workload.REPORTING)
+    public void runSettlement() {
+        settlementReportGenerator.generate(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+    }
+}
@@ -0,0 +1,27 @@
+package com.laura.payment_links.job;
+
+import com.laura.payment_links.service.VolumeRollupService;
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "payment-links.rollups.enabled", havingValue = "true", matchIfMissing = true)
+public class VolumeRollupJob {
+
+    private final VolumeRollupService volumeRollupService;
+
+    public VolumeRollupJob(VolumeRollupService volumeRollupService) {
+        this.volumeRollupService = volumeRollupService;
+    }
+
+    // Por defecto cada minuto, contado desde que termina la ejecución anterior
+    @Scheduled(fixedDelayString = "${payment-links.rollups.interval-ms:60000}",
+            initialDelayString = "${payment-links.rollups.interval-ms:60000}")
+    @UseWorkload(Workload.BATCH)
+    public void runRollup() {
+        volumeRollupService.rollup();
+    }
+}
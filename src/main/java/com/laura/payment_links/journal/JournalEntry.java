@@ -0,0 +1,70 @@
+package com.laura.payment_links.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Una transición de estado de un link. En disco ocupa SIZE bytes fijos:
+ * <pre>
+ *  0  sequence (long)          32 merchantId (2 longs)
+ *  8  timestamp µs (long)      48 amountCents (long)
+ * 16  paymentLinkId (2 longs)  56 tipo (byte) + moneda (3 bytes ASCII)
+ *                              60 CRC32C de los bytes 0..59 (int)
+ * </pre>
+ * Una posición con sequence 0 o CRC inválido marca el final de los datos (o una escritura incompleta).
+ */
+public record JournalEntry(long sequence, Instant timestamp, JournalEntryType type,
+                           UUID paymentLinkId, UUID merchantId, long amountCents, String currency) {
+
+    public static final int SIZE = 64;
+    private static final int CRC_OFFSET = 60;
+
+    // Escribe la entrada en la posición actual del buffer
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(sequence);
+        buffer.putLong(timestamp.getEpochSecond() * 1_000_000 + timestamp.getNano() / 1_000);
+        buffer.putLong(paymentLinkId.getMostSignificantBits());
+        buffer.putLong(paymentLinkId.getLeastSignificantBits());
+        buffer.putLong(merchantId.getMostSignificantBits());
+        buffer.putLong(merchantId.getLeastSignificantBits());
+        buffer.putLong(amountCents);
+        buffer.put(type.code());
+        byte[] currencyBytes = (currency != null ? currency : "").getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 3; i++) {
+            buffer.put(i < currencyBytes.length ? currencyBytes[i] : 0);
+        }
+        buffer.putInt(crc(buffer, start));
+    }
+
+    /**
+     * Lee la entrada que empieza en offset.
+     * @return null si no hay una entrada válida (fin de datos o escritura incompleta).
+     */
+    static JournalEntry readFrom(ByteBuffer buffer, int offset) {
+        long sequence = buffer.getLong(offset);
+        if (sequence == 0 || buffer.getInt(offset + CRC_OFFSET) != crc(buffer, offset)) return null;
+
+        long micros = buffer.getLong(offset + 8);
+        UUID paymentLinkId = new UUID(buffer.getLong(offset + 16), buffer.getLong(offset + 24));
+        UUID merchantId = new UUID(buffer.getLong(offset + 32), buffer.getLong(offset + 40));
+        long amountCents = buffer.getLong(offset + 48);
+        JournalEntryType type = JournalEntryType.fromCode(buffer.get(offset + 56));
+        byte[] currencyBytes = new byte[3];
+        buffer.get(offset + 57, currencyBytes);
+        String currency = new String(currencyBytes, StandardCharsets.US_ASCII).trim().replace("\0", "");
+
+        return new JournalEntry(sequence,
+                Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L),
+                type, paymentLinkId, merchantId, amountCents, currency.isEmpty() ? null : currency);
+    }
+
+    private static int crc(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+}
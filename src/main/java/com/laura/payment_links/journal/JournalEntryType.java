@@ -0,0 +1,28 @@
+package com.laura.payment_links.journal;
+
+// Tipos de transición registrados en el journal (el código se guarda en disco: no reutilizar valores)
+public enum JournalEntryType {
+    CREATED(1),
+    ATTEMPT_SUCCEEDED(2),
+    ATTEMPT_FAILED(3),
+    PAID(4),
+    CANCELLED(5),
+    EXPIRED(6);
+
+    private final byte code;
+
+    JournalEntryType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static JournalEntryType fromCode(byte code) {
+        for (JournalEntryType type : values()) {
+            if (type.code == code) return type;
+        }
+        throw new IllegalArgumentException("Tipo de entrada desconocido: " + code);
+    }
+}
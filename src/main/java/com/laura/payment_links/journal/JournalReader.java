@@ -0,0 +1,48 @@
+package com.laura.payment_links.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lectura secuencial del journal (reconstrucción de proyecciones, auditoría).
+ * Mapea cada segmento en solo lectura y recorre las entradas en orden, sin copiar el archivo.
+ * Puede usarse con el journal abierto: se detiene en la última entrada completa.
+ */
+public class JournalReader {
+
+    private final Path dir;
+
+    public JournalReader(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Recorre las entradas con secuencia >= fromSequence.
+     * @return Cantidad de entradas entregadas.
+     */
+    public long read(long fromSequence, Consumer<JournalEntry> consumer) throws IOException {
+        List<Path> segments = JournalSegment.list(dir);
+        long delivered = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            // Se saltan los segmentos que terminan antes de fromSequence
+            if (i + 1 < segments.size() && JournalSegment.firstSequenceOf(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            JournalSegment segment = JournalSegment.mapForRead(segments.get(i));
+            // La entrada i del segmento tiene la secuencia firstSequence + i
+            int start = (int) Math.max(0, fromSequence - segment.firstSequence());
+            JournalEntry entry;
+            for (int index = start; index < segment.capacity() && (entry = segment.entryAt(index)) != null; index++) {
+                consumer.accept(entry);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    public long readAll(Consumer<JournalEntry> consumer) throws IOException {
+        return read(1, consumer);
+    }
+}
@@ -0,0 +1,128 @@
+package com.laura.payment_links.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Archivo del journal de tamaño fijo, mapeado en memoria y preasignado con ceros.
+ * Nombre: journal-{primera secuencia con 20 dígitos}.seg (el orden alfabético es el orden de escritura).
+ */
+final class JournalSegment {
+
+    private static final Pattern NAME = Pattern.compile("journal-(\\d{20})\\.seg");
+
+    private final Path path;
+    private final long firstSequence;
+    private final MappedByteBuffer buffer;
+    private final int capacity;     // entradas
+    private int count;              // entradas escritas (o recuperadas)
+    private int flushed;            // entradas ya sincronizadas a disco
+
+    private JournalSegment(Path path, long firstSequence, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() / JournalEntry.SIZE;
+    }
+
+    static JournalSegment create(Path dir, long firstSequence, int capacity) throws IOException {
+        Path path = dir.resolve(String.format("journal-%020d.seg", firstSequence));
+        return new JournalSegment(path, firstSequence, map(path, (long) capacity * JournalEntry.SIZE, FileChannel.MapMode.READ_WRITE));
+    }
+
+    // Mapea un segmento en solo lectura sin recorrerlo (JournalReader lee hasta la primera entrada inválida)
+    static JournalSegment mapForRead(Path path) throws IOException {
+        return new JournalSegment(path, firstSequenceOf(path), map(path, Files.size(path), FileChannel.MapMode.READ_ONLY));
+    }
+
+    // Reabre un segmento existente para escribir y ubica el final de los datos válidos
+    static JournalSegment open(Path path) throws IOException {
+        JournalSegment segment = new JournalSegment(path, firstSequenceOf(path), map(path, Files.size(path), FileChannel.MapMode.READ_WRITE));
+        while (segment.count < segment.capacity && segment.entryAt(segment.count) != null) {
+            segment.count++;
+        }
+        segment.flushed = segment.count;
+        return segment;
+    }
+
+    // Segmentos del directorio en orden de escritura
+    static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return new ArrayList<>(files.filter(p -> NAME.matcher(p.getFileName().toString()).matches()).sorted().toList());
+        }
+    }
+
+    static long firstSequenceOf(Path path) {
+        Matcher matcher = NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) throw new IllegalArgumentException("No es un segmento del journal: " + path);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    long lastSequence() {
+        return count == 0 ? firstSequence - 1 : entryAt(count - 1).sequence();
+    }
+
+    void append(JournalEntry entry) {
+        entry.writeTo(buffer.slice(count * JournalEntry.SIZE, JournalEntry.SIZE));
+        count++;
+    }
+
+    JournalEntry entryAt(int index) {
+        return JournalEntry.readFrom(buffer, index * JournalEntry.SIZE);
+    }
+
+    // Entradas ya sincronizadas a disco; las que están entre flushed y count solo están en el page cache
+    int flushed() {
+        return flushed;
+    }
+
+    // Sincroniza a disco las entradas [from, to)
+    void force(int from, int to) {
+        if (to > from) {
+            buffer.force(from * JournalEntry.SIZE, (to - from) * JournalEntry.SIZE);
+        }
+    }
+
+    void markFlushed(int upTo) {
+        flushed = Math.max(flushed, upTo);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    private static MappedByteBuffer map(Path path, long size, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, size); // El mapeo sigue válido después de cerrar el canal
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.laura.payment_links.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal binario, solo de agregado, con las transiciones de estado de los links.
+ * - Entradas de tamaño fijo (JournalEntry.SIZE) en segmentos mapeados en memoria que rotan al llenarse.
+ * - append() solo copia 64 bytes al mapeo bajo un lock (microsegundos): la entrada queda en el page cache
+ *   y sobrevive a una caída del proceso.
+ * - Un hilo sincroniza a disco (force) cada flush-interval-ms todo lo escrito desde la vez anterior;
+ *   ante una caída del sistema operativo se pueden perder como máximo esos milisegundos.
+ * - Al arrancar se reabre el último segmento y se continúa después de la última entrada válida (CRC).
+ * Cada instancia escribe su propio journal en disco local. Las entradas se agregan después del commit.
+ */
+@Slf4j
+@Component
+public class PaymentJournal {
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentEntries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    private JournalSegment current;
+    private long nextSequence;
+
+    public PaymentJournal(@Value("${payment-links.journal.enabled:true}") boolean enabled,
+                          @Value("${payment-links.journal.dir:data/journal}") String dir,
+                          @Value("${payment-links.journal.segment-entries:1048576}") int segmentEntries,
+                          @Value("${payment-links.journal.flush-interval-ms:10}") long flushIntervalMs) throws IOException {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentEntries = segmentEntries;
+        if (!enabled) {
+            this.flusher = null;
+            return;
+        }
+
+        Files.createDirectories(this.dir);
+        recover();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Agrega una transición al journal. No espera la sincronización a disco.
+     * @return Secuencia asignada (0 si el journal está deshabilitado).
+     */
+    public long append(JournalEntryType type, UUID paymentLinkId, UUID merchantId, long amountCents, String currency) {
+        if (!enabled) return 0;
+        Instant now = Instant.now();
+        lock.lock();
+        try {
+            if (current.isFull()) rotate();
+            long sequence = nextSequence++;
+            current.append(new JournalEntry(sequence, now, type, paymentLinkId, merchantId, amountCents, currency));
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    // Sincroniza a disco lo escrito desde el último flush (llamado por el hilo flusher)
+    void flush() {
+        JournalSegment segment;
+        int from;
+        int to;
+        lock.lock();
+        try {
+            segment = current;
+            from = segment.flushed();
+            to = segment.count();
+        } finally {
+            lock.unlock();
+        }
+        if (from == to) return;
+
+        try {
+            segment.force(from, to); // Fuera del lock: append sigue escribiendo mientras tanto
+        } catch (RuntimeException e) {
+            log.error("No se pudo sincronizar el journal {}", segment.path(), e);
+            return;
+        }
+
+        lock.lock();
+        try {
+            segment.markFlushed(to);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) return;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // El segmento lleno se sincroniza completo antes de pasar al siguiente (una vez cada segment-entries)
+    private void rotate() {
+        current.force(current.flushed(), current.count());
+        current.markFlushed(current.count());
+        try {
+            current = JournalSegment.create(dir, nextSequence, segmentEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento del journal", e);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments = JournalSegment.list(dir);
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            current = JournalSegment.create(dir, nextSequence, segmentEntries);
+            return;
+        }
+        current = JournalSegment.open(segments.get(segments.size() - 1));
+        nextSequence = current.lastSequence() + 1;
+        log.info("Journal reabierto en {}: siguiente secuencia {}", current.path(), nextSequence);
+    }
+}
@@ -0,0 +1,48 @@
+package com.laura.payment_links.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Rollup horario de volumen por comercio y moneda (lo escribe VolumeRollupService con un upsert nativo).
+ * - created: links creados en la hora (created_at).
+ * - paid: links pagados en la hora (paid_at).
+ * - expired: links expirados cuyo vencimiento cae en la hora (expires_at).
+ */
+@Entity
+@Table(name = "merchant_volume_hourly",
+        indexes = {
+                @Index(name = "idx_merchant_volume_hourly_merchant_hour", columnList = "merchant_id, hour_start")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MerchantVolumeHourly {
+
+    @EmbeddedId
+    private MerchantVolumeHourlyId id;
+
+    @Column(name = "created_count", nullable = false)
+    private long createdCount;
+
+    @Column(name = "created_amount_cents", nullable = false)
+    private long createdAmountCents;
+
+    @Column(name = "paid_count", nullable = false)
+    private long paidCount;
+
+    @Column(name = "paid_amount_cents", nullable = false)
+    private long paidAmountCents;
+
+    @Column(name = "expired_count", nullable = false)
+    private long expiredCount;
+
+    @Column(name = "expired_amount_cents", nullable = false)
+    private long expiredAmountCents;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.laura.payment_links.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+// Clave del rollup horario: comercio, moneda y hora (inicio de la hora en UTC)
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantVolumeHourlyId implements Serializable {
+
+    @Column(name = "merchant_id", nullable = false)
+    private UUID merchantId;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "hour_start", nullable = false)
+    private Instant hourStart;
+}
@@ -1,6 +1,7 @@
 package com.laura.payment_links.model;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import jakarta.persistence.*;
 import java.time.Instant;
@@ -8,6 +9,9 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "payment_attempts",
+        indexes = {
+                @Index(name = "idx_payment_attempts_link_created", columnList = "payment_link_id, created_at")
+        },
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"payment_link_id", "idempotency_key"})
         })
@@ -17,7 +21,7 @@ import java.util.UUID;
 @Builder
 public class PaymentAttempt {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,6 +37,11 @@ public class PaymentAttempt {
     @Column(name = "idempotency_key")
     private String idempotencyKey; // Para evitar procesamiento duplicado
 
+    // Cobro a revisar a mano: éxito sobre un link que ya no era pagable, o resultado desconocido (timeout)
+    @ColumnDefault("false")
+    @Column(name = "needs_reconciliation", nullable = false)
+    private boolean needsReconciliation;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
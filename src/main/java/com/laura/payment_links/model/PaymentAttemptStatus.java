@@ -1,5 +1,6 @@
 package com.laura.payment_links.model;
 
 public enum PaymentAttemptStatus {
+    PENDING, // Reservado antes de llamar a la pasarela; se completa con SUCCESS o FAILED
     SUCCESS, FAILED
 }
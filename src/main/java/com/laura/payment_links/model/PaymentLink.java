@@ -1,7 +1,11 @@
 package com.laura.payment_links.model;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import java.time.Instant;
@@ -11,7 +15,9 @@ import java.util.UUID;
 @Table(name = "payment_links",
         indexes = {
                 @Index(name = "idx_payment_links_expires_at", columnList = "expires_at"),
-                @Index(name = "idx_payment_links_merchant_status", columnList = "merchant_id, status")
+                @Index(name = "idx_payment_links_merchant_status", columnList = "merchant_id, status"),
+                @Index(name = "idx_payment_links_created_at", columnList = "created_at"),
+                @Index(name = "idx_payment_links_updated_at", columnList = "updated_at")
         },
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "reference")
@@ -22,7 +28,7 @@ import java.util.UUID;
 @Builder
 public class PaymentLink {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -44,6 +50,7 @@ public class PaymentLink {
 
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
+    @Builder.Default
     private PaymentLinkStatus status = PaymentLinkStatus.CREATED;
 
     @Column(name = "expires_at", nullable = false)
@@ -53,10 +60,24 @@ public class PaymentLink {
     private Instant paidAt;
 
     @Column(columnDefinition = "jsonb") // Cambiado a jsonb para PostgreSQL (más eficiente)
+    @JdbcTypeCode(SqlTypes.JSON)         // Se envía como json (no varchar) para poder escribir en la columna jsonb
     private String metadata;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
+
+    // Último cambio (alta, pago, cancelación, expiración). Marca de agua del rollup horario.
+    // Las actualizaciones masivas (JPQL/SQL) deben asignarlo explícitamente.
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // Versión optimista: sube en cada cambio (la checkout pública la usa como ETag).
+    // Las actualizaciones masivas (JPQL/SQL) deben incrementarla explícitamente.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 }
 
@@ -0,0 +1,23 @@
+package com.laura.payment_links.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Hasta dónde (updated_at de payment_links) procesó un rollup incremental en esta base de datos
+@Entity
+@Table(name = "rollup_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RollupWatermark {
+
+    @Id
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Instant watermark;
+}
@@ -0,0 +1,22 @@
+package com.laura.payment_links.processor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SPI de pasarelas de pago.
+ * Las implementaciones no deben bloquear el hilo llamador: el resultado se entrega
+ * mediante el CompletableFuture cuando la pasarela responde.
+ */
+public interface PaymentProcessor {
+
+    // Nombre del procesador (se usa en logs y configuración)
+    String name();
+
+    /**
+     * Envía un cobro a la pasarela.
+     * @param request Datos del cobro (link, monto, token, idempotencyKey).
+     * @return Future con el resultado; falla con PaymentProcessorUnavailableException
+     *         si la pasarela no respondió a tiempo o no está disponible.
+     */
+    CompletableFuture<PaymentResult> process(PaymentRequest request);
+}
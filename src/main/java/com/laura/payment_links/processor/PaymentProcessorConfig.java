@@ -0,0 +1,31 @@
+package com.laura.payment_links.processor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PaymentProcessorConfig {
+
+    /**
+     * Procesador activo: la pasarela simulada envuelta con timeout, bulkhead y circuit breaker.
+     * Cada procesador toma su configuración de payment.processor.<nombre>.*
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ResilientPaymentProcessor paymentProcessor(
+            @Value("${payment.processor.simulated.latency-ms:200}") long latencyMs,
+            @Value("${payment.processor.simulated.failure-rate:0.0}") double failureRate,
+            @Value("${payment.processor.simulated.timeout-ms:2000}") long timeoutMs,
+            @Value("${payment.processor.simulated.max-concurrent-calls:100}") int maxConcurrentCalls,
+            @Value("${payment.processor.simulated.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${payment.processor.simulated.circuit-breaker.open-ms:30000}") long openMs,
+            @Value("${payment.processor.simulated.completion-threads:8}") int completionThreads) {
+
+        return new ResilientPaymentProcessor(
+                new SimulatedPaymentProcessor(latencyMs, failureRate),
+                timeoutMs,
+                maxConcurrentCalls,
+                new CircuitBreaker(failureThreshold, openMs),
+                completionThreads);
+    }
+}
@@ -0,0 +1,18 @@
+package com.laura.payment_links.processor;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class PaymentRequest {
+    private UUID paymentLinkId;
+    private Integer amountCents;
+    private String currency;
+    private String paymentToken;    // Ej: "ok_visa_4242" o "fail_insufficient_funds"
+    private String idempotencyKey;  // Se reenvía a la pasarela para evitar cobros dobles
+}
@@ -0,0 +1,20 @@
+package com.laura.payment_links.processor;
+
+import com.laura.payment_links.model.PaymentAttemptStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PaymentResult {
+    private PaymentAttemptStatus status;
+    private String reason;  // Null si fue exitoso
+
+    public static PaymentResult success() {
+        return new PaymentResult(PaymentAttemptStatus.SUCCESS, null);
+    }
+
+    public static PaymentResult failed(String reason) {
+        return new PaymentResult(PaymentAttemptStatus.FAILED, reason);
+    }
+}
@@ -0,0 +1,94 @@
+package com.laura.payment_links.processor;
+
+import com.laura.payment_links.exception.PaymentProcessorUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+
+/**
+ * Decorador que protege a un PaymentProcessor con:
+ * - bulkhead: máximo de cobros en vuelo (el exceso se rechaza de inmediato, sin encolar),
+ * - timeout por procesador,
+ * - circuit breaker.
+ * Los futures devueltos se completan en un pool propio, nunca en los hilos internos de la pasarela.
+ */
+@Slf4j
+public class ResilientPaymentProcessor implements PaymentProcessor {
+
+    private final PaymentProcessor delegate;
+    private final long timeoutMs;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService completionExecutor;
+
+    public ResilientPaymentProcessor(PaymentProcessor delegate, long timeoutMs, int maxConcurrentCalls,
+                                     CircuitBreaker circuitBreaker, int completionThreads) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = circuitBreaker;
+        this.completionExecutor = Executors.newFixedThreadPool(completionThreads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-" + delegate.name() + "-completion");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> process(PaymentRequest request) {
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new PaymentProcessorUnavailableException(
+                    name(), "demasiados cobros en curso"));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new PaymentProcessorUnavailableException(
+                    name(), "circuito abierto"));
+        }
+
+        CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+        CompletableFuture<PaymentResult> call;
+        try {
+            call = delegate.process(request);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        call.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((paymentResult, error) -> {
+                    bulkhead.release();
+                    if (error == null) {
+                        // Un rechazo de la pasarela es una respuesta válida: no abre el circuito
+                        circuitBreaker.onSuccess();
+                        result.complete(paymentResult);
+                        return;
+                    }
+
+                    circuitBreaker.onFailure();
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    log.warn("Fallo en el procesador {} para el link {}: {}",
+                            name(), request.getPaymentLinkId(), cause.toString());
+                    // El cobro ya se envió: el resultado es desconocido (a diferencia del bulkhead o el circuito)
+                    result.completeExceptionally(cause instanceof TimeoutException
+                            ? new PaymentProcessorUnavailableException(name(), "timeout de " + timeoutMs + " ms", true)
+                            : new PaymentProcessorUnavailableException(name(), cause.getMessage(), true));
+                }, completionExecutor);
+
+        return result;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public void shutdown() {
+        completionExecutor.shutdown();
+    }
+}
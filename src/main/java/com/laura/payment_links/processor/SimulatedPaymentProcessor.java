@@ -0,0 +1,42 @@
+package com.laura.payment_links.processor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pasarela simulada: tokens "ok_" se aprueban y el resto se rechaza.
+ * La latencia se simula con un delayedExecutor, así que ningún hilo queda dormido esperando.
+ */
+public class SimulatedPaymentProcessor implements PaymentProcessor {
+
+    private final long latencyMs;
+    private final double failureRate;  // Probabilidad de rechazo aleatorio de tokens "ok_" (0.0 - 1.0)
+
+    public SimulatedPaymentProcessor(long latencyMs, double failureRate) {
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public String name() {
+        return "simulated";
+    }
+
+    @Override
+    public CompletableFuture<PaymentResult> process(PaymentRequest request) {
+        Executor delayed = CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> decide(request), delayed);
+    }
+
+    private PaymentResult decide(PaymentRequest request) {
+        if (!request.getPaymentToken().startsWith("ok_")) {
+            return PaymentResult.failed("Pago rechazado");
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return PaymentResult.failed("Pago rechazado por la pasarela");
+        }
+        return PaymentResult.success();
+    }
+}
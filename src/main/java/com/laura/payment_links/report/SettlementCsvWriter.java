@@ -0,0 +1,74 @@
+package com.laura.payment_links.report;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escribe el archivo de liquidación de un comercio (CSV comprimido con gzip) fila por fila.
+ * Solo guarda en memoria los totales por moneda, no las filas.
+ * Formato: record_type,payment_link_id,reference,paid_at,currency,amount_cents,count,description
+ * - ITEM: un link pagado (count = 1).
+ * - TOTAL: una fila por moneda al final, con el monto total y la cantidad de links.
+ */
+class SettlementCsvWriter implements Closeable {
+
+    private static final String HEADER = "record_type,payment_link_id,reference,paid_at,currency,amount_cents,count,description";
+
+    private final BufferedWriter writer;
+    private final Map<String, long[]> totalsByCurrency = new TreeMap<>(); // moneda -> {monto, cantidad}
+    private long items;
+
+    SettlementCsvWriter(Path file) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024), StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    void writeItem(UUID id, String reference, Instant paidAt, String currency, long amountCents, String description)
+            throws IOException {
+        writer.write(String.join(",", "ITEM", id.toString(), escape(reference), paidAt.toString(),
+                currency, Long.toString(amountCents), "1", escape(description)));
+        writer.newLine();
+
+        long[] totals = totalsByCurrency.computeIfAbsent(currency, c -> new long[2]);
+        totals[0] += amountCents;
+        totals[1]++;
+        items++;
+    }
+
+    long items() {
+        return items;
+    }
+
+    // Escribe los totales y cierra el gzip
+    @Override
+    public void close() throws IOException {
+        try (writer) {
+            for (Map.Entry<String, long[]> entry : totalsByCurrency.entrySet()) {
+                writer.write(String.join(",", "TOTAL", "", "", "", entry.getKey(),
+                        Long.toString(entry.getValue()[0]), Long.toString(entry.getValue()[1]), ""));
+                writer.newLine();
+            }
+        }
+    }
+
+    // Comillas solo cuando hacen falta (RFC 4180)
+    private static String escape(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
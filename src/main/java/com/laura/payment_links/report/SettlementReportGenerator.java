@@ -0,0 +1,183 @@
+package com.laura.payment_links.report;
+
+import com.laura.payment_links.service.TransactionRunner;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.workload.Workload;
+import com.laura.payment_links.workload.WorkloadContext;
+import com.laura.payment_links.workload.WorkloadProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Genera los archivos diarios de liquidación (links PAID por paid_at) de cada comercio.
+ * - El día se parte por comercio y los comercios se procesan en paralelo en un ForkJoinPool.
+ * - Cada comercio se lee con un cursor (fetchSize) y se escribe directo al gzip: la memoria depende
+ *   del número de hilos, no del número de filas.
+ * - Lecturas en transacciones de solo lectura sobre los índices parciales de paid_at (sin bloqueos).
+ * Salida: {output-dir}/{AAAA-MM-DD}/{merchantId}.csv.gz
+ */
+@Slf4j
+@Component
+public class SettlementReportGenerator {
+
+    private static final String MERCHANTS_WITH_PAYMENTS =
+            "SELECT DISTINCT merchant_id FROM payment_links " +
+            "WHERE status = 'PAID' AND paid_at >= ? AND paid_at < ?";          // idx_payment_links_paid_day
+
+    private static final String PAID_LINKS =
+            "SELECT id, reference, paid_at, currency, amount_cents, description FROM payment_links " +
+            "WHERE merchant_id = ? AND status = 'PAID' AND paid_at >= ? AND paid_at < ? " +
+            "ORDER BY paid_at";                                                 // idx_payment_links_merchant_paid
+
+    private final TransactionRunner transactions;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbc;
+    private final Path outputDir;
+    private final int parallelism;
+
+    public SettlementReportGenerator(TransactionRunner transactions,
+                                     ShardRouter shardRouter,
+                                     DataSource dataSource,
+                                     @Value("${payment-links.reports.settlement.output-dir:reports/settlement}") String outputDir,
+                                     @Value("${payment-links.reports.settlement.parallelism:0}") int parallelism,
+                                     WorkloadProperties workloadProperties,
+                                     @Value("${payment-links.reports.settlement.fetch-size:1000}") int fetchSize) {
+        this.transactions = transactions;
+        this.shardRouter = shardRouter;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.outputDir = Path.of(outputDir);
+        // 0 = un hilo por núcleo. Cada hilo usa una conexión: no puede superar el tamaño del pool de reporting.
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.parallelism = workloadProperties.isEnabled()
+                ? Math.min(threads, workloadProperties.getReporting().getMaxSize())
+                : threads;
+    }
+
+    /**
+     * Genera los archivos de un día (UTC). Si se vuelve a ejecutar, los archivos se reemplazan.
+     * @param day Día a liquidar.
+     * @return Resumen (comercios, filas, duración).
+     */
+    public SettlementReportSummary generate(LocalDate day) {
+        long start = System.nanoTime();
+        Instant from = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        List<MerchantDay> work = new ArrayList<>();
+        for (int shard : shardRouter.shards()) {
+            List<UUID> merchants = transactions.readOnShard(shard, () ->
+                    jdbc.queryForList(MERCHANTS_WITH_PAYMENTS, UUID.class, Timestamp.from(from), Timestamp.from(to)));
+            merchants.forEach(merchantId -> work.add(new MerchantDay(shard, merchantId)));
+        }
+        if (work.isEmpty()) return SettlementReportSummary.empty(day);
+
+        Path dayDir = outputDir.resolve(day.toString());
+        try {
+            Files.createDirectories(dayDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Los hilos del pool no heredan la clase de trabajo del job: se propaga a cada tarea
+        Workload workload = WorkloadContext.current();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long items;
+        try {
+            items = pool.invoke(new MerchantBatch(work, dayDir, from, to, workload));
+        } finally {
+            pool.shutdown();
+        }
+
+        SettlementReportSummary summary = new SettlementReportSummary(
+                day, work.size(), items, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Liquidación {}: {} comercios, {} links en {} ms ({} hilos)",
+                day, summary.merchants(), summary.items(), summary.elapsed().toMillis(), parallelism);
+        return summary;
+    }
+
+    // Escribe el archivo de un comercio (primero en .tmp y luego se renombra, para no dejar archivos a medias)
+    private long writeMerchant(MerchantDay merchantDay, Path dayDir, Instant from, Instant to) {
+        Path file = dayDir.resolve(merchantDay.merchantId() + ".csv.gz");
+        Path tmp = dayDir.resolve(merchantDay.merchantId() + ".csv.gz.tmp");
+
+        long items = transactions.readOnShard(merchantDay.shard(), () -> {
+            try (SettlementCsvWriter writer = new SettlementCsvWriter(tmp)) {
+                jdbc.query(PAID_LINKS, (RowCallbackHandler) rs -> {
+                    try {
+                        writer.writeItem(rs.getObject("id", UUID.class),
+                                rs.getString("reference"),
+                                rs.getTimestamp("paid_at").toInstant(),
+                                rs.getString("currency"),
+                                rs.getLong("amount_cents"),
+                                rs.getString("description"));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, merchantDay.merchantId(), Timestamp.from(from), Timestamp.from(to));
+                return writer.items();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return items;
+    }
+
+    private record MerchantDay(int shard, UUID merchantId) {
+    }
+
+    // Divide la lista de comercios a la mitad hasta llegar a uno por tarea
+    private class MerchantBatch extends RecursiveTask<Long> {
+        private final List<MerchantDay> merchants;
+        private final Path dayDir;
+        private final Instant from;
+        private final Instant to;
+        private final Workload workload;
+
+        MerchantBatch(List<MerchantDay> merchants, Path dayDir, Instant from, Instant to, Workload workload) {
+            this.merchants = merchants;
+            this.dayDir = dayDir;
+            this.from = from;
+            this.to = to;
+            this.workload = workload;
+        }
+
+        @Override
+        protected Long compute() {
+            if (merchants.size() == 1) {
+                return WorkloadContext.call(workload, () -> writeMerchant(merchants.get(0), dayDir, from, to));
+            }
+            int middle = merchants.size() / 2;
+            MerchantBatch left = new MerchantBatch(merchants.subList(0, middle), dayDir, from, to, workload);
+            MerchantBatch right = new MerchantBatch(merchants.subList(middle, merchants.size()), dayDir, from, to, workload);
+            left.fork();
+            return right.compute() + left.join();
+        }
+    }
+}
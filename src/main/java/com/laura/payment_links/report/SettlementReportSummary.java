@@ -0,0 +1,12 @@
+package com.laura.payment_links.report;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+// Resultado de una corrida del generador de liquidaciones
+public record SettlementReportSummary(LocalDate day, int merchants, long items, Duration elapsed) {
+
+    static SettlementReportSummary empty(LocalDate day) {
+        return new SettlementReportSummary(day, 0, 0, Duration.ZERO);
+    }
+}
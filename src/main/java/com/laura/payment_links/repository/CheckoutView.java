@@ -0,0 +1,11 @@
+package com.laura.payment_links.repository;
+
+import com.laura.payment_links.model.PaymentLinkStatus;
+
+import java.time.Instant;
+
+// Proyección de un link para la checkout pública (sin ids ni metadata), con la versión optimista para el ETag
+public record CheckoutView(String reference, String merchantName, String description, Integer amountCents,
+                           String currency, PaymentLinkStatus status, Instant expiresAt, Instant paidAt,
+                           long version) {
+}
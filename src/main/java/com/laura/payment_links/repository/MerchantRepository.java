@@ -2,6 +2,10 @@ package com.laura.payment_links.repository;
 
 import com.laura.payment_links.model.Merchant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +16,15 @@ public interface MerchantRepository extends JpaRepository<Merchant, UUID> {
 
     // Verifica existencia de email (evita duplicados)
     boolean existsByEmail(String email);
+
+    // Copia del comercio en su shard (las FKs de payment_links apuntan a merchants del mismo shard)
+    @Modifying
+    @Query(value = "INSERT INTO merchants (id, name, email, password_hash, created_at) " +
+            "VALUES (:id, :name, :email, :passwordHash, :createdAt) ON CONFLICT (id) DO NOTHING",
+            nativeQuery = true)
+    int insertReplica(@Param("id") UUID id,
+                      @Param("name") String name,
+                      @Param("email") String email,
+                      @Param("passwordHash") String passwordHash,
+                      @Param("createdAt") Instant createdAt);
 }
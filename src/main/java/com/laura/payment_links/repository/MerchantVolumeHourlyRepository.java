@@ -0,0 +1,70 @@
+package com.laura.payment_links.repository;
+
+import com.laura.payment_links.dto.response.VolumePointResponse;
+import com.laura.payment_links.model.MerchantVolumeHourly;
+import com.laura.payment_links.model.MerchantVolumeHourlyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface MerchantVolumeHourlyRepository extends JpaRepository<MerchantVolumeHourly, MerchantVolumeHourlyId> {
+
+    // Agregado de una hora: cantidad y monto de los links que cumplen la condición en [c.hour_start, +1h)
+    String HOUR_TOTALS =
+            "SELECT count(*) AS cnt, coalesce(sum(pl.amount_cents), 0) AS amount FROM payment_links pl " +
+            "WHERE pl.merchant_id = c.merchant_id AND pl.currency = c.currency AND ";
+
+    /**
+     * Rollup incremental: busca las horas (comercio, moneda) tocadas por links con updated_at en (from, to],
+     * las recalcula completas desde payment_links y las guarda con un upsert.
+     * Recalcular (en lugar de sumar deltas) hace que reprocesar una ventana sea idempotente.
+     * Usa idx_payment_links_updated_at, idx_payment_links_merchant_created y los índices parciales de PAID/EXPIRED.
+     * @return cantidad de horas recalculadas.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "WITH changed AS (" +
+            "SELECT merchant_id, currency, created_at, paid_at, expires_at, status FROM payment_links " +
+            "WHERE updated_at > :from AND updated_at <= :to), " +
+            "hours AS (" +
+            "SELECT merchant_id, currency, date_trunc('hour', created_at, 'UTC') AS hour_start FROM changed " +
+            "UNION SELECT merchant_id, currency, date_trunc('hour', paid_at, 'UTC') FROM changed " +
+            "WHERE status = 'PAID' AND paid_at IS NOT NULL " +
+            "UNION SELECT merchant_id, currency, date_trunc('hour', expires_at, 'UTC') FROM changed " +
+            "WHERE status = 'EXPIRED') " +
+            "INSERT INTO merchant_volume_hourly (merchant_id, currency, hour_start, " +
+            "created_count, created_amount_cents, paid_count, paid_amount_cents, " +
+            "expired_count, expired_amount_cents, updated_at) " +
+            "SELECT c.merchant_id, c.currency, c.hour_start, cr.cnt, cr.amount, pd.cnt, pd.amount, ex.cnt, ex.amount, :to " +
+            "FROM hours c " +
+            "CROSS JOIN LATERAL (" + HOUR_TOTALS +
+            "pl.created_at >= c.hour_start AND pl.created_at < c.hour_start + interval '1 hour') cr " +
+            "CROSS JOIN LATERAL (" + HOUR_TOTALS + "pl.status = 'PAID' " +
+            "AND pl.paid_at >= c.hour_start AND pl.paid_at < c.hour_start + interval '1 hour') pd " +
+            "CROSS JOIN LATERAL (" + HOUR_TOTALS + "pl.status = 'EXPIRED' " +
+            "AND pl.expires_at >= c.hour_start AND pl.expires_at < c.hour_start + interval '1 hour') ex " +
+            "ON CONFLICT (merchant_id, currency, hour_start) DO UPDATE SET " +
+            "created_count = EXCLUDED.created_count, created_amount_cents = EXCLUDED.created_amount_cents, " +
+            "paid_count = EXCLUDED.paid_count, paid_amount_cents = EXCLUDED.paid_amount_cents, " +
+            "expired_count = EXCLUDED.expired_count, expired_amount_cents = EXCLUDED.expired_amount_cents, " +
+            "updated_at = EXCLUDED.updated_at")
+    int rollup(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Serie del comercio en [from, to), opcionalmente de una moneda (usa idx_merchant_volume_hourly_merchant_hour)
+    @Query("SELECT new com.laura.payment_links.dto.response.VolumePointResponse(" +
+            "v.id.hourStart, v.id.currency, v.createdCount, v.createdAmountCents, v.paidCount, v.paidAmountCents, " +
+            "v.expiredCount, v.expiredAmountCents) " +
+            "FROM MerchantVolumeHourly v WHERE v.id.merchantId = :merchantId " +
+            "AND v.id.hourStart >= :from AND v.id.hourStart < :to " +
+            "AND (:currency IS NULL OR v.id.currency = :currency) " +
+            "ORDER BY v.id.hourStart, v.id.currency")
+    List<VolumePointResponse> findSeries(@Param("merchantId") UUID merchantId,
+                                         @Param("from") Instant from,
+                                         @Param("to") Instant to,
+                                         @Param("currency") String currency);
+}
@@ -0,0 +1,12 @@
+package com.laura.payment_links.repository;
+
+import com.laura.payment_links.model.PaymentLinkStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Proyección de un link para el índice en memoria de links abiertos (OpenLinkIndex).
+// version es la versión optimista del link: el índice descarta filas más viejas que lo que ya aplicó
+public record OpenLinkRow(UUID id, UUID merchantId, String reference, Integer amountCents, String currency,
+                          PaymentLinkStatus status, Instant createdAt, Instant expiresAt, long version) {
+}
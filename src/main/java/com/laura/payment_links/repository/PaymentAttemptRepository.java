@@ -1,8 +1,16 @@
 package com.laura.payment_links.repository;
 
 import com.laura.payment_links.model.PaymentAttempt;
+import com.laura.payment_links.model.PaymentAttemptStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,4 +25,28 @@ public interface PaymentAttemptRepository extends JpaRepository<PaymentAttempt,
 
     // Historial de intentos por link
     List<PaymentAttempt> findByPaymentLinkIdOrderByCreatedAtDesc(UUID paymentLinkId);
-}
\ No newline at end of file
+
+    // Historial paginado (usa idx_payment_attempts_link_created)
+    Page<PaymentAttempt> findByPaymentLinkIdOrderByCreatedAtDesc(UUID paymentLinkId, Pageable pageable);
+
+    // Último intento de cada link de una página, en una sola consulta (evita N+1)
+    @Query("SELECT pa FROM PaymentAttempt pa WHERE " +
+            "pa.paymentLink.id IN :paymentLinkIds " +
+            "AND pa.createdAt = (SELECT MAX(last.createdAt) FROM PaymentAttempt last " +
+            "WHERE last.paymentLink.id = pa.paymentLink.id)")
+    List<PaymentAttempt> findLatestByPaymentLinkIds(@Param("paymentLinkIds") Collection<UUID> paymentLinkIds);
+
+    // Pago en curso sobre el link (intento reservado que la pasarela aún no respondió)
+    boolean existsByPaymentLinkIdAndStatus(UUID paymentLinkId, PaymentAttemptStatus status);
+
+    // Links del lote con un pago en curso (cancelación masiva)
+    @Query("SELECT DISTINCT pa.paymentLink.id FROM PaymentAttempt pa " +
+            "WHERE pa.paymentLink.id IN :paymentLinkIds AND pa.status = 'PENDING'")
+    List<UUID> findPaymentLinkIdsWithPendingAttempt(@Param("paymentLinkIds") Collection<UUID> paymentLinkIds);
+
+    // Intentos PENDING abandonados (la instancia cayó durante el cobro): se cierran y quedan para conciliar
+    @Modifying
+    @Query("UPDATE PaymentAttempt pa SET pa.status = 'FAILED', pa.reason = 'abandoned', pa.needsReconciliation = true " +
+            "WHERE pa.status = 'PENDING' AND pa.createdAt < :cutoff")
+    int abandonPendingAttempts(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,8 @@
+package com.laura.payment_links.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Proyección mínima de un link para reconstruir el filtro de existencia (PaymentLinkLookupFilter)
+public record PaymentLinkKey(UUID id, String reference, UUID merchantId, Instant createdAt) {
+}
@@ -1,16 +1,25 @@
 package com.laura.payment_links.repository;
 
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
 import com.laura.payment_links.model.PaymentLink;
-import com.laura.payment_links.model.PaymentLinkStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface PaymentLinkRepository extends JpaRepository<PaymentLink, UUID> {
+public interface PaymentLinkRepository extends JpaRepository<PaymentLink, UUID>, PaymentLinkSearchRepository {
+
+    // Siguiente número de referencia de la secuencia del shard actual
+    @Query(value = "SELECT nextval('payment_link_reference_seq')", nativeQuery = true)
+    long nextReferenceNumber();
 
     // Busca un link por ID y merchant
     Optional<PaymentLink> findByIdAndMerchantId(UUID id, UUID merchantId);
@@ -18,26 +27,76 @@ public interface PaymentLinkRepository extends JpaRepository<PaymentLink, UUID>
     // Busca por referencia única y merchant
     Optional<PaymentLink> findByReferenceAndMerchantId(String reference, UUID merchantId);
 
-    // Query dinámica con filtros
-    @Query("SELECT pl FROM PaymentLink pl WHERE " +
-            "pl.merchant.id = :merchantId " +
-            "AND (:status IS NULL OR pl.status = :status) " +
-            "AND (:fromDate IS NULL OR pl.createdAt >= :fromDate) " +
-            "AND (:toDate IS NULL OR pl.createdAt <= :toDate) " +
-            "AND (:minAmount IS NULL OR pl.amountCents >= :minAmount) " +
-            "AND (:maxAmount IS NULL OR pl.amountCents <= :maxAmount)")
-    Page<PaymentLink> search(
-            @Param("merchantId") UUID merchantId,
-            @Param("status") PaymentLinkStatus status,
-            @Param("fromDate") Instant fromDate,
-            @Param("toDate") Instant toDate,
-            @Param("minAmount") Integer minAmount,
-            @Param("maxAmount") Integer maxAmount,
-            Pageable pageable);
-
-    // Job de expiración (marca links vencidos)
+    // Estado de varios links del comercio en una sola consulta (IN), proyectado al DTO
+    @Query("SELECT new com.laura.payment_links.dto.response.PaymentLinkResponse(" +
+            "pl.id, pl.reference, pl.status, pl.expiresAt, pl.amountCents, pl.currency) " +
+            "FROM PaymentLink pl WHERE pl.merchant.id = :merchantId AND pl.id IN :ids")
+    List<PaymentLinkResponse> findResponsesByIds(@Param("merchantId") UUID merchantId,
+                                                 @Param("ids") Collection<UUID> ids);
+
+    // Claves (id, referencia, comercio) de todos los links, leídas con cursor para reconstruir el filtro de existencia
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT new com.laura.payment_links.repository.PaymentLinkKey(pl.id, pl.reference, pl.merchant.id, pl.createdAt) " +
+            "FROM PaymentLink pl")
+    Stream<PaymentLinkKey> streamAllKeys();
+
+    // Claves creadas desde un instante (refresco incremental, usa idx_payment_links_created_at)
+    @Query("SELECT new com.laura.payment_links.repository.PaymentLinkKey(pl.id, pl.reference, pl.merchant.id, pl.createdAt) " +
+            "FROM PaymentLink pl WHERE pl.createdAt >= :since")
+    List<PaymentLinkKey> findKeysCreatedSince(@Param("since") Instant since);
+
+    // Vista pública de checkout por referencia (solo campos aptos para el pagador, más la versión para el ETag)
+    @Query("SELECT new com.laura.payment_links.repository.CheckoutView(" +
+            "pl.reference, m.name, pl.description, pl.amountCents, pl.currency, pl.status, pl.expiresAt, pl.paidAt, pl.version) " +
+            "FROM PaymentLink pl JOIN pl.merchant m WHERE pl.reference = :reference")
+    Optional<CheckoutView> findCheckoutByReference(@Param("reference") String reference);
+
+    // Links abiertos (CREATED), leídos con cursor para cargar el índice en memoria (usa idx_payment_links_merchant_status)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT new com.laura.payment_links.repository.OpenLinkRow(pl.id, pl.merchant.id, pl.reference, " +
+            "pl.amountCents, pl.currency, pl.status, pl.createdAt, pl.expiresAt, pl.version) " +
+            "FROM PaymentLink pl WHERE pl.status = 'CREATED'")
+    Stream<OpenLinkRow> streamOpenLinks();
+
+    // Links que cambiaron desde un instante, con su estado actual (refresco del índice, usa idx_payment_links_updated_at)
+    @Query("SELECT new com.laura.payment_links.repository.OpenLinkRow(pl.id, pl.merchant.id, pl.reference, " +
+            "pl.amountCents, pl.currency, pl.status, pl.createdAt, pl.expiresAt, pl.version) " +
+            "FROM PaymentLink pl WHERE pl.updatedAt >= :since")
+    List<OpenLinkRow> findChangedSince(@Param("since") Instant since);
+
+    // Menor updated_at (primera ejecución del rollup horario: empieza desde el cambio más antiguo)
+    @Query("SELECT MIN(pl.updatedAt) FROM PaymentLink pl")
+    Instant findOldestUpdate();
+
+    // Job de expiración: lote de links vencidos, bloqueados (SKIP LOCKED: no espera a pagos en curso)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    // Los links con un pago en curso (intento PENDING) no se expiran hasta que la pasarela responda
+    @Query("SELECT pl FROM PaymentLink pl WHERE pl.status = 'CREATED' AND pl.expiresAt < :now " +
+            "AND NOT EXISTS (SELECT 1 FROM PaymentAttempt pa WHERE pa.paymentLink = pl AND pa.status = 'PENDING') " +
+            "ORDER BY pl.expiresAt")
+    List<PaymentLink> findLinksToExpire(@Param("now") Instant now, Pageable pageable);
+
+    // Pago y cancelación: bloquea el link para serializar la reserva del pago, su registro y la cancelación
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pl FROM PaymentLink pl WHERE pl.id = :id AND pl.merchant.id = :merchantId")
+    Optional<PaymentLink> findAndLockByIdAndMerchantId(@Param("id") UUID id, @Param("merchantId") UUID merchantId);
+
+    // Cancelación masiva: bloquea el lote del comercio (orden por id: lotes concurrentes no se bloquean mutuamente en ciclo)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pl FROM PaymentLink pl WHERE pl.merchant.id = :merchantId AND pl.id IN :ids ORDER BY pl.id")
+    List<PaymentLink> findAndLockByIds(@Param("merchantId") UUID merchantId, @Param("ids") Collection<UUID> ids);
+
+    // Cancela los links del lote que siguen en CREATED, con un solo UPDATE
+    @Modifying
+    @Query("UPDATE PaymentLink pl SET pl.status = 'CANCELLED', pl.updatedAt = :now, pl.version = pl.version + 1 " +
+            "WHERE pl.merchant.id = :merchantId AND pl.id IN :ids AND pl.status = 'CREATED'")
+    int cancelLinks(@Param("merchantId") UUID merchantId, @Param("ids") Collection<UUID> ids,
+                    @Param("now") Instant now);
+
+    // Marca como expirados los links del lote (solo si siguen en CREATED)
     @Modifying
-    @Query("UPDATE PaymentLink pl SET pl.status = 'EXPIRED' " +
-            "WHERE pl.status = 'CREATED' AND pl.expiresAt < :now")
-    int expireLinks(@Param("now") Instant now);
+    @Query("UPDATE PaymentLink pl SET pl.status = 'EXPIRED', pl.updatedAt = :now, pl.version = pl.version + 1 " +
+            "WHERE pl.id IN :ids AND pl.status = 'CREATED'")
+    int expireLinks(@Param("ids") Collection<UUID> ids, @Param("now") Instant now);
 }
@@ -0,0 +1,56 @@
+package com.laura.payment_links.repository;
+
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Búsquedas con filtros opcionales (implementadas en PaymentLinkSearchRepositoryImpl). Los parámetros null no filtran.
+public interface PaymentLinkSearchRepository {
+
+    // Página de links que cumplen los filtros, proyectada directamente al DTO (sin metadata ni entidades gestionadas)
+    default Page<PaymentLinkResponse> search(UUID merchantId,
+                                             PaymentLinkStatus status,
+                                             Instant fromDate,
+                                             Instant toDate,
+                                             Integer minAmount,
+                                             Integer maxAmount,
+                                             String metadataTyped,
+                                             String metadataText,
+                                             String textPattern,
+                                             Pageable pageable) {
+        return search(merchantId, status, fromDate, toDate, minAmount, maxAmount, metadataTyped, metadataText,
+                textPattern, null, pageable);
+    }
+
+    // Igual, pero el SELECT trae solo las columnas pedidas (fields=; nombres de PaymentLinkFields.COLUMNS, null = todas)
+    Page<PaymentLinkResponse> search(UUID merchantId,
+                                     PaymentLinkStatus status,
+                                     Instant fromDate,
+                                     Instant toDate,
+                                     Integer minAmount,
+                                     Integer maxAmount,
+                                     String metadataTyped,
+                                     String metadataText,
+                                     String textPattern,
+                                     Set<String> columns,
+                                     Pageable pageable);
+
+    // Cancelación masiva por filtro: siguientes ids (keyset por id) que cumplen los filtros del listado
+    List<UUID> findIdsAfter(UUID merchantId,
+                            PaymentLinkStatus status,
+                            Instant fromDate,
+                            Instant toDate,
+                            Integer minAmount,
+                            Integer maxAmount,
+                            String metadataTyped,
+                            String metadataText,
+                            String textPattern,
+                            UUID afterId,
+                            Pageable limit);
+}
@@ -0,0 +1,169 @@
+package com.laura.payment_links.repository;
+
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Arma el JPQL de la búsqueda con los filtros presentes, en lugar del patrón "(:x IS NULL OR ...)":
+ * - PostgreSQL no recibe nulos sin tipo (las fechas null fallaban con "could not determine data type").
+ * - Cada combinación de filtros es una sentencia distinta, así el plan genérico de un statement preparado
+ *   no descarta el índice de metadata. Con q= además se evita el plan genérico (forceCustomPlan).
+ * Con fields= el SELECT lista solo las columnas pedidas (el resto queda null en el DTO).
+ */
+public class PaymentLinkSearchRepositoryImpl implements PaymentLinkSearchRepository {
+
+    private static final String ALIAS = "pl";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PaymentLinkResponse> search(UUID merchantId, PaymentLinkStatus status, Instant fromDate, Instant toDate,
+                                            Integer minAmount, Integer maxAmount, String metadataTyped,
+                                            String metadataText, String textPattern, Set<String> columns,
+                                            Pageable pageable) {
+        Map<String, Object> binds = new HashMap<>();
+        String where = searchConditions(merchantId, status, fromDate, toDate, minAmount, maxAmount,
+                metadataTyped, metadataText, textPattern, binds);
+        forceCustomPlan(textPattern);
+
+        List<PaymentLinkResponse> content;
+        if (columns == null) {
+            String select = "SELECT new com.laura.payment_links.dto.response.PaymentLinkResponse(" +
+                    "pl.id, pl.reference, pl.status, pl.expiresAt, pl.amountCents, pl.currency) " +
+                    "FROM PaymentLink pl WHERE " + where;
+            TypedQuery<PaymentLinkResponse> query = entityManager.createQuery(
+                    QueryUtils.applySorting(select, pageable.getSort(), ALIAS), PaymentLinkResponse.class);
+            content = page(query, binds, pageable).getResultList();
+        } else {
+            // Alias = nombre del campo (columns viene validado por PaymentLinkFields)
+            String select = "SELECT " + columns.stream().map(column -> "pl." + column + " AS " + column)
+                    .collect(Collectors.joining(", ")) + " FROM PaymentLink pl WHERE " + where;
+            TypedQuery<Tuple> query = entityManager.createQuery(
+                    QueryUtils.applySorting(select, pageable.getSort(), ALIAS), Tuple.class);
+            content = page(query, binds, pageable).getResultStream().map(row -> toResponse(row, columns)).toList();
+        }
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery("SELECT COUNT(pl) FROM PaymentLink pl WHERE " + where, Long.class);
+            binds.forEach(count::setParameter);
+            return count.getSingleResult();
+        });
+    }
+
+    private static <T> TypedQuery<T> page(TypedQuery<T> query, Map<String, Object> binds, Pageable pageable) {
+        binds.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
+
+    private static PaymentLinkResponse toResponse(Tuple row, Set<String> columns) {
+        PaymentLinkResponse response = new PaymentLinkResponse();
+        if (columns.contains("id")) response.setId(row.get("id", UUID.class));
+        if (columns.contains("reference")) response.setReference(row.get("reference", String.class));
+        if (columns.contains("status")) response.setStatus(row.get("status", PaymentLinkStatus.class).name());
+        if (columns.contains("expiresAt")) response.setExpiresAt(row.get("expiresAt", Instant.class));
+        if (columns.contains("amountCents")) response.setAmountCents(row.get("amountCents", Integer.class));
+        if (columns.contains("currency")) response.setCurrency(row.get("currency", String.class));
+        return response;
+    }
+
+    @Override
+    public List<UUID> findIdsAfter(UUID merchantId, PaymentLinkStatus status, Instant fromDate, Instant toDate,
+                                   Integer minAmount, Integer maxAmount, String metadataTyped, String metadataText,
+                                   String textPattern, UUID afterId, Pageable limit) {
+        Map<String, Object> binds = new HashMap<>();
+        String where = searchConditions(merchantId, status, fromDate, toDate, minAmount, maxAmount,
+                metadataTyped, metadataText, textPattern, binds);
+        forceCustomPlan(textPattern);
+        binds.put("afterId", afterId);
+
+        TypedQuery<UUID> query = entityManager.createQuery(
+                "SELECT pl.id FROM PaymentLink pl WHERE " + where + " AND pl.id > :afterId ORDER BY pl.id", UUID.class);
+        binds.forEach(query::setParameter);
+        query.setMaxResults(limit.getPageSize());
+        return query.getResultList();
+    }
+
+    /**
+     * Con q= el plan genérico del statement preparado (a partir de la sexta ejecución) estima merchant_id = $1
+     * con el promedio de links por comercio y recorre todos los del comercio en lugar del índice de trigramas:
+     * cientos de ms en un comercio grande. Se planifica cada ejecución con sus valores, solo en esta transacción.
+     * @UsedBy search(), findIdsAfter()
+     */
+    private void forceCustomPlan(String textPattern) {
+        if (textPattern == null) return;
+        entityManager.createNativeQuery("SELECT set_config('plan_cache_mode', 'force_custom_plan', true)")
+                .getSingleResult();
+    }
+
+    /**
+     * Condiciones del listado; agrega a binds los parámetros usados.
+     * @UsedBy search(), findIdsAfter()
+     */
+    private static String searchConditions(UUID merchantId, PaymentLinkStatus status, Instant fromDate, Instant toDate,
+                                           Integer minAmount, Integer maxAmount, String metadataTyped,
+                                           String metadataText, String textPattern, Map<String, Object> binds) {
+        StringBuilder where = new StringBuilder("pl.merchant.id = :merchantId");
+        binds.put("merchantId", merchantId);
+
+        if (status != null) {
+            where.append(" AND pl.status = :status");
+            binds.put("status", status);
+        }
+        if (fromDate != null) {
+            where.append(" AND pl.createdAt >= :fromDate");
+            binds.put("fromDate", fromDate);
+        }
+        if (toDate != null) {
+            where.append(" AND pl.createdAt <= :toDate");
+            binds.put("toDate", toDate);
+        }
+        if (minAmount != null) {
+            where.append(" AND pl.amountCents >= :minAmount");
+            binds.put("minAmount", minAmount);
+        }
+        if (maxAmount != null) {
+            where.append(" AND pl.amountCents <= :maxAmount");
+            binds.put("maxAmount", maxAmount);
+        }
+
+        // jsonb_contains se traduce a @> (PostgresFunctionContributor) y usa idx_payment_links_metadata_gin
+        if (metadataTyped != null) {
+            where.append(" AND (jsonb_contains(pl.metadata, cast(:metadataTyped as String)) = true")
+                    .append(" OR jsonb_contains(pl.metadata, cast(:metadataText as String)) = true)");
+            binds.put("metadataTyped", metadataTyped);
+            binds.put("metadataText", metadataText);
+        }
+
+        // Búsqueda por fragmentos (ILIKE): la primera condición es la expresión del índice
+        // idx_payment_links_merchant_text_trgm (una sola pasada por el GIN en lugar de una por columna);
+        // la segunda descarta las coincidencias que cruzan de description a reference
+        if (textPattern != null) {
+            where.append(" AND (coalesce(pl.description, '') || ' ' || pl.reference) ilike :textPattern escape '\\'")
+                    .append(" AND (pl.description ilike :textPattern escape '\\'")
+                    .append(" OR pl.reference ilike :textPattern escape '\\')");
+            binds.put("textPattern", textPattern);
+        }
+        return where.toString();
+    }
+}
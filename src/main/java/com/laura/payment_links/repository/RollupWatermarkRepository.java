@@ -0,0 +1,7 @@
+package com.laura.payment_links.repository;
+
+import com.laura.payment_links.model.RollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, String> {
+}
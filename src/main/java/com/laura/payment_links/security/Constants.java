@@ -9,6 +9,8 @@ public class Constants {
 
     // Spring Security
     public static final String LOGIN_URL = "/payment-links/merchant/login";
+    public static final String REGISTER_PATH = "/payment-links/register";
+    public static final String LOGIN_PATH = "/payment-links/login";
     public static final String HEADER_AUTHORIZACION_KEY = "Authorization";
     public static final String TOKEN_BEARER_PREFIX = "Bearer ";
 
@@ -1,6 +1,7 @@
 package com.laura.payment_links.security;
 
 import static com.laura.payment_links.security.Constants.*;
+import com.laura.payment_links.timing.RequestTiming;
 import io.jsonwebtoken.*;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -31,6 +32,17 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
                 .getBody();
     }
 
+    // Verificación de la firma, medida como span "jwt" de Server-Timing
+    private Claims parseClaimsTimed(HttpServletRequest request) {
+        RequestTiming timing = RequestTiming.current();
+        long start = System.nanoTime();
+        try {
+            return setSigningKey(request);
+        } finally {
+            if (timing != null) timing.record("jwt", "JWTAuthorizationFilter", "parseClaims", start);
+        }
+    }
+
     private void setAuthentication(Claims claims) {
 
         List<String> authorities = (List<String>) claims.get("authorities");
@@ -54,7 +66,7 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         try {
             if (isJWTValid(request, response)) {
-                Claims claims = setSigningKey(request);
+                Claims claims = parseClaimsTimed(request);
                 if (claims.get("authorities") != null) {
                     setAuthentication(claims);
                 } else {
@@ -9,20 +9,21 @@ import org.springframework.security.core.authority.AuthorityUtils;
 
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Configuration
 public class JWTAuthtenticationConfig {
 
-    public String getJWTToken(String username) {
+    public String getJWTToken(String username, UUID merchantId) {
 
         List<GrantedAuthority> grantedAuthorities = AuthorityUtils
                 .commaSeparatedStringToAuthorityList("ROLE_USER");
 
         String token = Jwts
                 .builder()
-                // Establecer el ID del token
-                .setId("campuscl")
+                // Establecer el ID del token (ID del comerciante, lo lee validateTokenAndGetMerchantId)
+                .setId(merchantId.toString())
                 // Establecer el sujeto del token (en este caso, el nombre de usuario)
                 .setSubject(username)
                 // Agregar la lista de autoridades al token en forma de Claims
@@ -0,0 +1,43 @@
+package com.laura.payment_links.security;
+
+import com.laura.payment_links.exception.AuthException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Valida tokens JWT y extrae el ID del comercio (claim "jti").
+ * No depende de la pila web: lo usan MerchantAuthService (MVC) y el módulo reactivo.
+ */
+@Component
+public class JwtTokenValidator {
+
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(Constants.getSigningKey(Constants.SUPER_SECRET_KEY))
+            .build();
+
+    /**
+     * @param token Token JWT (con o sin prefijo "Bearer ").
+     * @return UUID del comerciante.
+     * @throws AuthException (401) si el token es inválido o está expirado.
+     */
+    public UUID validateAndGetMerchantId(String token) {
+        if (token == null) {
+            throw new AuthException("Token inválido: falta el encabezado Authorization");
+        }
+        try {
+            // Remueve el prefijo "Bearer " si está presente
+            String jwtToken = token.replace(Constants.TOKEN_BEARER_PREFIX, "");
+            Claims claims = parser.parseClaimsJws(jwtToken).getBody();
+
+            // El ID del comerciante se almacena en el claim "jti" (ID del token)
+            return UUID.fromString(claims.getId());
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AuthException("Token inválido: " + e.getMessage());
+        }
+    }
+}
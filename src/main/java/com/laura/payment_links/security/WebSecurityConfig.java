@@ -1,6 +1,7 @@
 package com.laura.payment_links.security;
 
 import static com.laura.payment_links.security.Constants.*;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -32,8 +33,15 @@ class WebSecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(authz -> authz
+                        // Despachos ASYNC/ERROR (pay asíncrono, streams SSE): la petición original ya se autorizó
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        // Sondas de liveness/readiness (readiness queda OUT_OF_SERVICE hasta terminar el calentamiento)
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
+                        // Checkout pública del pagador (solo lectura, sin token)
+                        .requestMatchers(HttpMethod.GET, "/p/**").permitAll()
                         .requestMatchers(HttpMethod.POST, LOGIN_URL).permitAll()
+                        .requestMatchers(HttpMethod.POST, REGISTER_PATH, LOGIN_PATH).permitAll()
                         .requestMatchers(HttpMethod.POST, "/payment-links/merchant").permitAll()
                         .requestMatchers(HttpMethod.GET, "/payment-links/merchant").permitAll()
                         .anyRequest().authenticated()
@@ -0,0 +1,148 @@
+package com.laura.payment_links.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.laura.payment_links.dto.response.CheckoutResponse;
+import com.laura.payment_links.exception.PaymentLinkNotFoundException;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import com.laura.payment_links.repository.CheckoutView;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.util.LinkIdentifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Checkout pública (/p/{token}): vista de solo lectura de un link para el pagador.
+ * - El token es la referencia firmada (CheckoutTokens): una referencia sola no alcanza para leer el link.
+ * - Caché caliente en memoria por referencia: los links abiertos (CREATED) viven poco y los terminales más.
+ * - Los cambios de estado hechos en esta instancia la invalidan (evict); los de otras instancias
+ *   se ven como máximo tras cache-ttl-seconds.
+ * - El ETag sale de la versión optimista del link y del estado mostrado.
+ */
+@Service
+public class CheckoutService {
+
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final TransactionRunner transactions;
+    private final ShardRouter shardRouter;
+    private final PaymentLinkLookupFilter lookupFilter;
+    private final CheckoutTokens checkoutTokens;
+    private final Cache<String, CheckoutView> cache;
+
+    public CheckoutService(PaymentLinkRepository paymentLinkRepository,
+                           TransactionRunner transactions,
+                           ShardRouter shardRouter,
+                           PaymentLinkLookupFilter lookupFilter,
+                           CheckoutTokens checkoutTokens,
+                           MeterRegistry meterRegistry,
+                           @Value("${payment-links.checkout.cache-max-size:100000}") long maxSize,
+                           @Value("${payment-links.checkout.cache-ttl-seconds:10}") long openTtlSeconds,
+                           @Value("${payment-links.checkout.terminal-cache-ttl-seconds:600}") long terminalTtlSeconds) {
+        this.paymentLinkRepository = paymentLinkRepository;
+        this.transactions = transactions;
+        this.shardRouter = shardRouter;
+        this.lookupFilter = lookupFilter;
+        this.checkoutTokens = checkoutTokens;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new StatusExpiry(Duration.ofSeconds(openTtlSeconds), Duration.ofSeconds(terminalTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "payment_links.checkout");
+    }
+
+    /**
+     * Obtiene la vista de checkout de un link por su token (desde la caché o la base de datos).
+     * La firma se verifica antes que el filtro de existencia: un token falso no llega a la base de datos.
+     * Las cargas concurrentes de la misma referencia se agrupan en una sola consulta.
+     * @param token referencia firmada del link (PL-AAAA-NNNNNN.<firma>, ver CheckoutTokens).
+     * @return CheckoutView con la versión actual del link.
+     * @throws PaymentLinkNotFoundException (404) si la firma no corresponde o la referencia no existe.
+     */
+    public CheckoutView getCheckout(String token) {
+        String reference = checkoutTokens.reference(token);
+        if (reference == null) {
+            throw new PaymentLinkNotFoundException(token);
+        }
+        LinkIdentifier identifier = LinkIdentifier.parse(reference);
+        if (!lookupFilter.mightExistReference(identifier)) {
+            throw new PaymentLinkNotFoundException(reference);
+        }
+        // Las referencias inexistentes no se guardan (el loader devuelve null): no llenan la caché
+        CheckoutView view = cache.get(reference, key -> load(identifier).orElse(null));
+        if (view == null) {
+            throw new PaymentLinkNotFoundException(reference);
+        }
+        return view;
+    }
+
+    /**
+     * Convierte la vista al DTO público. Un link CREATED ya vencido se muestra como EXPIRED
+     * aunque el job de expiración todavía no lo haya marcado.
+     */
+    public CheckoutResponse toResponse(CheckoutView view, Instant now) {
+        return CheckoutResponse.builder()
+                .reference(view.reference())
+                .merchantName(view.merchantName())
+                .description(view.description())
+                .amountCents(view.amountCents())
+                .currency(view.currency())
+                .status(effectiveStatus(view, now).name())
+                .expiresAt(view.expiresAt())
+                .paidAt(view.paidAt())
+                .build();
+    }
+
+    // Estado que ve el pagador en este instante
+    public PaymentLinkStatus effectiveStatus(CheckoutView view, Instant now) {
+        if (view.status() == PaymentLinkStatus.CREATED && !now.isBefore(view.expiresAt())) {
+            return PaymentLinkStatus.EXPIRED;
+        }
+        return view.status();
+    }
+
+    // Invalida la entrada de la referencia (llamar después del commit de un cambio de estado)
+    public void evict(String reference) {
+        cache.invalidate(reference);
+    }
+
+    /**
+     * Busca la referencia empezando por el shard que emitió su número; si no está ahí, recorre el resto.
+     * @UsedBy getCheckout()
+     */
+    private Optional<CheckoutView> load(LinkIdentifier identifier) {
+        for (int shard : shardRouter.shardsForReference(identifier.sequenceNumber())) {
+            Optional<CheckoutView> view = transactions.readOnShard(shard,
+                    () -> paymentLinkRepository.findCheckoutByReference(identifier.reference()));
+            if (view.isPresent()) return view;
+        }
+        return Optional.empty();
+    }
+
+    // Vigencia en caché según el estado: los terminales ya no cambian
+    private record StatusExpiry(Duration open, Duration terminal) implements Expiry<String, CheckoutView> {
+
+        @Override
+        public long expireAfterCreate(String key, CheckoutView view, long currentTime) {
+            return (view.status() == PaymentLinkStatus.CREATED ? open : terminal).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CheckoutView view, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, view, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CheckoutView view, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.laura.payment_links.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Token de la checkout pública (/p/{token}): la referencia seguida de su firma, PL-AAAA-NNNNNN.<firma>.
+ * - Las referencias son secuenciales (ReferenceSequenceInitializer): sin firma cualquiera podría recorrer
+ *   PL-AAAA-N y leer monto, descripción y comercio de todos los links.
+ * - La firma es HMAC-SHA256 de la referencia con payment-links.checkout.token-secret, truncado a 128 bits
+ *   (Base64 URL): no se puede adivinar sin el secreto.
+ * - Es determinista: no hay columna ni búsqueda extra, y cualquier instancia (en cualquier shard) lo valida.
+ *   Cambiar el secreto invalida todos los tokens entregados.
+ */
+@Component
+public class CheckoutTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 16;
+    private static final char SEPARATOR = '.';
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac); // Mac no es thread-safe
+
+    public CheckoutTokens(@Value("${payment-links.checkout.token-secret}") String secret) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("payment-links.checkout.token-secret no puede estar vacío");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    // Token que el comercio comparte con el pagador
+    public String issue(String reference) {
+        return reference + SEPARATOR + sign(reference);
+    }
+
+    /**
+     * Referencia de un token con firma válida.
+     * @return la referencia, o null si el token no tiene forma válida o la firma no corresponde.
+     */
+    public String reference(String token) {
+        if (token == null) return null;
+        int separator = token.lastIndexOf(SEPARATOR);
+        if (separator <= 0) return null;
+        String reference = token.substring(0, separator);
+        byte[] expected = sign(reference).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(separator + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual) ? reference : null; // Tiempo constante
+    }
+
+    private String sign(String reference) {
+        byte[] mac = macs.get().doFinal(reference.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(mac, SIGNATURE_BYTES));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 no disponible", e);
+        }
+    }
+}
@@ -5,11 +5,9 @@ import com.laura.payment_links.exception.AuthException;
 import com.laura.payment_links.exception.EmailAlreadyExistsException;
 import com.laura.payment_links.model.Merchant;
 import com.laura.payment_links.repository.MerchantRepository;
-import com.laura.payment_links.security.Constants;
 import com.laura.payment_links.security.JWTAuthtenticationConfig;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
+import com.laura.payment_links.security.JwtTokenValidator;
+import com.laura.payment_links.sharding.ShardRouter;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -21,25 +19,42 @@ public class MerchantAuthService {
     private final MerchantRepository merchantRepository;
     private final PasswordEncoder passwordEncoder;
     private final JWTAuthtenticationConfig jwtAuthenticationConfig;
+    private final JwtTokenValidator jwtTokenValidator;
+    private final ShardRouter shardRouter;
+    private final TransactionRunner transactions;
 
     public MerchantAuthService(MerchantRepository merchantRepository,
                                PasswordEncoder passwordEncoder,
-                               JWTAuthtenticationConfig jwtAuthenticationConfig) {
+                               JWTAuthtenticationConfig jwtAuthenticationConfig,
+                               JwtTokenValidator jwtTokenValidator,
+                               ShardRouter shardRouter,
+                               TransactionRunner transactions) {
         this.merchantRepository = merchantRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtAuthenticationConfig = jwtAuthenticationConfig;
+        this.jwtTokenValidator = jwtTokenValidator;
+        this.shardRouter = shardRouter;
+        this.transactions = transactions;
     }
 
     /**
      * Registra un nuevo comercio en el sistema.
+     * Con sharding se guarda en el shard directorio (login por email) y se copia en su shard.
+     * Son dos transacciones: si la copia falla, reintentar el registro con el mismo email y contraseña
+     * la completa y devuelve el mismo id (el login también la repara).
      * @param request Datos de registro (nombre, email, contraseña)
      * @return UUID del comerciante registrado
-     * @throws EmailAlreadyExistsException Si el email ya está registrado
+     * @throws EmailAlreadyExistsException Si el email ya está registrado (con otra contraseña)
      */
     public UUID registerMerchant(MerchantRegistrationRequest request) {
-        // Verifica si el email ya existe
-        if (merchantRepository.existsByEmail(request.getEmail())) {
-            throw new EmailAlreadyExistsException(request.getEmail());
+        // Verifica si el email ya existe; con la misma contraseña es un reintento
+        Merchant existing = merchantRepository.findByEmail(request.getEmail()).orElse(null);
+        if (existing != null) {
+            if (!passwordEncoder.matches(request.getPassword(), existing.getPasswordHash())) {
+                throw new EmailAlreadyExistsException(request.getEmail());
+            }
+            ensureReplica(existing);
+            return existing.getId();
         }
 
         // Crea y guarda el nuevo comerciante con contraseña encriptada
@@ -49,7 +64,21 @@ public class MerchantAuthService {
                 .passwordHash(passwordEncoder.encode(request.getPassword()))
                 .build();
 
-        return merchantRepository.save(merchant).getId();
+        Merchant saved = transactions.writeOnShard(ShardRouter.DIRECTORY_SHARD, () -> merchantRepository.save(merchant));
+        ensureReplica(saved);
+        return saved.getId();
+    }
+
+    /**
+     * Copia el comercio en su shard si falta (INSERT ... ON CONFLICT DO NOTHING: idempotente).
+     * @UsedBy registerMerchant(), authenticate()
+     */
+    private void ensureReplica(Merchant merchant) {
+        int homeShard = shardRouter.shardFor(merchant.getId());
+        if (homeShard == ShardRouter.DIRECTORY_SHARD) return;
+        if (transactions.readOnShard(homeShard, () -> merchantRepository.existsById(merchant.getId()))) return;
+        transactions.writeOnShard(homeShard, () -> merchantRepository.insertReplica(merchant.getId(), merchant.getName(),
+                merchant.getEmail(), merchant.getPasswordHash(), merchant.getCreatedAt()));
     }
 
     /**
@@ -69,8 +98,11 @@ public class MerchantAuthService {
             throw new AuthException("Credenciales inválidas");
         }
 
+        // Repara la copia en su shard si el registro se cortó entre las dos transacciones
+        ensureReplica(merchant);
+
         // Genera el token JWT usando la configuración existente
-        return jwtAuthenticationConfig.getJWTToken(merchant.getEmail());
+        return jwtAuthenticationConfig.getJWTToken(merchant.getEmail(), merchant.getId());
     }
 
     /**
@@ -80,21 +112,6 @@ public class MerchantAuthService {
      * @throws AuthException Si el token es inválido o está expirado
      */
     public UUID validateTokenAndGetMerchantId(String token) {
-        try {
-            // Remueve el prefijo "Bearer " si está presente
-            String jwtToken = token.replace(Constants.TOKEN_BEARER_PREFIX, "");
-
-            // Parsea y valida el token usando la clave secreta
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(Constants.getSigningKey(Constants.SUPER_SECRET_KEY))
-                    .build()
-                    .parseClaimsJws(jwtToken)
-                    .getBody();
-
-            // El ID del comerciante se almacena en el claim "jti" (ID del token)
-            return UUID.fromString(claims.getId());
-        } catch (JwtException | IllegalArgumentException e) {
-            throw new AuthException("Token inválido: " + e.getMessage());
-        }
+        return jwtTokenValidator.validateAndGetMerchantId(token);
     }
 }
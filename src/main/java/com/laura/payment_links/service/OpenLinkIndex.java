@@ -0,0 +1,318 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.model.PaymentLink;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import com.laura.payment_links.repository.OpenLinkRow;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.util.OpenLinkColumns;
+import com.laura.payment_links.util.PaymentLinkFilter;
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de los links abiertos (CREATED) de cada comercio, en columnas (OpenLinkColumns).
+ * Responde sin PostgreSQL los listados con status=CREATED filtrados por monto y fecha de creación, y su conteo.
+ * - Se carga al arrancar leyendo los links abiertos con un cursor.
+ * - Se actualiza en cada transición de esta instancia (alta al crear, baja al pagar, cancelar o expirar).
+ * - Los cambios de otras instancias llegan con un refresco periódico por updated_at (con solapamiento).
+ * - Cada fila lleva la versión del link: un refresco que leyó antes de un cambio local no lo pisa ni resucita
+ *   un link recién quitado (OpenLinkColumns).
+ * - Con varias instancias un link creado o pagado en otra no se ve hasta el refresco: solo se responde si el
+ *   último refresco empezó hace menos de max-staleness-ms. Con single-instance=true no hay otros escritores
+ *   y se responde siempre.
+ * Mientras no está listo, si está deshabilitado, si está desactualizado o si el filtro no es soportado
+ * (metadata, texto libre, otro estado u orden), search() devuelve null y la consulta va a la base de datos.
+ */
+@Slf4j
+@Component
+public class OpenLinkIndex {
+
+    private static final String CREATED = PaymentLinkStatus.CREATED.name();
+
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final TransactionRunner transactions;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final Duration refreshOverlap;
+    private final boolean singleInstance;
+    private final long maxStalenessNanos;
+    private final Counter served;
+    private final Counter stale;
+
+    private volatile Map<UUID, OpenLinkColumns> current;    // null hasta la primera carga
+    private volatile Map<UUID, OpenLinkColumns> building;   // recibe también los cambios mientras se carga
+    private volatile Instant watermark;
+    private volatile long refreshedAtNanos;                  // Inicio (System.nanoTime()) de la última lectura aplicada
+
+    // Diccionario de monedas: código (short) <-> nombre. Las escrituras se serializan en currencyLock, no en this:
+    // add() corre en el hilo de la petición y no debe esperar una carga o un refresco. Los nombres son copy-on-write
+    private final Map<String, Short> currencyCodes = new ConcurrentHashMap<>();
+    private final Object currencyLock = new Object();
+    private volatile String[] currencyNames = new String[0];
+
+    public OpenLinkIndex(PaymentLinkRepository paymentLinkRepository,
+                         TransactionRunner transactions,
+                         ShardRouter shardRouter,
+                         MeterRegistry meterRegistry,
+                         @Value("${payment-links.open-link-index.enabled:true}") boolean enabled,
+                         @Value("${payment-links.open-link-index.refresh-overlap-seconds:120}") long refreshOverlapSeconds,
+                         @Value("${payment-links.open-link-index.single-instance:false}") boolean singleInstance,
+                         @Value("${payment-links.open-link-index.max-staleness-ms:10000}") long maxStalenessMs) {
+        this.paymentLinkRepository = paymentLinkRepository;
+        this.transactions = transactions;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.refreshOverlap = Duration.ofSeconds(refreshOverlapSeconds);
+        this.singleInstance = singleInstance;
+        this.maxStalenessNanos = Duration.ofMillis(maxStalenessMs).toNanos();
+        this.served = Counter.builder("payment_links.open_index.served")
+                .description("Listados de links abiertos respondidos sin consultar la base de datos")
+                .register(meterRegistry);
+        this.stale = Counter.builder("payment_links.open_index.stale")
+                .description("Listados de links abiertos enviados a la base de datos porque el índice estaba desactualizado")
+                .register(meterRegistry);
+        Gauge.builder("payment_links.open_index.links", this, OpenLinkIndex::size)
+                .description("Links abiertos en el índice en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Responde el listado desde memoria si el filtro lo permite.
+     * @return la página (con el total para el conteo) o null si la consulta debe ir a la base de datos.
+     */
+    public Page<PaymentLinkResponse> search(UUID merchantId, PaymentLinkFilter filter, Pageable pageable) {
+        Map<UUID, OpenLinkColumns> index = current;
+        if (!enabled || index == null || !supports(filter)) return null;
+
+        Sort.Order order = singleOrder(pageable.getSort());
+        if (order == null) return null;
+        OpenLinkColumns.SortKey sortKey = sortKey(order.getProperty());
+        if (sortKey == null) return null;
+        if (!isFresh()) {
+            stale.increment();
+            return null;
+        }
+
+        OpenLinkColumns columns = index.get(merchantId);
+        if (columns == null) {
+            served.increment();
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        OpenLinkColumns.Result result = columns.query(
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                filter.getFromDate() != null ? toMicros(filter.getFromDate()) : null,
+                filter.getToDate() != null ? toMicros(filter.getToDate()) : null,
+                sortKey, order.isDescending(), offset, limit);
+
+        String[] names = currencyNames;
+        List<PaymentLinkResponse> content = new ArrayList<>(result.size());
+        for (int row = 0; row < result.size(); row++) {
+            content.add(PaymentLinkResponse.builder()
+                    .id(result.id(row))
+                    .reference(result.references()[row])
+                    .status(CREATED)
+                    .expiresAt(toInstant(result.expiresAt()[row]))
+                    .amountCents(result.amounts()[row])
+                    .currency(names[result.currencies()[row]])
+                    .build());
+        }
+        served.increment();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    // Registra un link recién creado (llamar después del commit)
+    public void add(PaymentLink paymentLink) {
+        if (!enabled || paymentLink.getStatus() != PaymentLinkStatus.CREATED) return;
+        UUID merchantId = paymentLink.getMerchant().getId();
+        upsert(current, merchantId, paymentLink.getId(), paymentLink.getVersion(), paymentLink.getReference(),
+                paymentLink.getAmountCents(), paymentLink.getCurrency(), paymentLink.getCreatedAt(), paymentLink.getExpiresAt());
+        upsert(building, merchantId, paymentLink.getId(), paymentLink.getVersion(), paymentLink.getReference(),
+                paymentLink.getAmountCents(), paymentLink.getCurrency(), paymentLink.getCreatedAt(), paymentLink.getExpiresAt());
+    }
+
+    // Quita un link que dejó de estar abierto (llamar después del commit, con la versión ya confirmada)
+    public void remove(PaymentLink paymentLink) {
+        if (!enabled) return;
+        UUID merchantId = paymentLink.getMerchant().getId();
+        remove(current, merchantId, paymentLink.getId(), paymentLink.getVersion());
+        remove(building, merchantId, paymentLink.getId(), paymentLink.getVersion());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @UseWorkload(Workload.BATCH)
+    public void onApplicationReady() {
+        if (enabled) rebuild();
+    }
+
+    /**
+     * Carga el índice completo leyendo los links abiertos con un cursor.
+     * Los cambios concurrentes se aplican también al índice en construcción; los que el cursor haya leído
+     * antes de la transición los corrige el siguiente refresco (la marca parte de antes de la carga).
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        Map<UUID, OpenLinkColumns> next = new ConcurrentHashMap<>();
+        building = next;
+        Instant startedAt = Instant.now();
+
+        long loaded = 0;
+        try {
+            for (int shard : shardRouter.shards()) {
+                loaded += transactions.readOnShard(shard, () -> {
+                    // mapToLong y no peek + count: count() puede saltarse peek si el stream conoce su tamaño
+                    try (Stream<OpenLinkRow> rows = paymentLinkRepository.streamOpenLinks()) {
+                        return rows.mapToLong(row -> {
+                            apply(next, row);
+                            return 1;
+                        }).sum();
+                    }
+                });
+            }
+        } finally {
+            building = null;
+        }
+
+        current = next;
+        watermark = startedAt.minus(refreshOverlap);
+        refreshedAtNanos = start;
+        log.info("Índice de links abiertos cargado: {} links en {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Refresco incremental: aplica los links modificados desde la última marca (incluye otras instancias).
+     * Los que siguen en CREATED se agregan o actualizan; el resto se quita. Las filas con una versión menor
+     * que la ya aplicada (una baja local confirmada después de la lectura) se descartan.
+     * Serializado con rebuild(): al terminar no queda ninguna lectura anterior a readStartedAt sin aplicar,
+     * así que las lápidas de bajas anteriores ya no hacen falta.
+     */
+    @Scheduled(fixedDelayString = "${payment-links.open-link-index.refresh-ms:5000}")
+    @UseWorkload(Workload.BATCH)
+    public synchronized void refresh() {
+        Map<UUID, OpenLinkColumns> index = current;
+        if (!enabled || index == null) return;
+
+        Instant since = watermark;
+        Instant startedAt = Instant.now();
+        long readStartedAt = System.nanoTime();
+        for (int shard : shardRouter.shards()) {
+            List<OpenLinkRow> changed = transactions.readOnShard(shard, () -> paymentLinkRepository.findChangedSince(since));
+            changed.forEach(row -> apply(index, row));
+        }
+        watermark = startedAt.minus(refreshOverlap);
+        refreshedAtNanos = readStartedAt;
+        index.values().forEach(columns -> columns.pruneRemoved(readStartedAt));
+    }
+
+    public long size() {
+        Map<UUID, OpenLinkColumns> index = current;
+        if (index == null) return 0;
+        return index.values().stream().mapToLong(OpenLinkColumns::size).sum();
+    }
+
+    // Con otras instancias escribiendo, el índice solo vale si lo último leído de la base es reciente
+    private boolean isFresh() {
+        return singleInstance || System.nanoTime() - refreshedAtNanos <= maxStalenessNanos;
+    }
+
+    // Solo status=CREATED con filtros de monto y fecha
+    private static boolean supports(PaymentLinkFilter filter) {
+        return filter.getStatus() == PaymentLinkStatus.CREATED
+                && (filter.getMetadata() == null || filter.getMetadata().isEmpty())
+                && filter.getQuery() == null;
+    }
+
+    // Sin orden: más recientes primero. Se admite un único criterio
+    private static Sort.Order singleOrder(Sort sort) {
+        if (sort.isUnsorted()) return Sort.Order.desc("createdAt");
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 ? orders.get(0) : null;
+    }
+
+    private static OpenLinkColumns.SortKey sortKey(String property) {
+        return switch (property) {
+            case "createdAt" -> OpenLinkColumns.SortKey.CREATED_AT;
+            case "expiresAt" -> OpenLinkColumns.SortKey.EXPIRES_AT;
+            case "amountCents" -> OpenLinkColumns.SortKey.AMOUNT;
+            default -> null;
+        };
+    }
+
+    private void apply(Map<UUID, OpenLinkColumns> index, OpenLinkRow row) {
+        if (row.status() == PaymentLinkStatus.CREATED) {
+            upsert(index, row.merchantId(), row.id(), row.version(), row.reference(), row.amountCents(),
+                    row.currency(), row.createdAt(), row.expiresAt());
+        } else {
+            remove(index, row.merchantId(), row.id(), row.version());
+        }
+    }
+
+    private void upsert(Map<UUID, OpenLinkColumns> index, UUID merchantId, UUID id, long version, String reference,
+                        int amountCents, String currency, Instant createdAt, Instant expiresAt) {
+        if (index == null) return;
+        index.computeIfAbsent(merchantId, m -> new OpenLinkColumns())
+                .upsert(id, version, reference, amountCents, currencyCode(currency), toMicros(createdAt), toMicros(expiresAt));
+    }
+
+    // Crea las columnas del comercio si hace falta: la lápida debe quedar aunque el alta todavía no haya llegado
+    private static void remove(Map<UUID, OpenLinkColumns> index, UUID merchantId, UUID id, long version) {
+        if (index == null) return;
+        index.computeIfAbsent(merchantId, m -> new OpenLinkColumns()).remove(id, version);
+    }
+
+    private short currencyCode(String currency) {
+        Short code = currencyCodes.get(currency);
+        return code != null ? code : assignCurrencyCode(currency);
+    }
+
+    // El nombre se publica antes que el código: quien lee un código siempre encuentra su nombre
+    private short assignCurrencyCode(String currency) {
+        synchronized (currencyLock) {
+            Short code = currencyCodes.get(currency);
+            if (code != null) return code;
+            String[] names = Arrays.copyOf(currencyNames, currencyNames.length + 1);
+            names[names.length - 1] = currency;
+            currencyNames = names;
+            short assigned = (short) (names.length - 1);
+            currencyCodes.put(currency, assigned);
+            return assigned;
+        }
+    }
+
+    // Microsegundos desde epoch (la precisión de timestamp en PostgreSQL)
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private static Instant toInstant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000);
+    }
+}
@@ -0,0 +1,244 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.repository.PaymentLinkKey;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.util.BloomFilter;
+import com.laura.payment_links.util.LinkIdentifier;
+import com.laura.payment_links.util.UuidV7;
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de existencia en memoria (Bloom) de los ids y referencias de links, por comercio.
+ * Las referencias se registran además sin comercio, para la checkout pública (/p/{reference}).
+ * Permite responder 404 sin consultar la base de datos cuando un identificador seguro no existe.
+ * - Se reconstruye al arrancar y cuando se satura.
+ * - Se actualiza al crear links y, para los creados por otras instancias, con un refresco periódico.
+ * Solo es completo hasta la marca del último refresco: un identificador posterior (UUID v7 con timestamp
+ * posterior, o referencia con número mayor al último visto en cada shard) puede ser de un link de otra
+ * instancia que todavía no llegó, así que su ausencia no se usa para responder 404.
+ * Mientras no está listo (o si está deshabilitado) deja pasar todas las búsquedas.
+ */
+@Slf4j
+@Component
+public class PaymentLinkLookupFilter {
+
+    private static final long MIN_CAPACITY = 100_000;
+    private static final int KEYS_PER_LINK = 3;   // id + referencia (por comercio) + referencia pública
+    private static final double GROWTH_FACTOR = 2.0;
+
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final TransactionRunner transactions;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final Duration refreshOverlap;
+    private final Counter rejected;
+
+    private volatile BloomFilter current;    // null hasta la primera reconstrucción
+    private volatile BloomFilter building;   // recibe también las altas mientras se reconstruye
+    private final AtomicLong linkCount = new AtomicLong();
+    private volatile Instant watermark;
+    // Horizonte de referencias: el menor, entre shards emisores, del mayor número anterior a la marca
+    private volatile long sequenceHorizon;
+    private long[] shardSequences = new long[0];
+
+    public PaymentLinkLookupFilter(PaymentLinkRepository paymentLinkRepository,
+                                   TransactionRunner transactions,
+                                   ShardRouter shardRouter,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${payment-links.lookup-filter.enabled:true}") boolean enabled,
+                                   @Value("${payment-links.lookup-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                   @Value("${payment-links.lookup-filter.refresh-overlap-seconds:120}") long refreshOverlapSeconds) {
+        this.paymentLinkRepository = paymentLinkRepository;
+        this.transactions = transactions;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.refreshOverlap = Duration.ofSeconds(refreshOverlapSeconds);
+        this.rejected = Counter.builder("payment_links.lookup.rejected")
+                .description("Búsquedas respondidas con 404 sin consultar la base de datos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica si el link puede existir para el comercio.
+     * @return false solo si es seguro que no existe (identificador inválido o ausente del filtro).
+     */
+    public boolean mightExist(UUID merchantId, LinkIdentifier identifier) {
+        if (!identifier.isValid()) {
+            rejected.increment();
+            return false;
+        }
+        BloomFilter filter = current;
+        if (!enabled || filter == null) return true;
+
+        if (filter.mightContain(key(merchantId, identifier.key())) || isAfterHorizon(identifier)) return true;
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Indica si existe algún link con la referencia, sin conocer el comercio (checkout pública).
+     * @return false solo si es seguro que no existe.
+     */
+    public boolean mightExistReference(LinkIdentifier identifier) {
+        if (identifier.kind() != LinkIdentifier.Kind.REFERENCE) {
+            rejected.increment();
+            return false;
+        }
+        BloomFilter filter = current;
+        if (!enabled || filter == null) return true;
+
+        if (filter.mightContain(publicKey(identifier.reference())) || isAfterHorizon(identifier)) return true;
+        rejected.increment();
+        return false;
+    }
+
+    // Registra un link recién creado (llamar después del commit)
+    public void add(UUID merchantId, UUID id, String reference) {
+        if (!enabled) return;
+        put(current, merchantId, id, reference);
+        put(building, merchantId, id, reference);
+        linkCount.incrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @UseWorkload(Workload.BATCH)
+    public void onApplicationReady() {
+        if (enabled) rebuild();
+    }
+
+    /**
+     * Reconstruye el filtro completo leyendo las claves con un cursor.
+     * Las altas concurrentes se agregan también al filtro en construcción, así que no se pierden.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long expectedLinks = Math.max(MIN_CAPACITY, (long) (linkCount.get() * GROWTH_FACTOR));
+        BloomFilter next = new BloomFilter(expectedLinks * KEYS_PER_LINK, falsePositiveRate);
+        building = next;
+        Instant startedAt = Instant.now();
+        Instant nextWatermark = startedAt.minus(refreshOverlap);
+        long[] sequences = new long[shardRouter.shards().size()];
+
+        long loaded = 0;
+        try {
+            for (int shard : shardRouter.shards()) {
+                loaded += transactions.readOnShard(shard, () -> {
+                    // mapToLong y no peek + count: count() puede saltarse peek si el stream conoce su tamaño
+                    try (Stream<PaymentLinkKey> keys = paymentLinkRepository.streamAllKeys()) {
+                        return keys.mapToLong(k -> {
+                            put(next, k.merchantId(), k.id(), k.reference());
+                            trackSequence(sequences, k, nextWatermark);
+                            return 1;
+                        }).sum();
+                    }
+                });
+            }
+        } finally {
+            building = null;
+        }
+
+        // Si el tamaño estimado se quedó corto, se vuelve a dimensionar con el conteo real
+        if (next.isSaturated()) {
+            linkCount.set(loaded);
+            rebuild();
+            return;
+        }
+
+        shardSequences = sequences;
+        advanceHorizon(nextWatermark);
+        current = next;
+        linkCount.set(loaded);
+        log.info("Filtro de links reconstruido: {} links en {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Refresco incremental: agrega los links creados desde la última marca (incluye los de otras instancias).
+     * Se solapa refreshOverlap hacia atrás para tolerar desfase de reloj y transacciones largas.
+     */
+    @Scheduled(fixedDelayString = "${payment-links.lookup-filter.refresh-ms:10000}")
+    @UseWorkload(Workload.BATCH)
+    public synchronized void refresh() {
+        BloomFilter filter = current;
+        if (!enabled || filter == null) return;
+
+        if (filter.isSaturated()) {
+            rebuild();
+            return;
+        }
+
+        Instant since = watermark;
+        Instant nextWatermark = Instant.now().minus(refreshOverlap);
+        for (int shard : shardRouter.shards()) {
+            List<PaymentLinkKey> created = transactions.readOnShard(shard, () -> paymentLinkRepository.findKeysCreatedSince(since));
+            for (PaymentLinkKey k : created) {
+                put(filter, k.merchantId(), k.id(), k.reference());
+                trackSequence(shardSequences, k, nextWatermark);
+            }
+        }
+        advanceHorizon(nextWatermark);
+    }
+
+    /**
+     * Un identificador posterior a la marca del último refresco puede faltar en el filtro sin que el link falte:
+     * - UUID v7: su timestamp es el momento de creación (los ids v4 son anteriores a los v7 y ya están cargados).
+     * - Referencia: cada shard emite números crecientes; se conoce hasta el menor de los máximos por shard emisor
+     *   (el emisor sale del número, así un link movido por el rebalanceo no adelanta el horizonte de otro shard).
+     */
+    private boolean isAfterHorizon(LinkIdentifier identifier) {
+        if (identifier.kind() == LinkIdentifier.Kind.ID) {
+            return identifier.id().version() == 7 && UuidV7.timestampMillis(identifier.id()) >= watermark.toEpochMilli();
+        }
+        return identifier.sequenceNumber() > sequenceHorizon;
+    }
+
+    // Mayor número emitido por cada shard entre los links creados antes de la marca
+    private void trackSequence(long[] sequences, PaymentLinkKey key, Instant watermark) {
+        if (!key.createdAt().isBefore(watermark)) return;
+        long sequence = LinkIdentifier.parse(key.reference()).sequenceNumber();
+        if (sequence < 0) return;
+        int origin = shardRouter.originShard(sequence);
+        if (origin < sequences.length && sequence > sequences[origin]) sequences[origin] = sequence;
+    }
+
+    // Publica la nueva marca (ids) y el horizonte de referencias; un shard sin links deja el horizonte en 0
+    private void advanceHorizon(Instant nextWatermark) {
+        long horizon = Long.MAX_VALUE;
+        for (long sequence : shardSequences) horizon = Math.min(horizon, sequence);
+        sequenceHorizon = shardSequences.length == 0 ? 0 : horizon;
+        watermark = nextWatermark;
+    }
+
+    private static void put(BloomFilter filter, UUID merchantId, UUID id, String reference) {
+        if (filter == null) return;
+        filter.put(key(merchantId, id.toString()));
+        filter.put(key(merchantId, reference));
+        filter.put(publicKey(reference));
+    }
+
+    private static String key(UUID merchantId, String identifier) {
+        return merchantId + "|" + identifier;
+    }
+
+    private static String publicKey(String reference) {
+        return "*|" + reference;
+    }
+}
@@ -0,0 +1,71 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.dto.response.PaymentLinkDetailsResponse;
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa lecturas concurrentes idénticas (detalle y listados) para que compartan una sola consulta.
+ * Las claves incluyen siempre el merchantId, así que nunca se comparten resultados entre comercios.
+ * También incluyen la generación del comercio, que sube con cada escritura confirmada (invalidate):
+ * una lectura que empieza después de una escritura nunca se une a una consulta que empezó antes.
+ * Las generaciones se reparten en franjas por merchantId; dos comercios en la misma franja solo agrupan menos.
+ * Métricas: payment_links.singleflight.calls{operation, role=leader|follower|timed_out}.
+ */
+@Component
+public class PaymentLinkReadCoalescer {
+
+    private final boolean enabled;
+    private final SingleFlight<List<Object>, PaymentLinkDetailsResponse> details;
+    private final SingleFlight<List<Object>, Page<PaymentLinkResponse>> lists;
+    private final AtomicLongArray generations;
+
+    public PaymentLinkReadCoalescer(MeterRegistry meterRegistry,
+                                    @Value("${payment-links.single-flight.enabled:true}") boolean enabled,
+                                    @Value("${payment-links.single-flight.stripes:64}") int stripes,
+                                    @Value("${payment-links.single-flight.follower-timeout-ms:2000}") long followerTimeoutMs) {
+        this.enabled = enabled;
+        Duration followerTimeout = Duration.ofMillis(followerTimeoutMs);
+        this.details = new SingleFlight<>("details", stripes, followerTimeout, meterRegistry);
+        this.lists = new SingleFlight<>("list", stripes, followerTimeout, meterRegistry);
+        this.generations = new AtomicLongArray(stripes);
+    }
+
+    public PaymentLinkDetailsResponse details(Supplier<PaymentLinkDetailsResponse> loader, UUID merchantId, Object... key) {
+        return enabled ? details.execute(key(merchantId, key), loader) : loader.get();
+    }
+
+    public Page<PaymentLinkResponse> list(Supplier<Page<PaymentLinkResponse>> loader, UUID merchantId, Object... key) {
+        return enabled ? lists.execute(key(merchantId, key), loader) : loader.get();
+    }
+
+    // Después del commit de una escritura del comercio (alta o cambio de estado), antes de responder
+    public void invalidate(UUID merchantId) {
+        generations.incrementAndGet(stripe(merchantId));
+    }
+
+    private List<Object> key(UUID merchantId, Object... key) {
+        List<Object> full = new ArrayList<>(key.length + 2);
+        full.add(merchantId);
+        full.add(generations.get(stripe(merchantId)));
+        full.addAll(Arrays.asList(key));
+        return full;
+    }
+
+    private int stripe(UUID merchantId) {
+        int hash = merchantId.hashCode();
+        return (hash ^ (hash >>> 16)) & (generations.length() - 1);
+    }
+}
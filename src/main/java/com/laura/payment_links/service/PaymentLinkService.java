@@ -1,73 +1,153 @@
 package com.laura.payment_links.service;
 
+import com.laura.payment_links.dto.request.BulkCancelFilter;
+import com.laura.payment_links.dto.request.BulkCancelRequest;
 import com.laura.payment_links.dto.request.CreatePaymentLinkRequest;
 import com.laura.payment_links.dto.request.PayPaymentLinkRequest;
+import com.laura.payment_links.dto.response.BulkCancelItemResponse;
+import com.laura.payment_links.dto.response.BulkCancelResponse;
+import com.laura.payment_links.dto.response.BulkStatusResponse;
 import com.laura.payment_links.dto.response.PaymentAttemptResponse;
 import com.laura.payment_links.dto.response.PaymentLinkDetailsResponse;
 import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.dto.response.PaymentLinkStatusEvent;
+import com.laura.payment_links.event.PaymentLinkEventHub;
 import com.laura.payment_links.exception.*;
+import com.laura.payment_links.journal.JournalEntryType;
+import com.laura.payment_links.journal.PaymentJournal;
 import com.laura.payment_links.model.*;
+import com.laura.payment_links.processor.PaymentProcessor;
+import com.laura.payment_links.processor.PaymentRequest;
+import com.laura.payment_links.processor.PaymentResult;
 import com.laura.payment_links.repository.MerchantRepository;
 import com.laura.payment_links.repository.PaymentAttemptRepository;
 import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.util.LinkIdentifier;
+import com.laura.payment_links.util.MetadataFilters;
 import com.laura.payment_links.util.PaymentLinkFilter;
 import com.laura.payment_links.util.PaymentLinkMapper;
+import com.laura.payment_links.util.TextSearchPatterns;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class PaymentLinkService {
+    private static final long DEFAULT_EXPIRATION_MINUTES = 60;
+    private static final int EXPIRATION_BATCH_SIZE = 500;
+    private static final int BULK_CHUNK_SIZE = 500;
+    private static final int MAX_BULK_FILTER_LINKS = 10_000;
+    // Un intento PENDING más viejo que esto quedó huérfano (la instancia cayó durante el cobro)
+    private static final long PENDING_ATTEMPT_TIMEOUT_MINUTES = 10;
+
     private final PaymentLinkRepository paymentLinkRepository;
     private final MerchantRepository merchantRepository;
     private final PaymentAttemptRepository paymentAttemptRepository;
     private final ReferenceGenerator referenceGenerator;
     private final PaymentLinkMapper mapper;
+    private final PaymentProcessor paymentProcessor;
+    private final TransactionRunner transactions;
+    private final PaymentLinkEventHub eventHub;
+    private final PaymentLinkLookupFilter lookupFilter;
+    private final ShardRouter shardRouter;
+    private final PaymentLinkReadCoalescer readCoalescer;
+    private final PaymentJournal journal;
+    private final CheckoutService checkoutService;
+    private final CheckoutTokens checkoutTokens;
+    private final OpenLinkIndex openLinkIndex;
+    private final PaymentRecordingExecutor paymentRecorder;
 
     // Métodos principales
 
+    // Las transacciones se limitan al trabajo con repositorios (TransactionRunner) y se abren
+    // en el shard del comercio; el mapeo a DTOs se hace fuera para no retener conexiones.
+    // Los cambios de estado se publican en el eventHub y se agregan al journal después del commit.
+
     /**
      * Crea un nuevo link de pago para un comercio.
      * @param merchantId UUID del comercio (validado previamente por JWT).
      * @param request Datos para crear el link (amount, currency, etc.).
-     * @return PaymentLinkResponse con referencia y estado.
+     * @return PaymentLinkResponse con referencia, estado y token de la checkout pública.
      * @throws MerchantNotFoundException (404) si el comercio no existe.
      */
     public PaymentLinkResponse createPaymentLink(UUID merchantId, CreatePaymentLinkRequest request) {
-        Merchant merchant = merchantRepository.findById(merchantId)
-                .orElseThrow(() -> new MerchantNotFoundException(merchantId));
+        PaymentLink saved = transactions.write(merchantId, () -> {
+            Merchant merchant = merchantRepository.findById(merchantId)
+                    .orElseThrow(() -> new MerchantNotFoundException(merchantId));
 
-        PaymentLink paymentLink = mapper.fromCreateRequest(request, merchant);
-        paymentLink.setReference(referenceGenerator.generateReference()); // Genera PL-2023-0001
+            PaymentLink paymentLink = mapper.fromCreateRequest(request, merchant);
+            paymentLink.setMerchant(merchant);
+            paymentLink.setExpiresAt(Instant.now().plus(expirationMinutes(request), ChronoUnit.MINUTES));
+            paymentLink.setReference(referenceGenerator.generateReference()); // Genera PL-2023-0001
+            return paymentLinkRepository.save(paymentLink);
+        });
 
-        return mapper.toResponse(paymentLinkRepository.save(paymentLink));
+        lookupFilter.add(merchantId, saved.getId(), saved.getReference());
+        openLinkIndex.add(saved);
+        readCoalescer.invalidate(merchantId);
+        appendToJournal(JournalEntryType.CREATED, saved);
+        PaymentLinkResponse response = mapper.toResponse(saved);
+        response.setCheckoutToken(checkoutTokens.issue(saved.getReference()));
+        return response;
     }
 
     /**
      * Obtiene links de pago con filtros avanzados y paginación.
      * @param merchantId UUID del comercio (para seguridad).
-     * @param filter Filtros opcionales (status, fechas, montos).
+     * @param filter Filtros opcionales (status, fechas, montos, metadata, texto libre).
      * @param pageable Configuración de paginación (page, size, sort).
      * @return Página de PaymentLinkResponse.
      */
     public Page<PaymentLinkResponse> getPaymentLinks(UUID merchantId, PaymentLinkFilter filter, Pageable pageable) {
-        return paymentLinkRepository.search(
-                merchantId,
-                filter.getStatus(),
-                filter.getFromDate(),
-                filter.getToDate(),
-                filter.getMinAmount(),
-                filter.getMaxAmount(),
-                pageable
-        ).map(mapper::toResponse);
+        return getPaymentLinks(merchantId, filter, pageable, false);
+    }
+
+    /**
+     * Obtiene links de pago con filtros y, opcionalmente, el último intento de cada uno.
+     * La página se proyecta directamente a PaymentLinkResponse (no se carga metadata).
+     * Los intentos de toda la página se cargan en una sola consulta (sin N+1).
+     * Los listados de links abiertos (status=CREATED por monto y fecha) se responden desde memoria (openLinkIndex).
+     * Las llamadas concurrentes con los mismos parámetros comparten la consulta (readCoalescer).
+     * @param includeLatestAttempt true para adjuntar el último intento de cada link.
+     */
+    public Page<PaymentLinkResponse> getPaymentLinks(UUID merchantId, PaymentLinkFilter filter, Pageable pageable,
+                                                     boolean includeLatestAttempt) {
+        return getPaymentLinks(merchantId, filter, pageable, includeLatestAttempt, null);
+    }
+
+    /**
+     * Igual, pero la consulta trae solo las columnas indicadas (fields=, ver PaymentLinkFields.columns).
+     * El índice en memoria responde igual con todas (no hay I/O que ahorrar).
+     * @param columns Columnas a traer, o null para todas.
+     */
+    public Page<PaymentLinkResponse> getPaymentLinks(UUID merchantId, PaymentLinkFilter filter, Pageable pageable,
+                                                     boolean includeLatestAttempt, Set<String> columns) {
+        Page<PaymentLinkResponse> open = openLinkIndex.search(merchantId, filter, pageable);
+        if (open != null) {
+            if (includeLatestAttempt && open.hasContent()) {
+                attachLatestAttempts(merchantId, open.getContent());
+            }
+            return open;
+        }
+        return readCoalescer.list(() -> loadPaymentLinks(merchantId, filter, pageable, includeLatestAttempt, columns),
+                merchantId, filter, pageable, includeLatestAttempt, columns);
     }
 
     /**
@@ -78,31 +158,49 @@ public class PaymentLinkService {
      * @throws PaymentLinkNotFoundException (404) si no existe o no pertenece al comercio.
      */
     public PaymentLinkDetailsResponse getPaymentLinkDetails(UUID merchantId, String identifier) {
-        PaymentLink paymentLink = findByIdOrReference(merchantId, identifier);
-        return mapper.toDetailsResponse(paymentLink);
+        return getPaymentLinkDetails(merchantId, identifier, null);
+    }
+
+    /**
+     * Obtiene detalles de un link y, opcionalmente, una página de su historial de intentos.
+     * Las llamadas concurrentes para el mismo link comparten la consulta (readCoalescer).
+     * @param attemptsPageable Paginación del historial (null para no incluirlo).
+     */
+    public PaymentLinkDetailsResponse getPaymentLinkDetails(UUID merchantId, String identifier, Pageable attemptsPageable) {
+        LinkIdentifier linkIdentifier = LinkIdentifier.parse(identifier);
+        requireMightExist(merchantId, linkIdentifier, identifier);
+
+        return readCoalescer.details(() -> loadPaymentLinkDetails(merchantId, linkIdentifier, identifier, attemptsPageable),
+                merchantId, linkIdentifier.key(), attemptsPageable);
     }
 
     /**
-     * Procesa un intento de pago sobre un link (simulación).
+     * Procesa un intento de pago sobre un link.
+     * 1. Reserva: con el link bloqueado se valida su estado y se registra un intento PENDING con la
+     *    idempotencyKey. Mientras exista, otro pago, la cancelación y la expiración no tocan el link.
+     * 2. Se llama a la pasarela sin conexión abierta.
+     * 3. Se completa el intento en paymentRecorder (no en el pool de la pasarela). Un cobro exitoso siempre
+     *    se guarda; si el link ya no era pagable queda marcado para conciliar.
      * @param merchantId UUID del comercio (validado por JWT).
      * @param paymentLinkId UUID del link a pagar.
      * @param request Contiene el payment_token ("ok_" o "fail_").
      * @param idempotencyKey UUID para evitar duplicados.
-     * @return PaymentAttemptResponse con el resultado.
+     * @return Future con el PaymentAttemptResponse; se completa cuando la pasarela responde.
      * @throws PaymentLinkNotFoundException (404) si el link no existe.
-     * @throws InvalidPaymentLinkStateException (409) si ya está pagado/vencido.
+     * @throws InvalidPaymentLinkStateException (409) si ya está pagado/vencido o tiene otro pago en curso.
      * @throws DuplicatePaymentAttemptException (409) si idempotencyKey ya se usó.
+     * @throws PaymentProcessorUnavailableException (503) si la pasarela no está disponible.
      */
-    public PaymentAttemptResponse payPaymentLink(UUID merchantId, UUID paymentLinkId,
-                                                 PayPaymentLinkRequest request, String idempotencyKey) {
-        PaymentLink paymentLink = paymentLinkRepository.findByIdAndMerchantId(paymentLinkId, merchantId)
-                .orElseThrow(() -> new PaymentLinkNotFoundException(paymentLinkId));
+    public CompletableFuture<PaymentAttemptResponse> payPaymentLink(UUID merchantId, UUID paymentLinkId,
+                                                                    PayPaymentLinkRequest request, String idempotencyKey) {
+        requireMightExist(merchantId, paymentLinkId);
+        PendingPayment pending = transactions.write(merchantId, () ->
+                reservePaymentAttempt(merchantId, paymentLinkId, request, idempotencyKey)); // Método auxiliar
 
-        validatePaymentLinkState(paymentLink); // Método auxiliar
-        checkIdempotency(paymentLinkId, idempotencyKey); // Método auxiliar
-
-        PaymentAttempt attempt = processPaymentAttempt(paymentLink, request, idempotencyKey); // Método auxiliar
-        return mapper.toAttemptResponse(attempt);
+        // Sin transacción abierta mientras la pasarela responde
+        return paymentProcessor.process(pending.request())
+                .handleAsync((result, error) -> recordPaymentResult(merchantId, pending, result, error), paymentRecorder)
+                .thenApply(mapper::toAttemptResponse);
     }
 
     /**
@@ -111,52 +209,374 @@ public class PaymentLinkService {
      * @param paymentLinkId UUID del link a cancelar.
      * @return PaymentLinkResponse con estado actualizado.
      * @throws PaymentLinkNotFoundException (404) si no existe.
-     * @throws InvalidPaymentLinkStateException (409) si no está en CREATED.
+     * @throws InvalidPaymentLinkStateException (409) si no está en CREATED o tiene un pago en curso.
      */
     public PaymentLinkResponse cancelPaymentLink(UUID merchantId, UUID paymentLinkId) {
-        PaymentLink paymentLink = paymentLinkRepository.findByIdAndMerchantId(paymentLinkId, merchantId)
-                .orElseThrow(() -> new PaymentLinkNotFoundException(paymentLinkId));
+        requireMightExist(merchantId, paymentLinkId);
+        PaymentLink cancelled = transactions.write(merchantId, () -> {
+            PaymentLink paymentLink = paymentLinkRepository.findAndLockByIdAndMerchantId(paymentLinkId, merchantId)
+                    .orElseThrow(() -> new PaymentLinkNotFoundException(paymentLinkId));
 
-        if (paymentLink.getStatus() != PaymentLinkStatus.CREATED) {
-            throw new InvalidPaymentLinkStateException(
-                    "Solo se pueden cancelar links en estado CREATED. Estado actual: " + paymentLink.getStatus()
-            );
+            if (paymentLink.getStatus() != PaymentLinkStatus.CREATED) {
+                throw new InvalidPaymentLinkStateException(
+                        "Solo se pueden cancelar links en estado CREATED. Estado actual: " + paymentLink.getStatus()
+                );
+            }
+            if (paymentAttemptRepository.existsByPaymentLinkIdAndStatus(paymentLinkId, PaymentAttemptStatus.PENDING)) {
+                throw new InvalidPaymentLinkStateException("El link tiene un pago en curso y no se puede cancelar");
+            }
+
+            paymentLink.setStatus(PaymentLinkStatus.CANCELLED);
+            return paymentLinkRepository.save(paymentLink);
+        });
+
+        appendToJournal(JournalEntryType.CANCELLED, cancelled);
+        publishStatusChange(cancelled);
+        return mapper.toResponse(cancelled);
+    }
+
+    /**
+     * Cancela varios links del comercio, dados por una lista de ids o por un filtro.
+     * Trabaja por lotes: cada lote se bloquea y se cancela con un solo UPDATE condicional (solo CREATED).
+     * Con filtro se cancelan como máximo MAX_BULK_FILTER_LINKS links por solicitud (hasMore indica si quedan).
+     * @param merchantId UUID del comercio.
+     * @param request ids o filter (validado: solo uno de los dos).
+     * @return Resultado por id: CANCELLED, NOT_FOUND, INVALID_STATE (con el estado actual) o PAYMENT_IN_PROGRESS.
+     * @throws InvalidQueryParameterException (400) si el filtro de metadata o la búsqueda son inválidos.
+     */
+    public BulkCancelResponse cancelPaymentLinks(UUID merchantId, BulkCancelRequest request) {
+        List<BulkCancelItemResponse> results = new ArrayList<>();
+        boolean hasMore = false;
+
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<UUID> ids = request.getIds().stream().distinct().toList();
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                results.addAll(cancelChunk(merchantId, ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()))));
+            }
+        } else {
+            BulkCancelFilter filter = request.getFilter();
+            UUID afterId = new UUID(0L, 0L); // El menor uuid en el orden de Postgres
+            while (results.size() < MAX_BULK_FILTER_LINKS) {
+                int limit = Math.min(BULK_CHUNK_SIZE, MAX_BULK_FILTER_LINKS - results.size());
+                List<UUID> ids = findCancellableIds(merchantId, filter, afterId, limit);
+                if (ids.isEmpty()) break;
+
+                results.addAll(cancelChunk(merchantId, ids));
+                afterId = ids.get(ids.size() - 1);
+                if (ids.size() < limit) break;
+            }
+            hasMore = results.size() == MAX_BULK_FILTER_LINKS
+                    && !findCancellableIds(merchantId, filter, afterId, 1).isEmpty();
         }
 
-        paymentLink.setStatus(PaymentLinkStatus.CANCELLED);
-        return mapper.toResponse(paymentLinkRepository.save(paymentLink));
+        int cancelled = (int) results.stream()
+                .filter(result -> BulkCancelItemResponse.CANCELLED.equals(result.getResult()))
+                .count();
+        log.info("Cancelación masiva del comercio {}: {} de {} links cancelados", merchantId, cancelled, results.size());
+        return BulkCancelResponse.builder()
+                .requested(results.size())
+                .cancelled(cancelled)
+                .hasMore(hasMore)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Estado de varios links del comercio con una sola consulta (IN), en el orden pedido.
+     * @return links encontrados e ids inexistentes (o de otro comercio).
+     */
+    public BulkStatusResponse getPaymentLinkStatuses(UUID merchantId, List<UUID> ids) {
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+        List<PaymentLinkResponse> found = transactions.read(merchantId,
+                () -> paymentLinkRepository.findResponsesByIds(merchantId, distinctIds));
+
+        Map<UUID, PaymentLinkResponse> byId = new HashMap<>();
+        found.forEach(link -> byId.put(link.getId(), link));
+
+        List<PaymentLinkResponse> links = new ArrayList<>(found.size());
+        List<UUID> notFound = new ArrayList<>();
+        for (UUID id : distinctIds) {
+            PaymentLinkResponse link = byId.get(id);
+            if (link != null) {
+                links.add(link);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return BulkStatusResponse.builder().links(links).notFound(notFound).build();
+    }
+
+    /**
+     * Estado actual de un link, usado como primer evento al suscribirse al stream SSE.
+     * @throws PaymentLinkNotFoundException (404) si no existe o no pertenece al comercio.
+     */
+    public PaymentLinkStatusEvent getPaymentLinkStatus(UUID merchantId, UUID paymentLinkId) {
+        requireMightExist(merchantId, paymentLinkId);
+        PaymentLink paymentLink = transactions.read(merchantId, () -> paymentLinkRepository.findByIdAndMerchantId(paymentLinkId, merchantId)
+                .orElseThrow(() -> new PaymentLinkNotFoundException(paymentLinkId)));
+        return toStatusEvent(paymentLink);
     }
 
     /**
      * Job programado: Expira links vencidos (status CREATED y expires_at < ahora).
+     * Trabaja por lotes: se bloquean los ids, se actualizan y, tras el commit, se publica un evento por link.
      * @return Número de links expirados.
      */
     public int expirePaymentLinks() {
-        int expiredCount = paymentLinkRepository.expireLinks(Instant.now());
+        Instant now = Instant.now();
+        int expiredCount = 0;
+        for (int shard : shardRouter.shards()) {
+            expiredCount += expirePaymentLinks(shard, now);
+        }
         log.info("Expiraron {} links de pago", expiredCount);
         return expiredCount;
     }
 
     // Métodos auxiliaries //
 
+    // Carga de la página de links. @UsedBy getPaymentLinks()
+    private Page<PaymentLinkResponse> loadPaymentLinks(UUID merchantId, PaymentLinkFilter filter, Pageable pageable,
+                                                       boolean includeLatestAttempt, Set<String> columns) {
+        MetadataFilters.Containment metadata = MetadataFilters.toContainment(filter.getMetadata());
+
+        Page<PaymentLinkResponse> page = transactions.read(merchantId, () -> paymentLinkRepository.search(
+                merchantId,
+                filter.getStatus(),
+                filter.getFromDate(),
+                filter.getToDate(),
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                metadata != null ? metadata.typed() : null,
+                metadata != null ? metadata.text() : null,
+                TextSearchPatterns.toContainsPattern(filter.getQuery()),
+                columns,
+                pageable
+        ));
+
+        if (includeLatestAttempt && page.hasContent()) {
+            attachLatestAttempts(merchantId, page.getContent());
+        }
+        return page;
+    }
+
+    // Carga del detalle (link + historial). @UsedBy getPaymentLinkDetails()
+    private PaymentLinkDetailsResponse loadPaymentLinkDetails(UUID merchantId, LinkIdentifier linkIdentifier,
+                                                              String identifier, Pageable attemptsPageable) {
+        LinkWithAttempts loaded = transactions.read(merchantId, () -> {
+            PaymentLink paymentLink = findByIdentifier(merchantId, linkIdentifier, identifier);
+            Page<PaymentAttempt> attempts = attemptsPageable == null
+                    ? null
+                    : paymentAttemptRepository.findByPaymentLinkIdOrderByCreatedAtDesc(paymentLink.getId(), attemptsPageable);
+            return new LinkWithAttempts(paymentLink, attempts);
+        });
+
+        PaymentLinkDetailsResponse response = mapper.toDetailsResponse(loaded.link());
+        response.setCheckoutToken(checkoutTokens.issue(response.getReference()));
+        if (loaded.attempts() != null) {
+            response.setAttempts(loaded.attempts().map(mapper::toAttemptResponse));
+        }
+        return response;
+    }
+
+    /**
+     * Expira por lotes los links vencidos de un shard y publica un evento por link tras cada commit.
+     * Antes cierra los intentos PENDING huérfanos para que sus links puedan expirar.
+     * @UsedBy expirePaymentLinks()
+     */
+    private int expirePaymentLinks(int shard, Instant now) {
+        Instant pendingCutoff = now.minus(PENDING_ATTEMPT_TIMEOUT_MINUTES, ChronoUnit.MINUTES);
+        int abandoned = transactions.writeOnShard(shard, () -> paymentAttemptRepository.abandonPendingAttempts(pendingCutoff));
+        if (abandoned > 0) {
+            log.error("Se cerraron {} intentos de pago sin respuesta en el shard {}; quedan marcados para conciliar",
+                    abandoned, shard);
+        }
+
+        int expiredCount = 0;
+        List<PaymentLink> batch;
+        do {
+            batch = transactions.writeOnShard(shard, () -> {
+                List<PaymentLink> links = paymentLinkRepository.findLinksToExpire(now, PageRequest.of(0, EXPIRATION_BATCH_SIZE));
+                if (!links.isEmpty()) {
+                    paymentLinkRepository.expireLinks(links.stream().map(PaymentLink::getId).toList(), Instant.now());
+                }
+                return links;
+            });
+
+            for (PaymentLink link : batch) {
+                link.setStatus(PaymentLinkStatus.EXPIRED);
+                link.setVersion(link.getVersion() + 1); // Lo mismo que hizo el UPDATE masivo
+                appendToJournal(JournalEntryType.EXPIRED, link);
+                publishStatusChange(link);
+            }
+            expiredCount += batch.size();
+        } while (batch.size() == EXPIRATION_BATCH_SIZE);
+        return expiredCount;
+    }
+
+    /**
+     * Cancela un lote: bloquea las filas (orden por id), cancela con un UPDATE las que siguen en CREATED
+     * sin un pago en curso y, tras el commit, registra cada cancelación en el journal y publica su evento.
+     * @UsedBy cancelPaymentLinks()
+     */
+    private List<BulkCancelItemResponse> cancelChunk(UUID merchantId, List<UUID> ids) {
+        LockedChunk locked = transactions.write(merchantId, () -> {
+            List<PaymentLink> links = paymentLinkRepository.findAndLockByIds(merchantId, ids);
+            List<UUID> open = links.stream()
+                    .filter(link -> link.getStatus() == PaymentLinkStatus.CREATED)
+                    .map(PaymentLink::getId)
+                    .toList();
+            List<UUID> paying = open.isEmpty() ? List.of() : paymentAttemptRepository.findPaymentLinkIdsWithPendingAttempt(open);
+            List<UUID> cancellable = open.stream().filter(id -> !paying.contains(id)).toList();
+            if (!cancellable.isEmpty()) {
+                paymentLinkRepository.cancelLinks(merchantId, cancellable, Instant.now());
+            }
+            return new LockedChunk(links, paying);
+        });
+
+        Map<UUID, PaymentLink> byId = new HashMap<>();
+        locked.links().forEach(link -> byId.put(link.getId(), link));
+
+        List<BulkCancelItemResponse> results = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            PaymentLink link = byId.get(id);
+            if (link == null) {
+                results.add(BulkCancelItemResponse.builder().id(id).result(BulkCancelItemResponse.NOT_FOUND).build());
+            } else if (locked.paying().contains(id)) {
+                results.add(BulkCancelItemResponse.builder().id(id)
+                        .result(BulkCancelItemResponse.PAYMENT_IN_PROGRESS).status(link.getStatus().name()).build());
+            } else if (link.getStatus() == PaymentLinkStatus.CREATED) {
+                link.setStatus(PaymentLinkStatus.CANCELLED);
+                link.setVersion(link.getVersion() + 1); // Lo mismo que hizo el UPDATE masivo
+                appendToJournal(JournalEntryType.CANCELLED, link);
+                publishStatusChange(link);
+                results.add(BulkCancelItemResponse.builder().id(id)
+                        .result(BulkCancelItemResponse.CANCELLED).status(link.getStatus().name()).build());
+            } else {
+                results.add(BulkCancelItemResponse.builder().id(id)
+                        .result(BulkCancelItemResponse.INVALID_STATE).status(link.getStatus().name()).build());
+            }
+        }
+        return results;
+    }
+
     /**
-     * Busca un link por ID (UUID) o referencia (PL-XXXX).
+     * Siguientes ids en CREATED que cumplen el filtro, después de afterId (keyset por id).
+     * @UsedBy cancelPaymentLinks()
+     */
+    private List<UUID> findCancellableIds(UUID merchantId, BulkCancelFilter filter, UUID afterId, int limit) {
+        MetadataFilters.Containment metadata = MetadataFilters.toContainment(filter.getMetadata());
+        String textPattern = TextSearchPatterns.toContainsPattern(filter.getQ());
+        return transactions.read(merchantId, () -> paymentLinkRepository.findIdsAfter(
+                merchantId,
+                PaymentLinkStatus.CREATED,
+                filter.getFromDate(),
+                filter.getToDate(),
+                filter.getMinAmount(),
+                filter.getMaxAmount(),
+                metadata != null ? metadata.typed() : null,
+                metadata != null ? metadata.text() : null,
+                textPattern,
+                afterId,
+                PageRequest.of(0, limit)
+        ));
+    }
+
+    /**
+     * Busca un link ya clasificado como ID (UUID) o referencia (PL-XXXX), con una sola consulta.
+     * Debe llamarse dentro de una transacción.
      * @UsedBy getPaymentLinkDetails()
      */
-    private PaymentLink findByIdOrReference(UUID merchantId, String identifier) {
-        try {
-            UUID id = UUID.fromString(identifier);
-            return paymentLinkRepository.findByIdAndMerchantId(id, merchantId)
-                    .orElseThrow(() -> new PaymentLinkNotFoundException(id));
-        } catch (IllegalArgumentException e) {
-            return paymentLinkRepository.findByReferenceAndMerchantId(identifier, merchantId)
-                    .orElseThrow(() -> new PaymentLinkNotFoundException(identifier));
+    private PaymentLink findByIdentifier(UUID merchantId, LinkIdentifier linkIdentifier, String identifier) {
+        if (linkIdentifier.kind() == LinkIdentifier.Kind.ID) {
+            return paymentLinkRepository.findByIdAndMerchantId(linkIdentifier.id(), merchantId)
+                    .orElseThrow(() -> new PaymentLinkNotFoundException(linkIdentifier.id()));
+        }
+        return paymentLinkRepository.findByReferenceAndMerchantId(linkIdentifier.reference(), merchantId)
+                .orElseThrow(() -> new PaymentLinkNotFoundException(identifier));
+    }
+
+    /**
+     * Responde 404 sin consultar la base de datos si el identificador es inválido o el filtro
+     * de existencia asegura que no hay un link así para el comercio.
+     * @UsedBy getPaymentLinkDetails()
+     * @throws PaymentLinkNotFoundException (404) si es seguro que no existe.
+     */
+    private void requireMightExist(UUID merchantId, LinkIdentifier linkIdentifier, String identifier) {
+        if (!lookupFilter.mightExist(merchantId, linkIdentifier)) {
+            throw new PaymentLinkNotFoundException(identifier);
+        }
+    }
+
+    // Variante por UUID. @UsedBy payPaymentLink(), cancelPaymentLink(), getPaymentLinkStatus()
+    private void requireMightExist(UUID merchantId, UUID paymentLinkId) {
+        if (!lookupFilter.mightExist(merchantId, LinkIdentifier.of(paymentLinkId))) {
+            throw new PaymentLinkNotFoundException(paymentLinkId);
         }
     }
 
+    /**
+     * Adjunta a cada link su último intento usando una única consulta por página.
+     * @UsedBy getPaymentLinks()
+     */
+    private void attachLatestAttempts(UUID merchantId, List<PaymentLinkResponse> links) {
+        List<UUID> ids = links.stream().map(PaymentLinkResponse::getId).toList();
+        List<PaymentAttempt> latest = transactions.read(merchantId, () -> paymentAttemptRepository.findLatestByPaymentLinkIds(ids));
+
+        Map<String, PaymentAttemptResponse> latestByLink = new HashMap<>();
+        for (PaymentAttempt attempt : latest) {
+            PaymentAttemptResponse response = mapper.toAttemptResponse(attempt);
+            latestByLink.putIfAbsent(response.getPaymentLinkId(), response); // Empates: se queda el primero
+        }
+
+        links.forEach(link -> link.setLatestAttempt(latestByLink.get(link.getId().toString())));
+    }
+
+    /**
+     * Tras el commit de un cambio de estado: quita el link del índice de abiertos, invalida la checkout
+     * pública en caché y las lecturas agrupadas en curso del comercio, y publica el evento SSE.
+     * @UsedBy recordPaymentResult(), cancelPaymentLink(), cancelChunk(), expirePaymentLinks()
+     */
+    private void publishStatusChange(PaymentLink paymentLink) {
+        openLinkIndex.remove(paymentLink);
+        readCoalescer.invalidate(paymentLink.getMerchant().getId());
+        checkoutService.evict(paymentLink.getReference());
+        eventHub.publish(toStatusEvent(paymentLink));
+    }
+
+    /**
+     * Evento de estado a partir del link (el merchant es un proxy: solo se lee su id).
+     * @UsedBy publishStatusChange(), getPaymentLinkStatus()
+     */
+    private PaymentLinkStatusEvent toStatusEvent(PaymentLink paymentLink) {
+        return PaymentLinkStatusEvent.builder()
+                .paymentLinkId(paymentLink.getId())
+                .reference(paymentLink.getReference())
+                .merchantId(paymentLink.getMerchant().getId())
+                .status(paymentLink.getStatus().name())
+                .occurredAt(Instant.now())
+                .build();
+    }
+
+    /**
+     * Agrega la transición al journal (después del commit; solo copia la entrada a memoria mapeada).
+     * @UsedBy createPaymentLink(), payPaymentLink(), cancelPaymentLink(), expirePaymentLinks()
+     */
+    private void appendToJournal(JournalEntryType type, PaymentLink paymentLink) {
+        journal.append(type, paymentLink.getId(), paymentLink.getMerchant().getId(),
+                paymentLink.getAmountCents(), paymentLink.getCurrency());
+    }
+
+    /**
+     * Minutos de vigencia del link (por defecto DEFAULT_EXPIRATION_MINUTES).
+     * @UsedBy createPaymentLink()
+     */
+    private long expirationMinutes(CreatePaymentLinkRequest request) {
+        return request.getExpiresInMinutes() != null ? request.getExpiresInMinutes() : DEFAULT_EXPIRATION_MINUTES;
+    }
+
     /**
      * Valida que un link esté en estado CREATED y no vencido.
-     * @UsedBy payPaymentLink()
+     * @UsedBy reservePaymentAttempt()
      * @throws InvalidPaymentLinkStateException (409) si no está en CREATED.
      * @throws PaymentLinkExpiredException (409) si expires_at es pasado.
      */
@@ -174,7 +594,7 @@ public class PaymentLinkService {
 
     /**
      * Verifica que no exista un intento previo con la misma idempotencyKey.
-     * @UsedBy payPaymentLink()
+     * @UsedBy reservePaymentAttempt()
      * @throws DuplicatePaymentAttemptException (409) si ya existe.
      */
     private void checkIdempotency(UUID paymentLinkId, String idempotencyKey) {
@@ -184,27 +604,123 @@ public class PaymentLinkService {
     }
 
     /**
-     * Procesa el intento de pago (simulación) y actualiza el estado del link si es exitoso.
+     * Reserva el pago: bloquea el link, lo valida y registra un intento PENDING con la idempotencyKey.
+     * Dos pagos concurrentes (con la misma key o no) se serializan en el lock; el segundo ve el PENDING.
+     * Debe llamarse dentro de una transacción de escritura.
      * @UsedBy payPaymentLink()
+     * @throws InvalidPaymentLinkStateException (409) si no está en CREATED o ya tiene un pago en curso.
+     * @throws DuplicatePaymentAttemptException (409) si idempotencyKey ya se usó.
      */
-    private PaymentAttempt processPaymentAttempt(PaymentLink paymentLink, PayPaymentLinkRequest request, String idempotencyKey) {
-        PaymentAttemptStatus status = request.getPaymentToken().startsWith("ok_")
-                ? PaymentAttemptStatus.SUCCESS
-                : PaymentAttemptStatus.FAILED;
+    private PendingPayment reservePaymentAttempt(UUID merchantId, UUID paymentLinkId,
+                                                 PayPaymentLinkRequest request, String idempotencyKey) {
+        PaymentLink paymentLink = paymentLinkRepository.findAndLockByIdAndMerchantId(paymentLinkId, merchantId)
+                .orElseThrow(() -> new PaymentLinkNotFoundException(paymentLinkId));
+
+        validatePaymentLinkState(paymentLink); // Método auxiliar
+        checkIdempotency(paymentLinkId, idempotencyKey); // Método auxiliar
+        if (paymentAttemptRepository.existsByPaymentLinkIdAndStatus(paymentLinkId, PaymentAttemptStatus.PENDING)) {
+            throw new InvalidPaymentLinkStateException("El link ya tiene un pago en curso");
+        }
 
         PaymentAttempt attempt = PaymentAttempt.builder()
                 .paymentLink(paymentLink)
-                .status(status)
-                .reason(status == PaymentAttemptStatus.FAILED ? "Pago rechazado" : null)
+                .status(PaymentAttemptStatus.PENDING)
                 .idempotencyKey(idempotencyKey)
                 .build();
-
-        if (status == PaymentAttemptStatus.SUCCESS) {
-            paymentLink.setStatus(PaymentLinkStatus.PAID);
-            paymentLink.setPaidAt(Instant.now());
-            paymentLinkRepository.save(paymentLink);
+        try {
+            attempt = paymentAttemptRepository.saveAndFlush(attempt);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicatePaymentAttemptException(idempotencyKey);
         }
 
+        PaymentRequest paymentRequest = PaymentRequest.builder()
+                .paymentLinkId(paymentLinkId)
+                .amountCents(paymentLink.getAmountCents())
+                .currency(paymentLink.getCurrency())
+                .paymentToken(request.getPaymentToken())
+                .idempotencyKey(idempotencyKey)
+                .build();
+        return new PendingPayment(attempt.getId(), paymentRequest);
+    }
+
+    /**
+     * Completa el intento reservado con la respuesta de la pasarela (result) o su error.
+     * - Éxito sobre un link en CREATED: el link pasa a PAID.
+     * - Éxito sobre un link que ya no es pagable: se guarda igual, marcado para conciliar (devolución).
+     * - Error de la pasarela: FAILED; si el cobro llegó a enviarse (timeout) se marca para conciliar.
+     *   Si no llegó a enviarse (circuito abierto, bulkhead lleno) se libera la idempotencyKey: el cliente recibe 503
+     *   y puede reintentar con la misma key.
+     * El link se bloquea, así que no compite con cancelaciones ni expiraciones (sin conflictos de @Version).
+     * @UsedBy recordPaymentResult()
+     */
+    private PaymentAttempt completePaymentAttempt(UUID merchantId, UUID attemptId, PaymentResult result, Throwable error) {
+        PaymentAttempt attempt = paymentAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new IllegalStateException("Intento de pago reservado inexistente: " + attemptId));
+        PaymentLink paymentLink = paymentLinkRepository.findAndLockByIdAndMerchantId(attempt.getPaymentLink().getId(), merchantId)
+                .orElseThrow(() -> new PaymentLinkNotFoundException(attempt.getPaymentLink().getId()));
+
+        if (error != null) {
+            Throwable cause = unwrap(error);
+            attempt.setStatus(PaymentAttemptStatus.FAILED);
+            attempt.setReason("processor_unavailable");
+            boolean outcomeUnknown = !(cause instanceof PaymentProcessorUnavailableException unavailable)
+                    || unavailable.isOutcomeUnknown();
+            attempt.setNeedsReconciliation(outcomeUnknown);
+            if (!outcomeUnknown) {
+                attempt.setIdempotencyKey(null);
+            }
+        } else if (result.getStatus() == PaymentAttemptStatus.SUCCESS && paymentLink.getStatus() != PaymentLinkStatus.CREATED) {
+            log.error("Cobro exitoso sobre el link {} en estado {}: queda marcado para conciliar",
+                    paymentLink.getId(), paymentLink.getStatus());
+            attempt.setStatus(PaymentAttemptStatus.SUCCESS);
+            attempt.setNeedsReconciliation(true);
+        } else {
+            attempt.setStatus(result.getStatus());
+            attempt.setReason(result.getReason());
+            if (result.getStatus() == PaymentAttemptStatus.SUCCESS) {
+                paymentLink.setStatus(PaymentLinkStatus.PAID);
+                paymentLink.setPaidAt(Instant.now());
+                paymentLinkRepository.save(paymentLink);
+            }
+        }
         return paymentAttemptRepository.save(attempt);
     }
-}
\ No newline at end of file
+
+    /**
+     * Registra la respuesta de la pasarela y, tras el commit, la agrega al journal y publica el cambio de estado.
+     * Si la pasarela falló, el intento queda FAILED y se propaga su error (503).
+     * @UsedBy payPaymentLink()
+     */
+    private PaymentAttempt recordPaymentResult(UUID merchantId, PendingPayment pending, PaymentResult result, Throwable error) {
+        PaymentAttempt attempt = transactions.write(merchantId, () ->
+                completePaymentAttempt(merchantId, pending.attemptId(), result, error)); // Método auxiliar
+
+        PaymentLink paymentLink = attempt.getPaymentLink();
+        if (attempt.getStatus() == PaymentAttemptStatus.FAILED) {
+            appendToJournal(JournalEntryType.ATTEMPT_FAILED, paymentLink);
+        } else if (!attempt.isNeedsReconciliation()) {
+            appendToJournal(JournalEntryType.ATTEMPT_SUCCEEDED, paymentLink);
+            appendToJournal(JournalEntryType.PAID, paymentLink);
+            publishStatusChange(paymentLink);
+        }
+
+        if (error != null) throw new CompletionException(unwrap(error));
+        return attempt;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // Link e historial cargados en la misma transacción, para mapearlos fuera de ella
+    private record LinkWithAttempts(PaymentLink link, Page<PaymentAttempt> attempts) {
+    }
+
+    // Intento reservado y la solicitud a enviar a la pasarela
+    private record PendingPayment(UUID attemptId, PaymentRequest request) {
+    }
+
+    // Lote bloqueado en la cancelación masiva y los ids con un pago en curso
+    private record LockedChunk(List<PaymentLink> links, List<UUID> paying) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.laura.payment_links.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pool donde se registra el resultado de la pasarela (transacción JPA bloqueante).
+ * Separado del pool de completado de la pasarela: esperar una conexión o un lock no frena
+ * la entrega de las respuestas de otros cobros. Conviene dimensionarlo como el pool de conexiones de escritura.
+ */
+@Component
+public class PaymentRecordingExecutor implements Executor {
+
+    private final ExecutorService executor;
+
+    public PaymentRecordingExecutor(@Value("${payment-links.payments.recording-threads:16}") int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-recording");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,18 +1,24 @@
 package com.laura.payment_links.service;
 
+import com.laura.payment_links.repository.PaymentLinkRepository;
 import org.springframework.stereotype.Component;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class ReferenceGenerator {
-    private final AtomicInteger counter = new AtomicInteger(0);
+    private final PaymentLinkRepository paymentLinkRepository;
     private final DateTimeFormatter yearFormatter = DateTimeFormatter.ofPattern("yyyy");
 
+    public ReferenceGenerator(PaymentLinkRepository paymentLinkRepository) {
+        this.paymentLinkRepository = paymentLinkRepository;
+    }
+
+    // Debe llamarse dentro de la transacción del shard del comercio:
+    // la secuencia de cada shard entrega números distintos (ver ReferenceSequenceInitializer)
     public String generateReference() {
         String year = LocalDate.now().format(yearFormatter);
-        int sequence = counter.incrementAndGet();
+        long sequence = paymentLinkRepository.nextReferenceNumber();
         return String.format("PL-%s-%06d", year, sequence);
     }
-}
\ No newline at end of file
+}
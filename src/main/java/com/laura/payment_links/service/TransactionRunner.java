@@ -0,0 +1,79 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.sharding.ShardContext;
+import com.laura.payment_links.sharding.ShardRouter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Transacciones programáticas acotadas al trabajo con repositorios.
+ * La conexión se toma al entrar y se devuelve al salir, así que el mapeo a DTOs y la
+ * serialización quedan fuera y no retienen conexiones del pool.
+ * Las variantes con merchantId (o shard) fijan el shard antes de abrir la transacción.
+ */
+@Component
+public class TransactionRunner {
+
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate readTemplate;
+    private final ShardRouter shardRouter;
+
+    public TransactionRunner(PlatformTransactionManager transactionManager, ShardRouter shardRouter) {
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.shardRouter = shardRouter;
+    }
+
+    // Ejecuta lecturas en una transacción de solo lectura (shard actual o directorio)
+    public <T> T read(Supplier<T> work) {
+        return readTemplate.execute(status -> work.get());
+    }
+
+    // Ejecuta escrituras en una transacción normal (rollback ante RuntimeException)
+    public <T> T write(Supplier<T> work) {
+        return writeTemplate.execute(status -> work.get());
+    }
+
+    // Lectura en el shard del comercio
+    public <T> T read(UUID merchantId, Supplier<T> work) {
+        return readOnShard(shardRouter.shardFor(merchantId), work);
+    }
+
+    // Escritura en el shard del comercio
+    public <T> T write(UUID merchantId, Supplier<T> work) {
+        return writeOnShard(shardRouter.shardFor(merchantId), work);
+    }
+
+    public <T> T readOnShard(int shard, Supplier<T> work) {
+        return onShard(shard, () -> read(work));
+    }
+
+    public <T> T writeOnShard(int shard, Supplier<T> work) {
+        return onShard(shard, () -> write(work));
+    }
+
+    /**
+     * Fija el shard para la transacción. Una transacción abierta en otro shard no se puede
+     * reutilizar (la conexión ya está tomada), así que se rechaza en lugar de escribir en el shard equivocado.
+     * Sin shard fijado la transacción externa está en el directorio (ShardRoutingDataSource).
+     * @throws IllegalStateException si ya hay una transacción activa en otro shard.
+     */
+    private <T> T onShard(int shard, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() && currentShard() != shard) {
+            throw new IllegalStateException("Transacción activa en el shard " + currentShard()
+                    + ", no se puede cambiar al shard " + shard);
+        }
+        return ShardContext.call(shard, work);
+    }
+
+    private static int currentShard() {
+        Integer current = ShardContext.current();
+        return current != null ? current : ShardRouter.DIRECTORY_SHARD;
+    }
+}
@@ -0,0 +1,133 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.dto.response.VolumePointResponse;
+import com.laura.payment_links.dto.response.VolumeTimeSeriesResponse;
+import com.laura.payment_links.exception.InvalidQueryParameterException;
+import com.laura.payment_links.model.RollupWatermark;
+import com.laura.payment_links.repository.MerchantVolumeHourlyRepository;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.repository.RollupWatermarkRepository;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rollup horario de volumen por comercio (merchant_volume_hourly) y su lectura para dashboards.
+ * El rollup es incremental: en cada shard procesa solo los links con updated_at posterior a su marca
+ * de agua (rollup_watermarks), por ventanas, y recalcula completas las horas que esos links tocan.
+ */
+@Slf4j
+@Service
+public class VolumeRollupService {
+
+    static final String WATERMARK_NAME = "merchant_volume_hourly";
+    private static final Duration MAX_RANGE = Duration.ofDays(90);
+
+    private final MerchantVolumeHourlyRepository volumeRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final TransactionRunner transactions;
+    private final ShardRouter shardRouter;
+    private final Duration window;
+    private final Duration overlap;
+
+    public VolumeRollupService(MerchantVolumeHourlyRepository volumeRepository,
+                               RollupWatermarkRepository watermarkRepository,
+                               PaymentLinkRepository paymentLinkRepository,
+                               TransactionRunner transactions,
+                               ShardRouter shardRouter,
+                               @Value("${payment-links.rollups.window-minutes:60}") long windowMinutes,
+                               @Value("${payment-links.rollups.overlap-seconds:300}") long overlapSeconds) {
+        this.volumeRepository = volumeRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.paymentLinkRepository = paymentLinkRepository;
+        this.transactions = transactions;
+        this.shardRouter = shardRouter;
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.overlap = Duration.ofSeconds(overlapSeconds);
+    }
+
+    /**
+     * Avanza el rollup de todos los shards hasta ahora.
+     * @return cantidad de horas (comercio, moneda, hora) recalculadas.
+     */
+    public int rollup() {
+        Instant now = Instant.now();
+        int hours = 0;
+        for (int shard : shardRouter.shards()) {
+            hours += rollup(shard, now);
+        }
+        log.info("Rollup horario: {} horas recalculadas", hours);
+        return hours;
+    }
+
+    /**
+     * Serie horaria del comercio en [from, to). Por defecto, las últimas 24 horas.
+     * @param currency Moneda (opcional; sin ella se devuelven todas).
+     * @throws InvalidQueryParameterException (400) si el rango es inválido o supera 90 días.
+     */
+    @UseWorkload(Workload.REPORTING)
+    public VolumeTimeSeriesResponse getTimeSeries(UUID merchantId, Instant from, Instant to, String currency) {
+        Instant end = (to != null ? to : Instant.now()).truncatedTo(ChronoUnit.HOURS).plus(Duration.ofHours(1));
+        Instant start = (from != null ? from : end.minus(Duration.ofHours(24))).truncatedTo(ChronoUnit.HOURS);
+        if (!start.isBefore(end)) {
+            throw new InvalidQueryParameterException("fromDate debe ser anterior a toDate");
+        }
+        if (Duration.between(start, end).compareTo(MAX_RANGE) > 0) {
+            throw new InvalidQueryParameterException("El rango máximo es de " + MAX_RANGE.toDays() + " días");
+        }
+
+        return transactions.read(merchantId, () -> {
+            List<VolumePointResponse> points = volumeRepository.findSeries(merchantId, start, end, currency);
+            Instant dataUntil = watermarkRepository.findById(WATERMARK_NAME).map(RollupWatermark::getWatermark).orElse(null);
+            return VolumeTimeSeriesResponse.builder()
+                    .from(start)
+                    .to(end)
+                    .dataUntil(dataUntil)
+                    .points(points)
+                    .build();
+        });
+    }
+
+    // Métodos auxiliares //
+
+    /**
+     * Procesa un shard por ventanas de updated_at; cada ventana recalcula sus horas y mueve la marca
+     * en la misma transacción. Cada ventana arranca overlap antes de la marca para no perder los links
+     * cuya transacción confirmó tarde (recalcular es idempotente).
+     * @UsedBy rollup()
+     */
+    private int rollup(int shard, Instant now) {
+        Instant watermark = transactions.readOnShard(shard, () -> watermarkRepository.findById(WATERMARK_NAME)
+                .map(RollupWatermark::getWatermark)
+                .orElseGet(paymentLinkRepository::findOldestUpdate));
+        if (watermark == null) return 0; // Shard sin links
+
+        int hours = 0;
+        Instant from = watermark.minus(overlap);
+        while (from.isBefore(now)) {
+            Instant windowFrom = from;
+            Instant windowTo = min(from.plus(window), now);
+            hours += transactions.writeOnShard(shard, () -> {
+                int recalculated = volumeRepository.rollup(windowFrom, windowTo);
+                watermarkRepository.save(new RollupWatermark(WATERMARK_NAME, windowTo));
+                return recalculated;
+            });
+            from = windowTo;
+        }
+        return hours;
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
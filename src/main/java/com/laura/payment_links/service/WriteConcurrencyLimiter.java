@@ -0,0 +1,73 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.exception.PaymentProcessorUnavailableException;
+import com.laura.payment_links.util.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Límites adaptativos de concurrencia de los endpoints de escritura (crear y pagar), uno por endpoint
+ * porque sus latencias no se parecen. Con sobrecarga rechazan rápido (503) en lugar de encolar.
+ * Los fallos por sobrecarga bajan el límite (ver isOverload); los de negocio (404, 409) no aportan muestra.
+ * Métricas: payment_links.concurrency.{limit, in_flight, rejected, dropped}{endpoint}.
+ */
+@Component
+public class WriteConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final GradientConcurrencyLimiter create;
+    private final GradientConcurrencyLimiter pay;
+
+    public WriteConcurrencyLimiter(MeterRegistry meterRegistry,
+                                   @Value("${payment-links.concurrency.enabled:true}") boolean enabled,
+                                   @Value("${payment-links.concurrency.initial-limit:20}") int initialLimit,
+                                   @Value("${payment-links.concurrency.min-limit:4}") int minLimit,
+                                   @Value("${payment-links.concurrency.max-limit:200}") int maxLimit,
+                                   @Value("${payment-links.concurrency.tolerance:1.5}") double tolerance,
+                                   @Value("${payment-links.concurrency.smoothing:0.2}") double smoothing,
+                                   @Value("${payment-links.concurrency.long-window-samples:600}") int longWindowSamples,
+                                   @Value("${payment-links.concurrency.window-min-samples:10}") int windowMinSamples,
+                                   @Value("${payment-links.concurrency.window-min-ms:100}") long windowMinMillis) {
+        this.enabled = enabled;
+        this.create = new GradientConcurrencyLimiter("create", initialLimit, minLimit, maxLimit, tolerance,
+                smoothing, longWindowSamples, windowMinSamples, windowMinMillis, WriteConcurrencyLimiter::isOverload,
+                meterRegistry);
+        this.pay = new GradientConcurrencyLimiter("pay", initialLimit, minLimit, maxLimit, tolerance,
+                smoothing, longWindowSamples, windowMinSamples, windowMinMillis, WriteConcurrencyLimiter::isOverload,
+                meterRegistry);
+    }
+
+    public <T> T create(Supplier<T> work) {
+        return enabled ? create.call(work) : work.get();
+    }
+
+    /**
+     * Fallos que indican sobrecarga (del pool, la base o la pasarela), en cualquier nivel de la cadena de causas:
+     * - SQLTransientConnectionException: timeout esperando una conexión de Hikari (pool agotado).
+     * - SQLTimeoutException / QueryTimeoutException: statement_timeout o timeout de lock.
+     * - TimeoutException: orTimeout de un future.
+     * - PaymentProcessorUnavailableException con resultado desconocido: el cobro se envió y la pasarela no respondió.
+     * El circuito abierto y el bulkhead lleno rechazan sin llamar a la pasarela: liberan su lugar sin muestra. Si no,
+     * durante una caída de la pasarela cada ventana bajaría el límite de pay hasta min-limit.
+     * @UsedBy create(), pay()
+     */
+    private static boolean isOverload(Throwable error) {
+        return error instanceof SQLTransientConnectionException
+                || error instanceof SQLTimeoutException
+                || error instanceof QueryTimeoutException
+                || error instanceof TimeoutException
+                || error instanceof PaymentProcessorUnavailableException unavailable && unavailable.isOutcomeUnknown();
+    }
+
+    public <T> CompletableFuture<T> pay(Supplier<CompletableFuture<T>> work) {
+        return enabled ? pay.callAsync(work) : work.get();
+    }
+}
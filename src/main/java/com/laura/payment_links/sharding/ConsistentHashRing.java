@@ -0,0 +1,49 @@
+package com.laura.payment_links.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Anillo de hash consistente con nodos virtuales.
+ * Al agregar un shard solo se mueve ~1/N de los comercios (los demás conservan su shard).
+ */
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+
+    /**
+     * @param shardNames Nombres estables de los shards; la posición en la lista es el índice devuelto.
+     * @param virtualNodes Puntos del anillo por shard (más puntos = reparto más uniforme).
+     */
+    public ConsistentHashRing(List<String> shardNames, int virtualNodes) {
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash(shardNames.get(shard) + "#" + node), shard);
+            }
+        }
+    }
+
+    // Índice del shard que le corresponde al comercio
+    public int shardFor(UUID merchantId) {
+        if (ring.isEmpty()) throw new IllegalStateException("No hay shards configurados");
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(merchantId.toString()));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    // Primeros 8 bytes de MD5: estable entre versiones de JVM (String.hashCode no reparte bien)
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
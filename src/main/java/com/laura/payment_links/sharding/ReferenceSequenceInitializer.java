@@ -0,0 +1,84 @@
+package com.laura.payment_links.sharding;
+
+import com.laura.payment_links.service.TransactionRunner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Prepara la secuencia de referencias (payment_link_reference_seq) en cada shard antes de recibir tráfico.
+ * El shard i entrega solo números congruentes con i+1 módulo max-shards (INCREMENT BY max-shards),
+ * así las referencias son únicas entre shards sin coordinarse. Sin sharding el paso es 1.
+ * Al crear la secuencia se arranca después de la mayor referencia existente (contador en memoria anterior).
+ */
+@Slf4j
+@Component
+public class ReferenceSequenceInitializer implements SmartInitializingSingleton {
+
+    static final String SEQUENCE = "payment_link_reference_seq";
+
+    private final ShardRouter shardRouter;
+    private final TransactionRunner transactions;
+    private final JdbcTemplate jdbc;
+    private final int stride;
+
+    public ReferenceSequenceInitializer(ShardRouter shardRouter, TransactionRunner transactions,
+                                        DataSource dataSource, ShardingProperties properties) {
+        this.shardRouter = shardRouter;
+        this.transactions = transactions;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.stride = shardRouter.isEnabled() ? properties.getMaxShards() : 1;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (int shard : shardRouter.shards()) {
+            int current = shard;
+            transactions.writeOnShard(shard, () -> {
+                prepare(current);
+                return null;
+            });
+        }
+    }
+
+    private void prepare(int shard) {
+        long residue = (shard + 1) % stride;
+        boolean exists = Boolean.TRUE.equals(
+                jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, SEQUENCE));
+        long seed = 0;
+        if (!exists) {
+            jdbc.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH " + Math.max(residue, 1) + " INCREMENT BY " + stride);
+            seed = maxExistingReference();
+        }
+
+        Map<String, Object> state = jdbc.queryForMap(
+                "SELECT s.last_value, s.is_called, q.increment_by FROM " + SEQUENCE + " s, pg_sequences q " +
+                "WHERE q.schemaname = current_schema() AND q.sequencename = ?", SEQUENCE);
+        long last = ((Number) state.get("last_value")).longValue();
+        boolean called = (Boolean) state.get("is_called");
+        long increment = ((Number) state.get("increment_by")).longValue();
+
+        boolean aligned = increment == stride
+                && Math.floorMod(last - residue, stride) == 0
+                && (called ? last >= seed : last > seed);
+        if (aligned) return; // No se toca una secuencia en uso: otras instancias pueden estar pidiendo valores
+
+        long minNext = Math.max(last + 1, seed + 1);
+        long next = minNext + Math.floorMod(residue - minNext, stride);
+        jdbc.execute("ALTER SEQUENCE " + SEQUENCE + " INCREMENT BY " + stride);
+        jdbc.queryForObject("SELECT setval(CAST(? AS regclass), ?, false)", Long.class, SEQUENCE, next);
+        log.info("Secuencia de referencias del shard {}: siguiente={}, paso={}", shard, next, stride);
+    }
+
+    // Mayor número de referencia ya usado (PL-AAAA-NNNNNN)
+    private long maxExistingReference() {
+        Long max = jdbc.queryForObject(
+                "SELECT COALESCE(MAX(CAST(substring(reference FROM 9) AS bigint)), 0) FROM payment_links " +
+                "WHERE reference ~ '^PL-[0-9]{4}-[0-9]+$'", Long.class);
+        return max != null ? max : 0;
+    }
+}
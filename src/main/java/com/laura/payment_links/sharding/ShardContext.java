@@ -0,0 +1,34 @@
+package com.laura.payment_links.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard de la operación actual (ThreadLocal), leído por ShardRoutingDataSource al pedir una conexión.
+ * Sin shard asignado se usa el shard directorio (0).
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    // Ejecuta work con el shard indicado y restaura el anterior (permite anidar)
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.laura.payment_links.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Pools de cada shard, por índice. No es un DataSource (no lo envuelve ConnectionHoldTimeConfig);
+ * lo usan el DataSource enrutador, el inicializador de esquema y el rebalanceo.
+ * Con pools por clase de trabajo, el DataSource de cada shard los enruta según WorkloadContext.
+ */
+@Slf4j
+public class ShardDataSources {
+
+    private final List<DataSource> dataSources;
+    private final List<Closeable> pools;
+
+    public ShardDataSources(List<DataSource> dataSources, List<Closeable> pools) {
+        this.dataSources = List.copyOf(dataSources);
+        this.pools = List.copyOf(pools);
+    }
+
+    public List<DataSource> all() {
+        return List.copyOf(dataSources);
+    }
+
+    public int size() {
+        return dataSources.size();
+    }
+
+    public JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(dataSources.get(shard));
+    }
+
+    public DataSource get(int shard) {
+        return dataSources.get(shard);
+    }
+
+    public void close() {
+        for (Closeable pool : pools) {
+            try {
+                pool.close();
+            } catch (IOException e) {
+                log.warn("No se pudo cerrar un pool de shard", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.laura.payment_links.sharding;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Con payment-links.sharding.rebalance=plan|apply la aplicación arranca como comando offline:
+ * sin servidor web, sin jobs programados ni calentamiento. ShardRebalanceRunner ejecuta el rebalanceo y termina
+ * el proceso, así que ninguna petición se atiende mientras los comercios se mueven.
+ * Se registra en META-INF/spring.factories.
+ */
+public class ShardRebalanceCommand implements EnvironmentPostProcessor {
+
+    static final String REBALANCE_PROPERTY = "payment-links.sharding.rebalance";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!isOfflineRebalance(environment.getProperty(REBALANCE_PROPERTY, "none"))) return;
+        environment.getPropertySources().addFirst(new MapPropertySource("shardRebalanceCommand", Map.of(
+                "spring.main.web-application-type", "none",
+                "payment-links.scheduling.enabled", "false",
+                "payment-links.warmup.enabled", "false")));
+    }
+
+    static boolean isOfflineRebalance(String mode) {
+        return "plan".equals(mode) || "apply".equals(mode);
+    }
+}
@@ -0,0 +1,60 @@
+package com.laura.payment_links.sharding;
+
+import com.laura.payment_links.workload.UseWorkload;
+import com.laura.payment_links.workload.Workload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Ejecuta la herramienta de rebalanceo según payment-links.sharding.rebalance:
+ * plan (solo informa los comercios a mover) o apply (los mueve y completa las copias de comercios que falten).
+ * Por defecto no hace nada. Con plan o apply es un comando offline (ShardRebalanceCommand): arranca sin
+ * servidor web ni jobs, corre antes que cualquier otro runner y termina el proceso (código 0; si falla, el
+ * arranque falla con código distinto de 0).
+ * Ej: ./mvnw spring-boot:run -Dspring-boot.run.profiles=sharding -Dspring-boot.run.arguments=--payment-links.sharding.rebalance=plan
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "payment-links.sharding.enabled", havingValue = "true")
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    private final ShardRebalancer rebalancer;
+    private final ShardingProperties properties;
+    private final ApplicationContext context;
+
+    public ShardRebalanceRunner(ShardRebalancer rebalancer, ShardingProperties properties, ApplicationContext context) {
+        this.rebalancer = rebalancer;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    @UseWorkload(Workload.BATCH)
+    public void run(ApplicationArguments args) {
+        switch (properties.getRebalance()) {
+            case "plan" -> {
+                List<ShardRebalancer.Move> moves = rebalancer.plan();
+                moves.forEach(move -> log.info("Pendiente: comercio {} shard {} -> {} ({} links)",
+                        move.merchantId(), move.fromShard(), move.toShard(), move.links()));
+                log.info("Rebalanceo (plan): {} comercios a mover", moves.size());
+            }
+            case "apply" -> rebalancer.apply();
+            case "none" -> {
+                return;
+            }
+            default -> throw new IllegalArgumentException(
+                    "payment-links.sharding.rebalance debe ser none, plan o apply: " + properties.getRebalance());
+        }
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
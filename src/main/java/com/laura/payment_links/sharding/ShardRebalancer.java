@@ -0,0 +1,163 @@
+package com.laura.payment_links.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Mueve los datos de cada comercio al shard que le asigna el anillo actual
+ * (por ejemplo, después de agregar un shard a payment-links.sharding.shards).
+ * - plan(): lista los comercios cuyo shard cambió, sin tocar datos.
+ * - apply(): copia comercio, links e intentos al destino y luego los borra del origen.
+ * Cada paso es idempotente (ON CONFLICT DO NOTHING), así que si se interrumpe basta con volver a ejecutarlo.
+ * Debe correr sin tráfico de escritura para los comercios que se mueven.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment-links.sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final ShardDataSources shards;
+    private final ShardRouter shardRouter;
+
+    public ShardRebalancer(ShardDataSources shards, ShardRouter shardRouter) {
+        this.shards = shards;
+        this.shardRouter = shardRouter;
+    }
+
+    public record Move(UUID merchantId, int fromShard, int toShard, long links) {
+    }
+
+    // Comercios con links fuera de su shard
+    public List<Move> plan() {
+        List<Move> moves = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            List<Map<String, Object>> rows = shards.jdbc(shard).queryForList(
+                    "SELECT merchant_id, COUNT(*) AS links FROM payment_links GROUP BY merchant_id");
+            for (Map<String, Object> row : rows) {
+                UUID merchantId = (UUID) row.get("merchant_id");
+                int target = shardRouter.shardFor(merchantId);
+                if (target != shard) {
+                    moves.add(new Move(merchantId, shard, target, ((Number) row.get("links")).longValue()));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Ejecuta el rebalanceo: asegura la copia de cada comercio en su shard y mueve sus links.
+     * @return Movimientos realizados.
+     */
+    public List<Move> apply() {
+        int replicas = ensureReplicas();
+        List<Move> moves = plan();
+        for (Move move : moves) {
+            log.info("Moviendo comercio {}: shard {} -> {} ({} links)",
+                    move.merchantId(), move.fromShard(), move.toShard(), move.links());
+            copyMerchant(move.merchantId(), move.toShard());
+            List<List<UUID>> copied = copyLinks(move);
+            deleteFromSource(move, copied);
+        }
+        log.info("Rebalanceo terminado: {} copias de comercios creadas, {} comercios movidos", replicas, moves.size());
+        return moves;
+    }
+
+    // Cada comercio del directorio debe existir en su shard (los registrados antes de activar el sharding no lo están)
+    private int ensureReplicas() {
+        int created = 0;
+        List<UUID> merchantIds = shards.jdbc(ShardRouter.DIRECTORY_SHARD)
+                .queryForList("SELECT id FROM merchants", UUID.class);
+        for (UUID merchantId : merchantIds) {
+            int home = shardRouter.shardFor(merchantId);
+            if (home != ShardRouter.DIRECTORY_SHARD) {
+                created += copyMerchant(merchantId, home);
+            }
+        }
+        return created;
+    }
+
+    private int copyMerchant(UUID merchantId, int targetShard) {
+        if (targetShard == ShardRouter.DIRECTORY_SHARD) return 0;
+        List<Map<String, Object>> merchant = shards.jdbc(ShardRouter.DIRECTORY_SHARD)
+                .queryForList("SELECT * FROM merchants WHERE id = ?", merchantId);
+        return insertAll(shards.jdbc(targetShard), "merchants", merchant);
+    }
+
+    // Copia links e intentos por lotes (orden por id) en transacciones del shard destino
+    private List<List<UUID>> copyLinks(Move move) {
+        JdbcTemplate source = shards.jdbc(move.fromShard());
+        JdbcTemplate target = shards.jdbc(move.toShard());
+        TransactionTemplate targetTx = new TransactionTemplate(new DataSourceTransactionManager(shards.get(move.toShard())));
+
+        List<List<UUID>> copied = new ArrayList<>();
+        UUID lastId = new UUID(0L, 0L); // El menor uuid en el orden de Postgres
+        while (true) {
+            List<Map<String, Object>> links = source.queryForList(
+                    "SELECT * FROM payment_links WHERE merchant_id = ? AND id > ? ORDER BY id LIMIT " + BATCH_SIZE,
+                    move.merchantId(), lastId);
+            if (links.isEmpty()) return copied;
+
+            List<UUID> linkIds = links.stream().map(row -> (UUID) row.get("id")).toList();
+            List<Map<String, Object>> attempts = source.queryForList(
+                    "SELECT * FROM payment_attempts WHERE payment_link_id IN (" + placeholders(linkIds.size()) + ")",
+                    linkIds.toArray());
+
+            targetTx.executeWithoutResult(status -> {
+                insertAll(target, "payment_links", links);
+                insertAll(target, "payment_attempts", attempts);
+                // Marca los links como cambiados para que el rollup horario del destino recalcule sus horas
+                target.update("UPDATE payment_links SET updated_at = ? WHERE id IN (" + placeholders(linkIds.size()) + ")",
+                        Stream.concat(Stream.of(Timestamp.from(Instant.now())), linkIds.stream()).toArray());
+            });
+            copied.add(linkIds);
+            lastId = linkIds.get(linkIds.size() - 1);
+        }
+    }
+
+    // Borra solo lo que se copió; la copia del comercio se borra si ya no le quedan links en el origen
+    private void deleteFromSource(Move move, List<List<UUID>> copied) {
+        TransactionTemplate sourceTx = new TransactionTemplate(new DataSourceTransactionManager(shards.get(move.fromShard())));
+        sourceTx.executeWithoutResult(status -> {
+            JdbcTemplate source = new JdbcTemplate(shards.get(move.fromShard()));
+            for (List<UUID> linkIds : copied) {
+                String in = "(" + placeholders(linkIds.size()) + ")";
+                source.update("DELETE FROM payment_attempts WHERE payment_link_id IN " + in, linkIds.toArray());
+                source.update("DELETE FROM payment_links WHERE id IN " + in, linkIds.toArray());
+            }
+            source.update("DELETE FROM merchant_volume_hourly WHERE merchant_id = ?", move.merchantId());
+            if (move.fromShard() != ShardRouter.DIRECTORY_SHARD) {
+                source.update("DELETE FROM merchants WHERE id = ? " +
+                        "AND NOT EXISTS (SELECT 1 FROM payment_links WHERE merchant_id = ?)",
+                        move.merchantId(), move.merchantId());
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // INSERT genérico con las columnas leídas (sigue funcionando si el esquema agrega columnas)
+    private static int insertAll(JdbcTemplate jdbc, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) return 0;
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ") ON CONFLICT DO NOTHING";
+        List<Object[]> args = rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList();
+        return Arrays.stream(jdbc.batchUpdate(sql, args)).map(n -> Math.max(n, 0)).sum();
+    }
+}
@@ -0,0 +1,68 @@
+package com.laura.payment_links.sharding;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Decide el shard de cada comercio. Sin sharding hay un único shard (0) y todo se enruta a él.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int DIRECTORY_SHARD = 0; // Tiene todos los comercios (login por email)
+
+    private final boolean enabled;
+    private final List<Integer> shards;
+    private final int maxShards;
+    private final ConsistentHashRing ring;
+
+    public ShardRouter(ShardingProperties properties) {
+        this.enabled = properties.isEnabled();
+        List<String> names = enabled
+                ? properties.getShards().stream().map(ShardingProperties.Shard::getName).toList()
+                : List.of("default");
+        if (names.size() > properties.getMaxShards()) {
+            throw new IllegalStateException("Hay " + names.size() + " shards y max-shards es " + properties.getMaxShards());
+        }
+        this.shards = IntStream.range(0, names.size()).boxed().toList();
+        this.maxShards = properties.getMaxShards();
+        this.ring = new ConsistentHashRing(names, properties.getVirtualNodes());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int shardFor(UUID merchantId) {
+        return enabled ? ring.shardFor(merchantId) : DIRECTORY_SHARD;
+    }
+
+    // Todos los shards (para jobs y recorridos que no dependen de un comercio)
+    public List<Integer> shards() {
+        return shards;
+    }
+
+    /**
+     * Shards donde buscar un link por el número de su referencia, sin conocer el comercio.
+     * Primero el shard que emitió el número (congruente con shard+1 módulo max-shards, ver
+     * ReferenceSequenceInitializer); después el resto, por si el comercio se movió o la referencia es anterior al sharding.
+     */
+    public List<Integer> shardsForReference(long sequenceNumber) {
+        if (!enabled) return shards;
+        int origin = originShard(sequenceNumber);
+        if (origin >= shards.size()) return shards;
+        List<Integer> ordered = new ArrayList<>(shards.size());
+        ordered.add(origin);
+        shards.stream().filter(shard -> shard != origin).forEach(ordered::add);
+        return ordered;
+    }
+
+    // Shard que emitió un número de referencia (puede ser >= shards().size() si el número no es de este cluster)
+    public int originShard(long sequenceNumber) {
+        return enabled ? (int) Math.floorMod(sequenceNumber - 1, (long) maxShards) : DIRECTORY_SHARD;
+    }
+}
@@ -0,0 +1,26 @@
+package com.laura.payment_links.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Aplica el esquema (db/schema.sql) y los índices (db/indexes.sql) en todos los shards.
+ * Con sharding Hibernate no administra el esquema (ddl-auto=none): solo vería el shard directorio.
+ */
+@Slf4j
+final class ShardSchemaInitializer {
+
+    private ShardSchemaInitializer() {
+    }
+
+    static void initialize(ShardDataSources shards) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("db/schema.sql"),
+                new ClassPathResource("db/indexes.sql"));
+        for (int shard = 0; shard < shards.size(); shard++) {
+            populator.execute(shards.get(shard));
+            log.info("Esquema aplicado en el shard {}", shard);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.laura.payment_links.sharding;
+
+import com.laura.payment_links.workload.WorkloadPools;
+import com.laura.payment_links.workload.WorkloadProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // Pools por shard (uno por clase de trabajo si payment-links.workloads.enabled); el esquema se aplica en todos antes de que arranque JPA
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "payment-links.sharding.enabled", havingValue = "true")
+    public ShardDataSources shardDataSources(ShardingProperties properties,
+                                             WorkloadProperties workloadProperties,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("payment-links.sharding.enabled=true sin payment-links.sharding.shards");
+        }
+        List<DataSource> dataSources = new ArrayList<>();
+        List<Closeable> pools = new ArrayList<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            if (workloadProperties.isEnabled()) {
+                WorkloadPools workloadPools = WorkloadPools.create("shard-" + shard.getName(), shard.getUrl(),
+                        shard.getUsername(), shard.getPassword(), properties.getPoolSize(), workloadProperties,
+                        meterRegistry.getIfAvailable());
+                dataSources.add(workloadPools.dataSource());
+                pools.add(workloadPools);
+                continue;
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shard.getName());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(properties.getPoolSize());
+            dataSources.add(dataSource);
+            pools.add(dataSource);
+        }
+        ShardDataSources shards = new ShardDataSources(dataSources, pools);
+        ShardSchemaInitializer.initialize(shards);
+        return shards;
+    }
+
+    // DataSource principal de JPA: enruta cada conexión al shard de ShardContext
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "payment-links.sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        return new ShardRoutingDataSource(shardDataSources.all());
+    }
+}
@@ -0,0 +1,41 @@
+package com.laura.payment_links.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del sharding por comercio (payment-links.sharding.*).
+ * Con enabled=false la aplicación usa el DataSource normal (spring.datasource.*) como único shard.
+ */
+@Data
+@ConfigurationProperties(prefix = "payment-links.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Máximo de shards que se podrán tener; es el paso de la secuencia de referencias (no cambiar en caliente)
+    private int maxShards = 64;
+
+    // Nodos virtuales por shard en el anillo de hash consistente
+    private int virtualNodes = 160;
+
+    // Conexiones por shard
+    private int poolSize = 10;
+
+    // Modo de la herramienta de rebalanceo al arrancar: none, plan (solo informa) o apply
+    private String rebalance = "none";
+
+    // El orden importa: el índice de cada shard define su secuencia de referencias. El shard 0 es el directorio de comercios.
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;      // Identificador estable en el anillo (no usar el índice)
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,151 @@
+package com.laura.payment_links.timing;
+
+import java.util.Locale;
+
+/**
+ * Tiempos de una petición, agrupados por categoría (jwt, merchant, db, service, mapper, metadata).
+ * Vive en un ThreadLocal del hilo de la petición: el código que corre en otros hilos (pasarela de pago,
+ * jobs) no encuentra instancia y no mide nada. Solo usa arreglos de tamaño fijo para que el costo por
+ * span sea dos System.nanoTime() y unas escrituras.
+ */
+public final class RequestTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final int MAX_CATEGORIES = 16;
+
+    private final long startNanos;
+    private final int maxSpans;
+
+    // Totales por categoría (para Server-Timing)
+    private final String[] categories = new String[MAX_CATEGORIES];
+    private final long[] categoryNanos = new long[MAX_CATEGORIES];
+    private final int[] categoryCounts = new int[MAX_CATEGORIES];
+    private int categoryCount;
+
+    // Spans individuales (para la traza de peticiones lentas), hasta maxSpans
+    private final String[] spanCategories;
+    private final String[] spanOwners;
+    private final String[] spanOperations;
+    private final long[] spanStarts;
+    private final long[] spanDurations;
+    private int spanCount;
+    private int droppedSpans;
+
+    private volatile long headerWrittenNanos; // Inicio de la serialización de la respuesta (0 si no hubo cuerpo)
+
+    RequestTiming(long startNanos, int maxSpans) {
+        this.startNanos = startNanos;
+        this.maxSpans = maxSpans;
+        this.spanCategories = new String[maxSpans];
+        this.spanOwners = new String[maxSpans];
+        this.spanOperations = new String[maxSpans];
+        this.spanStarts = new long[maxSpans];
+        this.spanDurations = new long[maxSpans];
+    }
+
+    // Medición de la petición en curso en este hilo (null fuera de una petición o si está deshabilitado)
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    static void bind(RequestTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Registra un span terminado.
+     * @param category agrupación en Server-Timing (jwt, db, ...).
+     * @param owner clase que hizo el trabajo.
+     * @param operation método u operación.
+     * @param start System.nanoTime() al empezar.
+     */
+    public void record(String category, String owner, String operation, long start) {
+        long duration = System.nanoTime() - start;
+        int index = categoryIndex(category);
+        if (index >= 0) {
+            categoryNanos[index] += duration;
+            categoryCounts[index]++;
+        }
+        if (spanCount < maxSpans) {
+            spanCategories[spanCount] = category;
+            spanOwners[spanCount] = owner;
+            spanOperations[spanCount] = operation;
+            spanStarts[spanCount] = start - startNanos;
+            spanDurations[spanCount] = duration;
+            spanCount++;
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    /**
+     * Valor del encabezado Server-Timing: una métrica por categoría y "app" con el tiempo transcurrido.
+     * Ej: jwt;dur=0.41, db;dur=3.20;desc="x2", app;dur=4.87
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder(32 + categoryCount * 24);
+        for (int i = 0; i < categoryCount; i++) {
+            header.append(categories[i]).append(";dur=").append(millis(categoryNanos[i]));
+            if (categoryCounts[i] > 1) header.append(";desc=\"x").append(categoryCounts[i]).append('"');
+            header.append(", ");
+        }
+        return header.append("app;dur=").append(millis(System.nanoTime() - startNanos)).toString();
+    }
+
+    // Marca el comienzo de la serialización del cuerpo (ResponseBodyAdvice)
+    void markHeaderWritten() {
+        headerWrittenNanos = System.nanoTime();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Traza estructurada (clave=valor) para el log de peticiones lentas.
+     * serialize_ms es el tiempo desde que se escribió el encabezado hasta el final de la petición.
+     */
+    String toTrace(String method, String path, int status, long totalNanos) {
+        StringBuilder trace = new StringBuilder(128 + spanCount * 64);
+        trace.append("method=").append(method)
+                .append(" path=").append(path)
+                .append(" status=").append(status)
+                .append(" total_ms=").append(millis(totalNanos));
+        long written = headerWrittenNanos;
+        if (written != 0) {
+            trace.append(" serialize_ms=").append(millis(startNanos + totalNanos - written));
+        }
+        for (int i = 0; i < categoryCount; i++) {
+            trace.append(' ').append(categories[i]).append("_ms=").append(millis(categoryNanos[i]));
+        }
+        trace.append(" spans=[");
+        for (int i = 0; i < spanCount; i++) {
+            if (i > 0) trace.append(", ");
+            trace.append(spanCategories[i]).append(':').append(spanOwners[i]).append('.').append(spanOperations[i])
+                    .append(" @").append(millis(spanStarts[i]))
+                    .append(" +").append(millis(spanDurations[i]));
+        }
+        trace.append(']');
+        if (droppedSpans > 0) trace.append(" dropped_spans=").append(droppedSpans);
+        return trace.toString();
+    }
+
+    private int categoryIndex(String category) {
+        for (int i = 0; i < categoryCount; i++) {
+            if (categories[i].equals(category)) return i;
+        }
+        if (categoryCount == MAX_CATEGORIES) return -1;
+        categories[categoryCount] = category;
+        return categoryCount++;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+}
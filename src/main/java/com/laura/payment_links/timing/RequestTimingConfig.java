@@ -0,0 +1,83 @@
+package com.laura.payment_links.timing;
+
+import com.laura.payment_links.repository.MerchantRepository;
+import com.laura.payment_links.security.JwtTokenValidator;
+import com.laura.payment_links.service.CheckoutService;
+import com.laura.payment_links.service.PaymentLinkService;
+import com.laura.payment_links.util.PaymentLinkMapper;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Medición por petición (Server-Timing y trazas de peticiones lentas).
+ * Los componentes medidos se envuelven en un proxy cuyo interceptor, fuera de una petición, solo
+ * consulta el ThreadLocal y sigue de largo.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payment-links.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(
+            @Value("${payment-links.timing.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${payment-links.timing.slow-sample-rate:0.1}") double slowSampleRate,
+            @Value("${payment-links.timing.max-spans:64}") int maxSpans) {
+        FilterRegistrationBean<RequestTimingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTimingFilter(slowThresholdMs, slowSampleRate, maxSpans));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE); // Antes de Spring Security: incluye el JWT
+        return registration;
+    }
+
+    // Envuelve los componentes medidos: validación JWT, repositorios, servicios y mapper
+    @Bean
+    public static BeanPostProcessor requestTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                String category = categoryOf(bean);
+                if (category == null) return bean;
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice(timingInterceptor(category, ownerName(bean)));
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    private static String categoryOf(Object bean) {
+        if (bean instanceof JwtTokenValidator) return "jwt";
+        if (bean instanceof MerchantRepository) return "merchant";
+        if (bean instanceof Repository<?, ?>) return "db";
+        if (bean instanceof PaymentLinkService || bean instanceof CheckoutService) return "service";
+        if (bean instanceof PaymentLinkMapper) return "mapper";
+        return null;
+    }
+
+    // Los repositorios ya son proxies: se usa el nombre de su interfaz
+    private static String ownerName(Object bean) {
+        for (Class<?> type : bean.getClass().getInterfaces()) {
+            if (Repository.class.isAssignableFrom(type) || type == PaymentLinkMapper.class) return type.getSimpleName();
+        }
+        return bean.getClass().getSimpleName();
+    }
+
+    private static MethodInterceptor timingInterceptor(String category, String owner) {
+        return invocation -> {
+            RequestTiming timing = RequestTiming.current();
+            if (timing == null) return invocation.proceed();
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                timing.record(category, owner, invocation.getMethod().getName(), start);
+            }
+        };
+    }
+}
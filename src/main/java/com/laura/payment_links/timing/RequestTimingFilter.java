@@ -0,0 +1,104 @@
+package com.laura.payment_links.timing;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Abre la medición de cada petición (primer filtro, antes de la seguridad) y, al terminar:
+ * - agrega Server-Timing si ningún cuerpo lo escribió (respuestas vacías),
+ * - registra en el log una traza de las peticiones lentas, muestreada.
+ * En las respuestas asíncronas (pay) la traza se registra cuando termina el AsyncContext. Los streams SSE
+ * (text/event-stream) no se miden: quedan abiertos hasta 30 minutos y todos superarían el umbral.
+ */
+@Slf4j
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+    private final int maxSpans;
+
+    public RequestTimingFilter(long slowThresholdMs, double slowSampleRate, int maxSpans) {
+        this.slowThresholdNanos = slowThresholdMs * 1_000_000;
+        this.slowSampleRate = slowSampleRate;
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = new RequestTiming(System.nanoTime(), maxSpans);
+        request.setAttribute(ATTRIBUTE, timing);
+        RequestTiming.bind(timing);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTiming.unbind();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(timing, request, response));
+            } else {
+                complete(timing, request, response);
+            }
+        }
+    }
+
+    // El Content-Type de un SseEmitter llega a la respuesta con el primer evento o heartbeat, no al terminar el
+    // dispatch: se consulta al terminar el AsyncContext
+    private static boolean isEventStream(HttpServletResponse response) {
+        String contentType = response.getContentType();
+        return contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private void complete(RequestTiming timing, HttpServletRequest request, HttpServletResponse response) {
+        if (!response.isCommitted() && !response.containsHeader(RequestTiming.HEADER)) {
+            response.setHeader(RequestTiming.HEADER, timing.toServerTiming());
+        }
+        long total = timing.elapsedNanos();
+        if (total >= slowThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+            log.warn("Petición lenta: {}", timing.toTrace(request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), total));
+        }
+    }
+
+    private final class CompletionListener implements AsyncListener {
+        private final RequestTiming timing;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private CompletionListener(RequestTiming timing, HttpServletRequest request, HttpServletResponse response) {
+            this.timing = timing;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (!isEventStream(response)) {
+                complete(timing, request, response);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
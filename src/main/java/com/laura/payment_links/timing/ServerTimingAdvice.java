@@ -0,0 +1,36 @@
+package com.laura.payment_links.timing;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Escribe Server-Timing justo antes de serializar el cuerpo (después ya no se pueden agregar encabezados).
+ * Cubre también los errores de GlobalExceptionHandler. El tiempo de serialización queda solo en la traza de log.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        // Por atributo y no por ThreadLocal: en las respuestas asíncronas se escribe en otro hilo
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(RequestTimingFilter.ATTRIBUTE) instanceof RequestTiming timing) {
+            response.getHeaders().set(RequestTiming.HEADER, timing.toServerTiming());
+            timing.markHeaderWritten();
+        }
+        return body;
+    }
+}
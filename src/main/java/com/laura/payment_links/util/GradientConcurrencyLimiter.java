@@ -0,0 +1,202 @@
+package com.laura.payment_links.util;
+
+import com.laura.payment_links.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Límite adaptativo de peticiones en vuelo (gradiente, como Gradient2 de Netflix concurrency-limits).
+ * - Por ventana (mínimo windowMinSamples muestras y windowMinMillis) se calcula la latencia media (corta)
+ *   y se actualiza una media exponencial larga (la latencia "sin cola").
+ * - gradiente = tolerancia * larga / corta, acotado a [0.5, 1]: si la latencia sube, el límite baja.
+ * - nuevo límite = límite * gradiente + sqrt(límite) (margen de cola para seguir explorando), suavizado.
+ * - Si la ventana usó menos de la mitad del límite no se ajusta (la carga, no el servidor, marcó la latencia).
+ * El exceso se rechaza de inmediato (ConcurrencyLimitExceededException, 503): no se encola nada.
+ * Las operaciones que fallan se separan con el predicado isDropped (se aplica a toda la cadena de causas):
+ * - Sobrecarga (timeouts, pool agotado): aportan muestra con la latencia observada y la ventana termina con
+ *   una baja multiplicativa (límite * BACKOFF_RATIO), como onDropped en concurrency-limits.
+ * - El resto (404/409 de negocio, rápidos) libera su lugar sin aportar muestra: no debe inflar el límite.
+ */
+public class GradientConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_DECAY = 0.95;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double longRttAlpha;
+    private final int windowMinSamples;
+    private final long windowMinNanos;
+    private final Predicate<Throwable> isDropped;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    // Estado de la ventana actual (protegido por this)
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public GradientConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double smoothing, int longWindowSamples, int windowMinSamples,
+                                      long windowMinMillis, Predicate<Throwable> isDropped,
+                                      MeterRegistry meterRegistry) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longRttAlpha = 2.0 / (longWindowSamples + 1);
+        this.windowMinSamples = windowMinSamples;
+        this.windowMinNanos = windowMinMillis * 1_000_000;
+        this.isDropped = isDropped;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.estimatedLimit = limit;
+
+        Gauge.builder("payment_links.concurrency.limit", this, l -> l.limit)
+                .description("Peticiones en vuelo permitidas (límite adaptativo)")
+                .tag("endpoint", name).register(meterRegistry);
+        Gauge.builder("payment_links.concurrency.in_flight", inFlight, AtomicInteger::get)
+                .tag("endpoint", name).register(meterRegistry);
+        this.rejected = Counter.builder("payment_links.concurrency.rejected")
+                .description("Peticiones rechazadas (503) por superar el límite")
+                .tag("endpoint", name).register(meterRegistry);
+        this.dropped = Counter.builder("payment_links.concurrency.dropped")
+                .description("Operaciones que fallaron por sobrecarga (timeout, pool agotado) y bajaron el límite")
+                .tag("endpoint", name).register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta una operación síncrona dentro del límite.
+     * @throws ConcurrencyLimitExceededException (503) si no hay lugar.
+     */
+    public <T> T call(Supplier<T> work) {
+        long start = acquire();
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException | Error e) {
+            release(start, e);
+            throw e;
+        }
+        release(start, null);
+        return result;
+    }
+
+    /**
+     * Ejecuta una operación asíncrona: el lugar se libera (y la latencia se mide) cuando el future termina.
+     * @throws ConcurrencyLimitExceededException (503) si no hay lugar.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> work) {
+        long start = acquire();
+        CompletableFuture<T> future;
+        try {
+            future = work.get();
+        } catch (RuntimeException e) {
+            release(start, e);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> release(start, error));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private long acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                throw new ConcurrencyLimitExceededException(name, limit);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return System.nanoTime();
+            }
+        }
+    }
+
+    // error null: éxito. Si no, solo cuenta como muestra (y baja el límite) si es de sobrecarga
+    private void release(long start, Throwable error) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        long rttNanos = System.nanoTime() - start;
+        if (error == null) {
+            sample(rttNanos, inFlightAtRelease, false);
+        } else if (causedByOverload(error)) {
+            dropped.increment();
+            sample(rttNanos, inFlightAtRelease, true);
+        }
+    }
+
+    private boolean causedByOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (isDropped.test(cause)) return true;
+        }
+        return false;
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtRelease, boolean didDrop) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+        windowDropped |= didDrop;
+
+        long now = System.nanoTime();
+        if (windowSamples < windowMinSamples || now - windowStart < windowMinNanos) return;
+
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        boolean droppedInWindow = windowDropped;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+
+        // Sobrecarga: baja multiplicativa aunque la ventana no haya usado el límite (un timeout no es carga baja).
+        // La latencia base no se actualiza con esa ventana: los timeouts la inflarían
+        if (droppedInWindow) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+            return;
+        }
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += longRttAlpha * (shortRtt - longRttNanos);
+        }
+        // Si la latencia base quedó muy por encima de la actual (p. ej. tras una sobrecarga), se corrige más rápido
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= LONG_RTT_DECAY;
+        }
+
+        if (maxInFlight < estimatedLimit / 2) return;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        next = estimatedLimit * (1 - smoothing) + next * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,83 @@
+package com.laura.payment_links.util;
+
+import java.util.UUID;
+
+/**
+ * Clasifica un identificador de link (UUID o referencia PL-AAAA-NNNNNN) sin usar excepciones.
+ * Lo que no tiene forma de ninguno de los dos se puede responder con 404 sin ir a la base de datos.
+ */
+public record LinkIdentifier(Kind kind, UUID id, String reference) {
+
+    public enum Kind { ID, REFERENCE, INVALID }
+
+    private static final int UUID_LENGTH = 36;
+    private static final String REFERENCE_PREFIX = "PL-";
+    private static final int YEAR_DIGITS = 4;
+    private static final int MIN_SEQUENCE_DIGITS = 6;   // ReferenceGenerator usa %06d
+    private static final int MAX_SEQUENCE_DIGITS = 18;
+
+    public static LinkIdentifier parse(String identifier) {
+        if (identifier == null) return invalid();
+        if (isUuid(identifier)) {
+            return new LinkIdentifier(Kind.ID, UUID.fromString(identifier), null); // No lanza: la forma ya es válida
+        }
+        if (isReference(identifier)) {
+            return new LinkIdentifier(Kind.REFERENCE, null, identifier);
+        }
+        return invalid();
+    }
+
+    public static LinkIdentifier of(UUID id) {
+        return new LinkIdentifier(Kind.ID, id, null);
+    }
+
+    public boolean isValid() {
+        return kind != Kind.INVALID;
+    }
+
+    // Forma canónica usada como clave del filtro de existencia
+    public String key() {
+        return kind == Kind.ID ? id.toString() : reference;
+    }
+
+    // Número de secuencia de una referencia (la parte después del año); -1 si no es una referencia
+    public long sequenceNumber() {
+        if (kind != Kind.REFERENCE) return -1;
+        return Long.parseLong(reference.substring(REFERENCE_PREFIX.length() + YEAR_DIGITS + 1));
+    }
+
+    // 8-4-4-4-12 dígitos hexadecimales
+    private static boolean isUuid(String s) {
+        if (s.length() != UUID_LENGTH) return false;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = s.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (Character.digit(c, 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // PL-<año>-<secuencia>
+    private static boolean isReference(String s) {
+        int sequenceStart = REFERENCE_PREFIX.length() + YEAR_DIGITS + 1;
+        int sequenceDigits = s.length() - sequenceStart;
+        if (sequenceDigits < MIN_SEQUENCE_DIGITS || sequenceDigits > MAX_SEQUENCE_DIGITS) return false;
+        if (!s.startsWith(REFERENCE_PREFIX) || s.charAt(sequenceStart - 1) != '-') return false;
+        return allDigits(s, REFERENCE_PREFIX.length(), sequenceStart - 1) && allDigits(s, sequenceStart, s.length());
+    }
+
+    private static boolean allDigits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static LinkIdentifier invalid() {
+        return new LinkIdentifier(Kind.INVALID, null, null);
+    }
+}
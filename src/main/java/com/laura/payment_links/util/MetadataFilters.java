@@ -0,0 +1,87 @@
+package com.laura.payment_links.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laura.payment_links.exception.InvalidQueryParameterException;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Convierte filtros metadata.<clave>=<valor> en documentos JSON para el operador @> de jsonb.
+ * Los parámetros llegan como texto, pero el comercio pudo guardar {"orderId": 123} o {"orderId": "123"};
+ * por eso se generan dos documentos (valores tipados y valores como texto) y basta con que uno coincida.
+ */
+public final class MetadataFilters {
+
+    public static final String PARAM_PREFIX = "metadata.";
+    private static final int MAX_FILTERS = 10;
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private MetadataFilters() {
+    }
+
+    // Documentos de contención {typed, text}, o null si no hay filtros de metadata
+    public record Containment(String typed, String text) {
+    }
+
+    // Extrae los parámetros metadata.* de la query string (sin el prefijo)
+    public static Map<String, String> fromQueryParams(Map<String, String> params) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        params.forEach((name, value) -> {
+            if (name.startsWith(PARAM_PREFIX) && name.length() > PARAM_PREFIX.length()) {
+                metadata.put(name.substring(PARAM_PREFIX.length()), value);
+            }
+        });
+        return metadata;
+    }
+
+    /**
+     * Construye los documentos de contención. Las claves con puntos ("customer.id") se anidan.
+     * @throws InvalidQueryParameterException (400) si hay demasiados filtros o claves en conflicto.
+     */
+    public static Containment toContainment(Map<String, String> metadata) {
+        if (metadata == null || metadata.isEmpty()) return null;
+        if (metadata.size() > MAX_FILTERS) {
+            throw new InvalidQueryParameterException("Máximo " + MAX_FILTERS + " filtros de metadata");
+        }
+
+        Map<String, Object> typed = new LinkedHashMap<>();
+        Map<String, Object> text = new LinkedHashMap<>();
+        metadata.forEach((key, value) -> {
+            put(typed, key, typedValue(value));
+            put(text, key, value);
+        });
+
+        try {
+            return new Containment(OBJECT_MAPPER.writeValueAsString(typed), OBJECT_MAPPER.writeValueAsString(text));
+        } catch (JsonProcessingException e) {
+            throw new InvalidQueryParameterException("Filtro de metadata inválido");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> root, String path, Object value) {
+        String[] keys = path.split("\\.");
+        Map<String, Object> current = root;
+        for (int i = 0; i < keys.length - 1; i++) {
+            Object child = current.computeIfAbsent(keys[i], k -> new LinkedHashMap<String, Object>());
+            if (!(child instanceof Map)) {
+                throw new InvalidQueryParameterException("Filtros de metadata en conflicto: " + path);
+            }
+            current = (Map<String, Object>) child;
+        }
+        if (current.putIfAbsent(keys[keys.length - 1], value) != null) {
+            throw new InvalidQueryParameterException("Filtros de metadata en conflicto: " + path);
+        }
+    }
+
+    private static Object typedValue(String value) {
+        if ("true".equals(value) || "false".equals(value)) return Boolean.valueOf(value);
+        if (NUMBER.matcher(value).matches()) return new BigDecimal(value);
+        return value;
+    }
+}
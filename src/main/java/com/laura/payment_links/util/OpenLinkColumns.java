@@ -0,0 +1,281 @@
+package com.laura.payment_links.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Links abiertos (CREATED) de un comercio en columnas de arreglos primitivos: id (dos long), monto (int),
+ * moneda (código de diccionario), creación y vencimiento (microsegundos desde epoch, la precisión de PostgreSQL).
+ * Las referencias son la única columna de objetos.
+ * - Escrituras con el lock exclusivo de un StampedLock; las bajas mueven la última fila al hueco (sin huecos).
+ * - Cada fila guarda la versión optimista del link y cada baja deja una lápida con la suya: una escritura con
+ *   versión menor (un refresco que leyó antes de un cambio local) se descarta en vez de pisar o resucitar el link.
+ * - Las lecturas primero intentan sin lock (lectura optimista) y, si una escritura se cruzó, repiten con lock
+ *   de lectura. Los arreglos crecen reemplazándose, así que una lectura optimista nunca ve uno a medio copiar.
+ */
+public class OpenLinkColumns {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<UUID, Integer> positions = new HashMap<>(); // Solo con el lock exclusivo
+    private final Map<UUID, Tombstone> removed = new HashMap<>();  // Bajas recientes; solo con el lock exclusivo
+
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private String[] references = new String[INITIAL_CAPACITY];
+    private int[] amounts = new int[INITIAL_CAPACITY];
+    private short[] currencies = new short[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private long[] expiresAt = new long[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private record Tombstone(long version, long removedAtNanos) {
+    }
+
+    // Columna por la que se ordena el resultado
+    public enum SortKey { CREATED_AT, EXPIRES_AT, AMOUNT }
+
+    /**
+     * Filas que cumplen el filtro, ya ordenadas. total es la cantidad de coincidencias (para el conteo)
+     * y las columnas contienen solo la porción pedida (offset/limit).
+     */
+    public record Result(int total, long[] idHigh, long[] idLow, String[] references, int[] amounts,
+                         short[] currencies, long[] createdAt, long[] expiresAt) {
+
+        public int size() {
+            return references.length;
+        }
+
+        public UUID id(int row) {
+            return new UUID(idHigh[row], idLow[row]);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un link abierto.
+     * @return false si se descartó por ser más viejo que la fila o la baja ya aplicadas.
+     */
+    public boolean upsert(UUID id, long version, String reference, int amountCents, short currency,
+                          long createdAtMicros, long expiresAtMicros) {
+        long stamp = lock.writeLock();
+        try {
+            Tombstone tombstone = removed.get(id);
+            if (tombstone != null && tombstone.version() >= version) return false;
+            Integer position = positions.get(id);
+            int row;
+            if (position != null) {
+                row = position;
+                if (versions[row] > version) return false;
+            } else {
+                if (size == references.length) grow();
+                row = size++;
+                positions.put(id, row);
+            }
+            idHigh[row] = id.getMostSignificantBits();
+            idLow[row] = id.getLeastSignificantBits();
+            references[row] = reference;
+            amounts[row] = amountCents;
+            currencies[row] = currency;
+            createdAt[row] = createdAtMicros;
+            expiresAt[row] = expiresAtMicros;
+            versions[row] = version;
+            if (tombstone != null) removed.remove(id);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Quita un link (pagado, cancelado o expirado); la última fila ocupa su lugar.
+     * Deja una lápida con la versión aunque el link no estuviera (el alta puede llegar después, desde un refresco).
+     * @return false si no estaba o si la fila es más nueva que la baja.
+     */
+    public boolean remove(UUID id, long version) {
+        long stamp = lock.writeLock();
+        try {
+            Tombstone tombstone = removed.get(id);
+            if (tombstone == null || tombstone.version() < version) {
+                removed.put(id, new Tombstone(version, System.nanoTime()));
+            }
+            Integer position = positions.get(id);
+            if (position == null || versions[position] > version) return false;
+            positions.remove(id);
+            int last = --size;
+            if (position != last) {
+                idHigh[position] = idHigh[last];
+                idLow[position] = idLow[last];
+                references[position] = references[last];
+                amounts[position] = amounts[last];
+                currencies[position] = currencies[last];
+                createdAt[position] = createdAt[last];
+                expiresAt[position] = expiresAt[last];
+                versions[position] = versions[last];
+                positions.put(new UUID(idHigh[position], idLow[position]), position);
+            }
+            references[last] = null;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Olvida las lápidas anteriores a un instante (System.nanoTime()). Solo hacen falta mientras pueda llegar
+     * una lectura de la base hecha antes de la baja: el índice las poda con el inicio del último refresco.
+     */
+    public void pruneRemoved(long removedBeforeNanos) {
+        long stamp = lock.writeLock();
+        try {
+            removed.values().removeIf(tombstone -> tombstone.removedAtNanos() - removedBeforeNanos < 0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        if (lock.validate(stamp)) return current;
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Filtra por rango de monto y de creación (límites inclusivos; null = sin límite), ordena y pagina.
+     * @param limit máximo de filas devueltas (Integer.MAX_VALUE para todas).
+     */
+    public Result query(Integer minAmount, Integer maxAmount, Long fromMicros, Long toMicros,
+                        SortKey sortKey, boolean descending, long offset, int limit) {
+        Matches matches = null;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                matches = scan(minAmount, maxAmount, fromMicros, toMicros);
+            } catch (RuntimeException e) {
+                matches = null; // Estado a medio escribir: se repite con lock
+            }
+            if (!lock.validate(stamp)) matches = null;
+        }
+        if (matches == null) {
+            stamp = lock.readLock();
+            try {
+                matches = scan(minAmount, maxAmount, fromMicros, toMicros);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return matches.sortAndSlice(sortKey, descending, offset, limit);
+    }
+
+    // Copia las filas que cumplen el filtro (lee referencias locales a los arreglos)
+    private Matches scan(Integer minAmount, Integer maxAmount, Long fromMicros, Long toMicros) {
+        long[] hi = idHigh;
+        long[] lo = idLow;
+        String[] refs = references;
+        int[] amt = amounts;
+        short[] cur = currencies;
+        long[] created = createdAt;
+        long[] expires = expiresAt;
+        int n = Math.min(size, refs.length);
+
+        int min = minAmount != null ? minAmount : Integer.MIN_VALUE;
+        int max = maxAmount != null ? maxAmount : Integer.MAX_VALUE;
+        long from = fromMicros != null ? fromMicros : Long.MIN_VALUE;
+        long to = toMicros != null ? toMicros : Long.MAX_VALUE;
+
+        Matches matches = new Matches(n);
+        for (int i = 0; i < n; i++) {
+            int amount = amt[i];
+            long createdMicros = created[i];
+            if (amount < min || amount > max || createdMicros < from || createdMicros > to) continue;
+            matches.add(hi[i], lo[i], refs[i], amount, cur[i], createdMicros, expires[i]);
+        }
+        return matches;
+    }
+
+    private void grow() {
+        int capacity = references.length * 2;
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        references = Arrays.copyOf(references, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        currencies = Arrays.copyOf(currencies, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        expiresAt = Arrays.copyOf(expiresAt, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+
+    // Copia de las coincidencias, fuera del lock para ordenar
+    private static final class Matches {
+        private final long[] hi;
+        private final long[] lo;
+        private final String[] refs;
+        private final int[] amounts;
+        private final short[] currencies;
+        private final long[] created;
+        private final long[] expires;
+        private int count;
+
+        Matches(int capacity) {
+            hi = new long[capacity];
+            lo = new long[capacity];
+            refs = new String[capacity];
+            amounts = new int[capacity];
+            currencies = new short[capacity];
+            created = new long[capacity];
+            expires = new long[capacity];
+        }
+
+        void add(long idHigh, long idLow, String reference, int amount, short currency, long createdAt, long expiresAt) {
+            hi[count] = idHigh;
+            lo[count] = idLow;
+            refs[count] = reference;
+            amounts[count] = amount;
+            currencies[count] = currency;
+            created[count] = createdAt;
+            expires[count] = expiresAt;
+            count++;
+        }
+
+        Result sortAndSlice(SortKey sortKey, boolean descending, long offset, int limit) {
+            // Orden por (clave, referencia): determinista entre páginas
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int byKey = switch (sortKey) {
+                    case CREATED_AT -> Long.compare(created[a], created[b]);
+                    case EXPIRES_AT -> Long.compare(expires[a], expires[b]);
+                    case AMOUNT -> Integer.compare(amounts[a], amounts[b]);
+                };
+                if (byKey == 0) byKey = refs[a].compareTo(refs[b]);
+                return descending ? -byKey : byKey;
+            });
+
+            int from = (int) Math.min(offset, count);
+            int rows = Math.min(limit, count - from);
+            Result result = new Result(count, new long[rows], new long[rows], new String[rows], new int[rows],
+                    new short[rows], new long[rows], new long[rows]);
+            for (int r = 0; r < rows; r++) {
+                int i = order[from + r];
+                result.idHigh()[r] = hi[i];
+                result.idLow()[r] = lo[i];
+                result.references()[r] = refs[i];
+                result.amounts()[r] = amounts[i];
+                result.currencies()[r] = currencies[i];
+                result.createdAt()[r] = created[i];
+                result.expiresAt()[r] = expires[i];
+            }
+            return result;
+        }
+    }
+}
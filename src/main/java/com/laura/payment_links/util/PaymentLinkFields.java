@@ -0,0 +1,78 @@
+package com.laura.payment_links.util;
+
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.dto.response.SelectedFieldsPaymentLinkResponse;
+import com.laura.payment_links.exception.InvalidQueryParameterException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Selección de campos (fields=) para el listado de links
+public final class PaymentLinkFields {
+
+    public static final List<String> ALLOWED = List.of(
+            "id", "reference", "status", "expiresAt", "amountCents", "currency", "latestAttempt");
+
+    // Campos que son columnas de payment_links (los que puede listar el SELECT)
+    public static final List<String> COLUMNS = List.of(
+            "id", "reference", "status", "expiresAt", "amountCents", "currency");
+
+    private PaymentLinkFields() {
+    }
+
+    /**
+     * Interpreta el parámetro fields ("id,status,amountCents").
+     * @return Campos pedidos, o null si no se pidió recorte (parámetro ausente).
+     * @throws InvalidQueryParameterException (400) si algún campo no existe o no se nombra ninguno (fields=,).
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null) return null;
+
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) continue;
+            if (!ALLOWED.contains(name)) {
+                throw new InvalidQueryParameterException(
+                        "Campo desconocido en fields: " + name + ". Permitidos: " + String.join(", ", ALLOWED));
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidQueryParameterException(
+                    "fields no nombra ningún campo. Permitidos: " + String.join(", ", ALLOWED));
+        }
+        return selected;
+    }
+
+    /**
+     * Columnas que debe traer el SELECT para los campos pedidos. El id se trae también si se adjunta el
+     * último intento (se busca por id) aunque no se haya pedido; select() lo quita después.
+     * @return null si no hay recorte (todas las columnas).
+     */
+    public static Set<String> columns(Set<String> fields, boolean includeLatestAttempt) {
+        if (fields == null) return null;
+        Set<String> columns = new LinkedHashSet<>();
+        if (includeLatestAttempt) columns.add("id");
+        for (String column : COLUMNS) {
+            if (fields.contains(column)) columns.add(column);
+        }
+        if (columns.isEmpty()) columns.add("id"); // Solo latestAttempt sin includeLatestAttempt: nada que mostrar
+        return columns;
+    }
+
+    // Devuelve una copia con solo los campos pedidos (el resto queda null y no se serializa)
+    public static PaymentLinkResponse select(PaymentLinkResponse source, Set<String> fields) {
+        PaymentLinkResponse selected = PaymentLinkResponse.builder()
+                .id(fields.contains("id") ? source.getId() : null)
+                .reference(fields.contains("reference") ? source.getReference() : null)
+                .status(fields.contains("status") ? source.getStatus() : null)
+                .expiresAt(fields.contains("expiresAt") ? source.getExpiresAt() : null)
+                .amountCents(fields.contains("amountCents") ? source.getAmountCents() : null)
+                .currency(fields.contains("currency") ? source.getCurrency() : null)
+                .latestAttempt(fields.contains("latestAttempt") ? source.getLatestAttempt() : null)
+                .build();
+        return new SelectedFieldsPaymentLinkResponse(selected);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.time.Instant;
+import java.util.Map;
 
 @Data
 @Builder
@@ -14,4 +15,6 @@ public class PaymentLinkFilter {
     private Instant toDate;                 // Fecha máxima de creación
     private Integer minAmount;              // Monto mínimo en centavos
     private Integer maxAmount;              // Monto máximo en centavos
+    private Map<String, String> metadata;   // metadata.orderId=123 -> {"orderId": "123"} (contención @>)
+    private String query;                   // Texto libre (q=) sobre description y reference
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import com.laura.payment_links.dto.response.PaymentLinkResponse;
 import com.laura.payment_links.model.Merchant;
 import com.laura.payment_links.model.PaymentAttempt;
 import com.laura.payment_links.model.PaymentLink;
+import com.laura.payment_links.timing.RequestTiming;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Builder;
 import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -27,11 +30,18 @@ public interface PaymentLinkMapper {
     @Mapping(target = "amountCents", source = "amountCents")
     @Mapping(target = "currency", source = "currency")
     @Mapping(target = "expiresAt", source = "expiresAt")
+    @Mapping(target = "latestAttempt", ignore = true)
+    @Mapping(target = "checkoutToken", ignore = true) // Lo firma el servicio (CheckoutTokens)
     PaymentLinkResponse toResponse(PaymentLink entity);
 
     // Se convierte una entidad PaymentLink a su DTO detallado (incluye metadata, fechas, etc.).
+    // Sin builder: el @Builder de Lombok es de PaymentLinkResponse y no conoce los campos del detalle.
+    @BeanMapping(builder = @Builder(disableBuilder = true))
     @Mapping(target = "merchantId", source = "merchant.id")
     @Mapping(target = "metadata", expression = "java(convertJsonToMap(entity.getMetadata()))")
+    @Mapping(target = "latestAttempt", ignore = true)
+    @Mapping(target = "attempts", ignore = true)
+    @Mapping(target = "checkoutToken", ignore = true) // Lo firma el servicio (CheckoutTokens)
     PaymentLinkDetailsResponse toDetailsResponse(PaymentLink entity);
 
     // Convierte un CreatePaymentLinkRequest a la entidad PaymentLink (para creación).
@@ -39,6 +49,12 @@ public interface PaymentLinkMapper {
     @Mapping(target = "status", constant = "CREATED")
     @Mapping(target = "createdAt", expression = "java(java.time.Instant.now())")
     @Mapping(target = "metadata", expression = "java(convertMapToJson(request.getMetadata()))")
+    @Mapping(target = "version", ignore = true)   // La asigna Hibernate (@Version)
+    @Mapping(target = "updatedAt", ignore = true) // La asigna Hibernate (@UpdateTimestamp)
+    @Mapping(target = "merchant", ignore = true)  // Lo asigna el servicio (comercio autenticado)
+    @Mapping(target = "reference", ignore = true) // La asigna el servicio (ReferenceGenerator)
+    @Mapping(target = "expiresAt", ignore = true) // La calcula el servicio (expiresInMinutes)
+    @Mapping(target = "paidAt", ignore = true)    // Solo se asigna al pagar
     PaymentLink fromCreateRequest(CreatePaymentLinkRequest request, @Context Merchant merchant);
 
     //Convierte una entidad PaymentAttempt a su DTO de respuesta.
@@ -50,19 +66,27 @@ public interface PaymentLinkMapper {
 
     default Map<String, Object> convertJsonToMap(String json) {
         if (json == null) return null;
+        RequestTiming timing = RequestTiming.current(); // Span "metadata" de Server-Timing
+        long start = System.nanoTime();
         try {
             return new ObjectMapper().readValue(json, new TypeReference<Map<String, Object>>() {});
         } catch (JsonProcessingException e) {
             throw new InvalidMetadataException("Metadata inválida");
+        } finally {
+            if (timing != null) timing.record("metadata", "PaymentLinkMapper", "convertJsonToMap", start);
         }
     }
 
     default String convertMapToJson(Map<String, Object> map) {
         if (map == null) return null;
+        RequestTiming timing = RequestTiming.current();
+        long start = System.nanoTime();
         try {
             return new ObjectMapper().writeValueAsString(map);
         } catch (JsonProcessingException e) {
             throw new InvalidMetadataException("Error al serializar metadata");
+        } finally {
+            if (timing != null) timing.record("metadata", "PaymentLinkMapper", "convertMapToJson", start);
         }
     }
 }
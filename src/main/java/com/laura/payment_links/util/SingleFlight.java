@@ -0,0 +1,122 @@
+package com.laura.payment_links.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas concurrentes idénticas: la primera (líder) ejecuta la carga y las que llegan
+ * mientras está en curso (seguidoras) esperan y reciben el mismo resultado o la misma excepción.
+ * No es una caché: al terminar la llamada la clave se libera y la siguiente vuelve a consultar.
+ * Las claves se reparten en franjas con su propio lock para no serializar claves distintas.
+ * El resultado es compartido, así que quien lo reciba no debe modificarlo.
+ * Una seguidora espera como máximo followerTimeout; después ejecuta la carga ella misma (un líder lento
+ * no arrastra a todas las que se unieron).
+ */
+public class SingleFlight<K, V> {
+
+    private final Stripe<K, V>[] stripes;
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter timedOut;
+    private final long followerTimeoutNanos;
+
+    /**
+     * @param name Nombre de la operación (etiqueta "operation" de las métricas).
+     * @param stripeCount Número de franjas (potencia de 2).
+     * @param followerTimeout Espera máxima de una seguidora antes de cargar por su cuenta.
+     */
+    @SuppressWarnings("unchecked")
+    public SingleFlight(String name, int stripeCount, Duration followerTimeout, MeterRegistry meterRegistry) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount debe ser potencia de 2: " + stripeCount);
+        }
+        this.followerTimeoutNanos = followerTimeout.toNanos();
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        // Tasa de agrupamiento = followers / (leaders + followers)
+        this.leaders = Counter.builder("payment_links.singleflight.calls")
+                .tag("operation", name).tag("role", "leader")
+                .description("Llamadas que ejecutaron la consulta")
+                .register(meterRegistry);
+        this.followers = Counter.builder("payment_links.singleflight.calls")
+                .tag("operation", name).tag("role", "follower")
+                .description("Llamadas que reutilizaron una consulta en curso")
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("payment_links.singleflight.calls")
+                .tag("operation", name).tag("role", "timed_out")
+                .description("Seguidoras que se cansaron de esperar y ejecutaron la consulta")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta loader o se une a la ejecución en curso para la misma clave.
+     * @throws RuntimeException la misma excepción que lanzó la carga del líder.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        Stripe<K, V> stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+
+        CompletableFuture<V> inFlight;
+        CompletableFuture<V> mine = null;
+        synchronized (stripe) {
+            inFlight = stripe.calls.get(key);
+            if (inFlight == null) {
+                mine = new CompletableFuture<>();
+                stripe.calls.put(key, mine);
+            }
+        }
+
+        if (mine == null) {
+            followers.increment();
+            return await(inFlight, loader);
+        }
+
+        leaders.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (stripe) {
+                stripe.calls.remove(key);
+            }
+        }
+    }
+
+    private V await(CompletableFuture<V> future, Supplier<V> loader) {
+        try {
+            return future.get(followerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando una consulta en curso", e);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe<K, V> {
+        private final Map<K, CompletableFuture<V>> calls = new HashMap<>();
+    }
+}
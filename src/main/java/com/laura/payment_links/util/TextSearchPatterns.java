@@ -0,0 +1,33 @@
+package com.laura.payment_links.util;
+
+import com.laura.payment_links.exception.InvalidQueryParameterException;
+
+/**
+ * Patrones ILIKE para la búsqueda por fragmentos (q=) sobre los índices pg_trgm.
+ * Compartido por la pila MVC/JPA y el módulo reactivo.
+ */
+public final class TextSearchPatterns {
+
+    public static final int MIN_SEARCH_LENGTH = 3;
+
+    private TextSearchPatterns() {
+    }
+
+    /**
+     * Convierte el texto libre (q=) en un patrón ILIKE "%texto%", escapando los comodines.
+     * Con menos de 3 caracteres los índices de trigramas no sirven, así que se rechaza.
+     * @return patrón, o null si no hay búsqueda.
+     * @throws InvalidQueryParameterException (400) si el texto es demasiado corto.
+     */
+    public static String toContainsPattern(String query) {
+        if (query == null || query.isBlank()) return null;
+
+        String text = query.trim();
+        if (text.length() < MIN_SEARCH_LENGTH) {
+            throw new InvalidQueryParameterException(
+                    "La búsqueda (q) debe tener al menos " + MIN_SEARCH_LENGTH + " caracteres");
+        }
+        String escaped = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
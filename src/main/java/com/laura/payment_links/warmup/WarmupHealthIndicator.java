@@ -0,0 +1,31 @@
+package com.laura.payment_links.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resultado del calentamiento en /actuator/health (componente "warmup").
+ * - UNKNOWN mientras no terminó (o si está deshabilitado).
+ * - UP si todos los pasos terminaron bien.
+ * - DEGRADED con los pasos fallidos y su error: la instancia atiende, pero las primeras peticiones
+ *   pagan lo que no se calentó. DEGRADED se ordena antes que UP (management.endpoint.health.status.order).
+ */
+@Component("warmup")
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    public static final String DEGRADED = "DEGRADED";
+
+    private final WarmupRunner warmupRunner;
+
+    public WarmupHealthIndicator(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
+    @Override
+    public Health health() {
+        if (!warmupRunner.isCompleted()) return Health.unknown().build();
+        if (warmupRunner.getFailedSteps().isEmpty()) return Health.up().build();
+        return Health.status(DEGRADED).withDetail("failedSteps", warmupRunner.getFailedSteps()).build();
+    }
+}
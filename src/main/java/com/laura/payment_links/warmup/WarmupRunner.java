@@ -0,0 +1,293 @@
+package com.laura.payment_links.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laura.payment_links.dto.request.CreatePaymentLinkRequest;
+import com.laura.payment_links.exception.PaymentLinkNotFoundException;
+import com.laura.payment_links.model.*;
+import com.laura.payment_links.repository.PaymentAttemptRepository;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.security.JWTAuthtenticationConfig;
+import com.laura.payment_links.security.JwtTokenValidator;
+import com.laura.payment_links.service.PaymentLinkService;
+import com.laura.payment_links.service.TransactionRunner;
+import com.laura.payment_links.sharding.ShardContext;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.util.LinkIdentifier;
+import com.laura.payment_links.util.PaymentLinkFilter;
+import com.laura.payment_links.util.PaymentLinkMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Calentamiento al arrancar, antes de recibir tráfico: llena el pool de conexiones, prepara las
+ * consultas de los repositorios (plan de Hibernate) y ejercita mapper, JWT, BCrypt, Jackson y las
+ * lecturas del servicio con tráfico sintético de solo lectura (un comercio inexistente, sin escrituras).
+ *
+ * Spring Boot publica ReadinessState.ACCEPTING_TRAFFIC después de ejecutar los ApplicationRunner,
+ * así que /actuator/health/readiness responde OUT_OF_SERVICE hasta que este calentamiento termina.
+ * Es de mejor esfuerzo: cada paso se ejecuta aunque falle el anterior y un fallo no impide el arranque,
+ * pero queda visible: el timer payment_links.warmup.duration lleva outcome=success|failure,
+ * payment_links.warmup.failures cuenta los pasos fallidos y el health "warmup" queda DEGRADED (WarmupHealthIndicator).
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE) // Después del rebalanceo de shards
+public class WarmupRunner implements ApplicationRunner {
+
+    private final DataSource dataSource;
+    private final ShardRouter shardRouter;
+    private final TransactionRunner transactions;
+    private final PaymentLinkRepository paymentLinkRepository;
+    private final PaymentAttemptRepository paymentAttemptRepository;
+    private final PaymentLinkService paymentLinkService;
+    private final PaymentLinkMapper mapper;
+    private final JWTAuthtenticationConfig jwtAuthenticationConfig;
+    private final JwtTokenValidator jwtTokenValidator;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int connections;
+    private final int iterations;
+    private final int queryRounds;
+
+    // Estado para WarmupHealthIndicator: paso -> error de los pasos fallidos
+    private volatile boolean completed;
+    private volatile Map<String, String> failedSteps = Map.of();
+
+    public WarmupRunner(DataSource dataSource,
+                        ShardRouter shardRouter,
+                        TransactionRunner transactions,
+                        PaymentLinkRepository paymentLinkRepository,
+                        PaymentAttemptRepository paymentAttemptRepository,
+                        PaymentLinkService paymentLinkService,
+                        PaymentLinkMapper mapper,
+                        JWTAuthtenticationConfig jwtAuthenticationConfig,
+                        JwtTokenValidator jwtTokenValidator,
+                        PasswordEncoder passwordEncoder,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${payment-links.warmup.enabled:true}") boolean enabled,
+                        @Value("${payment-links.warmup.connections:${payment-links.workloads.interactive.max-size:${spring.datasource.hikari.maximum-pool-size:10}}}") int connections,
+                        @Value("${payment-links.warmup.iterations:2000}") int iterations,
+                        @Value("${payment-links.warmup.query-rounds:5}") int queryRounds) {
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.transactions = transactions;
+        this.paymentLinkRepository = paymentLinkRepository;
+        this.paymentAttemptRepository = paymentAttemptRepository;
+        this.paymentLinkService = paymentLinkService;
+        this.mapper = mapper;
+        this.jwtAuthenticationConfig = jwtAuthenticationConfig;
+        this.jwtTokenValidator = jwtTokenValidator;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.connections = connections;
+        this.iterations = iterations;
+        this.queryRounds = queryRounds;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+
+        long start = System.nanoTime();
+        Map<String, String> failed = new LinkedHashMap<>();
+        runStep("connection-pools", this::fillConnectionPools, failed);
+        runStep("queries", this::prepareQueries, failed);
+        runStep("in-memory", this::exerciseInMemoryPaths, failed);
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("payment_links.warmup.duration")
+                .description("Duración del calentamiento al arrancar")
+                .tag("outcome", failed.isEmpty() ? "success" : "failure")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(elapsed));
+        failedSteps = Map.copyOf(failed);
+        completed = true;
+
+        if (failed.isEmpty()) {
+            log.info("Calentamiento completado en {} ms", elapsed / 1_000_000);
+        } else {
+            log.error("Calentamiento incompleto en {} ms; pasos fallidos: {}", elapsed / 1_000_000, failed.keySet());
+        }
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public Map<String, String> getFailedSteps() {
+        return failedSteps;
+    }
+
+    /**
+     * Ejecuta un paso del calentamiento; si falla lo registra (log, contador y health) y sigue con el siguiente.
+     * @UsedBy run()
+     */
+    private void runStep(String step, Runnable work, Map<String, String> failed) {
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            log.warn("Falló el paso {} del calentamiento; se continúa con el siguiente", step, e);
+            failed.put(step, e.toString());
+            meterRegistry.counter("payment_links.warmup.failures", "step", step).increment();
+        }
+    }
+
+    /**
+     * Toma a la vez hasta "connections" conexiones de cada shard y las devuelve,
+     * para que las primeras peticiones no paguen el handshake con PostgreSQL.
+     * @UsedBy run()
+     */
+    private void fillConnectionPools() {
+        List<String> partial = new ArrayList<>();
+        for (int shard : shardRouter.shards()) {
+            ShardContext.call(shard, () -> {
+                List<Connection> borrowed = new ArrayList<>(connections);
+                try {
+                    for (int i = 0; i < connections; i++) {
+                        borrowed.add(dataSource.getConnection());
+                    }
+                } catch (SQLException e) {
+                    log.warn("Shard {}: pool de conexiones precargado parcialmente ({} de {})",
+                            shard, borrowed.size(), connections, e);
+                    partial.add("shard " + shard + ": " + borrowed.size() + " de " + connections);
+                } finally {
+                    borrowed.forEach(WarmupRunner::closeQuietly);
+                }
+                return null;
+            });
+        }
+        if (!partial.isEmpty()) {
+            throw new IllegalStateException("Pools de conexiones precargados parcialmente: " + partial);
+        }
+    }
+
+    /**
+     * Ejecuta cada consulta de los repositorios (Hibernate compila y cachea el plan en la primera
+     * ejecución) y las lecturas del servicio con un comercio inexistente: no devuelven filas.
+     * @UsedBy run()
+     */
+    private void prepareQueries() {
+        UUID merchantId = UUID.randomUUID();
+        UUID linkId = UUID.randomUUID();
+        PaymentLinkFilter noFilters = PaymentLinkFilter.builder().build();
+        PaymentLinkFilter allFilters = PaymentLinkFilter.builder()
+                .status(PaymentLinkStatus.CREATED)
+                .minAmount(1)
+                .maxAmount(1_000_000)
+                .fromDate(Instant.now().minus(Duration.ofDays(30)))
+                .toDate(Instant.now())
+                .metadata(Map.of("orderId", "123"))
+                .query("PL-2026")
+                .build();
+
+        for (int round = 0; round < queryRounds; round++) {
+            paymentLinkService.getPaymentLinks(merchantId, noFilters, PageRequest.of(0, 20), true);
+            paymentLinkService.getPaymentLinks(merchantId, allFilters, PageRequest.of(0, 20), false);
+            for (String identifier : List.of(linkId.toString(), "PL-2026-000001")) {
+                try {
+                    paymentLinkService.getPaymentLinkDetails(merchantId, identifier, PageRequest.of(0, 20));
+                } catch (PaymentLinkNotFoundException expected) {
+                    // El link no existe: solo interesa la ruta de la consulta
+                }
+            }
+
+            transactions.read(merchantId, () -> {
+                paymentLinkRepository.findByIdAndMerchantId(linkId, merchantId);
+                paymentLinkRepository.findByReferenceAndMerchantId("PL-2026-000001", merchantId);
+                paymentLinkRepository.findKeysCreatedSince(Instant.now());
+                paymentAttemptRepository.findByPaymentLinkIdAndIdempotencyKey(linkId, "warmup");
+                paymentAttemptRepository.findByPaymentLinkIdOrderByCreatedAtDesc(linkId, PageRequest.of(0, 20));
+                paymentAttemptRepository.findLatestByPaymentLinkIds(List.of(linkId));
+                return null;
+            });
+            // Consulta con bloqueo del job de expiración: con Instant.EPOCH no bloquea filas
+            for (int shard : shardRouter.shards()) {
+                transactions.writeOnShard(shard, () ->
+                        paymentLinkRepository.findLinksToExpire(Instant.EPOCH, PageRequest.of(0, 1)));
+            }
+        }
+    }
+
+    /**
+     * Mapper (MapStruct), serialización JSON, emisión y validación de JWT y BCrypt, en memoria.
+     * @UsedBy run()
+     */
+    private void exerciseInMemoryPaths() {
+        Merchant merchant = Merchant.builder()
+                .id(UUID.randomUUID())
+                .name("Warmup")
+                .email("warmup@example.com")
+                .createdAt(Instant.now())
+                .build();
+        CreatePaymentLinkRequest request = CreatePaymentLinkRequest.builder()
+                .amountCents(15_000)
+                .currency("COP")
+                .description("Calentamiento")
+                .expiresInMinutes(60)
+                .metadata(Map.of("orderId", "123", "customer", Map.of("id", 42)))
+                .build();
+
+        String passwordHash = passwordEncoder.encode("warmup-password");
+        passwordEncoder.matches("warmup-password", passwordHash);
+
+        try {
+            for (int i = 0; i < iterations; i++) {
+                PaymentLink link = mapper.fromCreateRequest(request, merchant);
+                link.setId(UUID.randomUUID());
+                link.setMerchant(merchant);
+                link.setReference(LinkIdentifier.parse("PL-2026-000001").reference());
+                link.setExpiresAt(Instant.now().plus(Duration.ofMinutes(60)));
+                PaymentAttempt attempt = PaymentAttempt.builder()
+                        .id(UUID.randomUUID())
+                        .paymentLink(link)
+                        .status(PaymentAttemptStatus.SUCCESS)
+                        .createdAt(Instant.now())
+                        .build();
+
+                objectMapper.writeValueAsBytes(mapper.toResponse(link));
+                objectMapper.writeValueAsBytes(mapper.toDetailsResponse(link));
+                objectMapper.writeValueAsBytes(mapper.toAttemptResponse(attempt));
+                objectMapper.readValue(objectMapper.writeValueAsBytes(request), CreatePaymentLinkRequest.class);
+
+                String token = jwtAuthenticationConfig.getJWTToken(merchant.getEmail(), merchant.getId());
+                jwtTokenValidator.validateAndGetMerchantId(token);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error serializando en el calentamiento", e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Se devuelve al pool; un error aquí no afecta el calentamiento
+        }
+    }
+}
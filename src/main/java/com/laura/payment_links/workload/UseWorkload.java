@@ -0,0 +1,19 @@
+package com.laura.payment_links.workload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ejecuta el método con las conexiones del pool de la clase de trabajo indicada.
+ * Aplica a las llamadas que pasan por el proxy del bean (no a llamadas internas con this).
+ * Los hilos que el método cree no heredan la clase: hay que propagarla con WorkloadContext.call().
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UseWorkload {
+    Workload value();
+}
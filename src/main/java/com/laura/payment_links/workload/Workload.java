@@ -0,0 +1,16 @@
+package com.laura.payment_links.workload;
+
+/**
+ * Clase de trabajo de una operación; cada una toma conexiones de su propio pool.
+ * Sin @UseWorkload (peticiones de la API) se usa INTERACTIVE.
+ */
+public enum Workload {
+    INTERACTIVE,    // Peticiones de la API (crear, pagar, consultar)
+    BATCH,          // Jobs de fondo: expiración, rollups, recargas de filtros e índices
+    REPORTING;      // Reportes y consultas analíticas (liquidación, series de volumen)
+
+    // Sufijo del nombre del pool (etiqueta pool de las métricas hikaricp.*)
+    public String poolSuffix() {
+        return name().toLowerCase();
+    }
+}
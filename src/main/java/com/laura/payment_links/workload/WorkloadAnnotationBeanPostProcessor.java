@@ -0,0 +1,22 @@
+package com.laura.payment_links.workload;
+
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.core.Ordered;
+
+/**
+ * Envuelve en un proxy los beans con métodos @UseWorkload (o agrega el advisor si ya son proxies).
+ * Se ordena antes que el procesador de @Scheduled para que las tareas programadas se registren
+ * sobre el proxy y no sobre el bean original.
+ */
+class WorkloadAnnotationBeanPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    WorkloadAnnotationBeanPostProcessor() {
+        this.advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(UseWorkload.class), new WorkloadInterceptor());
+        setProxyTargetClass(true);
+        setBeforeExistingAdvisors(true);
+        setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+    }
+}
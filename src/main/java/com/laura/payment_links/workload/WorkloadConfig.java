@@ -0,0 +1,55 @@
+package com.laura.payment_links.workload;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * Pools de conexiones separados por clase de trabajo (interactivo, batch, reporting), para que un job
+ * o un reporte lento no deje sin conexiones a la API: cada clase solo puede ocupar las de su pool.
+ * Sin sharding reemplaza al DataSource de spring.datasource.*; con sharding los crea ShardingConfig por shard.
+ */
+@Configuration
+@EnableConfigurationProperties(WorkloadProperties.class)
+public class WorkloadConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${payment-links.workloads.enabled:true} and !${payment-links.sharding.enabled:false}")
+    public WorkloadPools workloadPools(DataSourceProperties dataSourceProperties,
+                                       WorkloadProperties properties,
+                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                       @Value("${payment-links.workloads.interactive.max-size:${spring.datasource.hikari.maximum-pool-size:10}}") int interactiveSize) {
+        return WorkloadPools.create("payment-links",
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                interactiveSize,
+                properties,
+                meterRegistry.getIfAvailable());
+    }
+
+    // DataSource principal de JPA: enruta cada conexión al pool de WorkloadContext
+    @Bean
+    @Primary
+    @ConditionalOnExpression("${payment-links.workloads.enabled:true} and !${payment-links.sharding.enabled:false}")
+    public DataSource dataSource(WorkloadPools workloadPools) {
+        return workloadPools.dataSource();
+    }
+
+    // Aplica @UseWorkload en los jobs y servicios que lo declaran
+    @Bean
+    @ConditionalOnProperty(name = "payment-links.workloads.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor workloadAnnotationPostProcessor() {
+        return new WorkloadAnnotationBeanPostProcessor();
+    }
+}
@@ -0,0 +1,47 @@
+package com.laura.payment_links.workload;
+
+import java.util.function.Supplier;
+
+/**
+ * Clase de trabajo de la operación actual (ThreadLocal), leída por WorkloadRoutingDataSource al pedir una conexión.
+ * Sin clase asignada se usa el pool interactivo.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static Workload current() {
+        return CURRENT.get();
+    }
+
+    // Ejecuta work con la clase indicada y restaura la anterior (permite anidar; null = interactiva)
+    public static <T> T call(Workload workload, Supplier<T> work) {
+        Workload previous = enter(workload);
+        try {
+            return work.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static Workload enter(Workload workload) {
+        Workload previous = CURRENT.get();
+        if (workload == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(workload);
+        }
+        return previous;
+    }
+
+    static void restore(Workload previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.laura.payment_links.workload;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fija la clase de trabajo de @UseWorkload durante la llamada
+class WorkloadInterceptor implements MethodInterceptor {
+
+    private final Map<Method, Workload> workloads = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Workload previous = WorkloadContext.enter(workloadOf(invocation));
+        try {
+            return invocation.proceed();
+        } finally {
+            WorkloadContext.restore(previous);
+        }
+    }
+
+    private Workload workloadOf(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+        Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        return workloads.computeIfAbsent(method, m -> {
+            UseWorkload annotation = AnnotatedElementUtils.findMergedAnnotation(m, UseWorkload.class);
+            return annotation != null ? annotation.value() : Workload.INTERACTIVE;
+        });
+    }
+}
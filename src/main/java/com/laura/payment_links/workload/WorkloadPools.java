@@ -0,0 +1,70 @@
+package com.laura.payment_links.workload;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Los tres pools (interactivo, batch y reporting) de una base de datos y el DataSource que los enruta.
+ * No es un DataSource (no lo envuelve ConnectionHoldTimeConfig); quien lo crea lo cierra.
+ * Cada pool publica sus métricas hikaricp.* con la etiqueta pool=<nombre>-<clase>.
+ */
+public class WorkloadPools implements Closeable {
+
+    private final Map<Workload, HikariDataSource> pools;
+    private final DataSource dataSource;
+
+    private WorkloadPools(Map<Workload, HikariDataSource> pools) {
+        this.pools = pools;
+        this.dataSource = new WorkloadRoutingDataSource(pools);
+    }
+
+    /**
+     * Crea los pools contra una misma base de datos.
+     * @param interactiveSize conexiones del pool interactivo (con sharding, el pool-size por shard).
+     * @param meterRegistry registro de métricas; null para no publicarlas.
+     */
+    public static WorkloadPools create(String name, String url, String username, String password, int interactiveSize,
+                                       WorkloadProperties properties, MeterRegistry meterRegistry) {
+        Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+        for (Workload workload : Workload.values()) {
+            WorkloadProperties.Pool pool = properties.pool(workload);
+            int maxSize = workload == Workload.INTERACTIVE ? interactiveSize : pool.getMaxSize();
+
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name + "-" + workload.poolSuffix());
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(maxSize);
+            if (pool.getMinIdle() != null) {
+                dataSource.setMinimumIdle(Math.min(pool.getMinIdle(), maxSize));
+            }
+            dataSource.setConnectionTimeout(pool.getConnectionTimeoutMs());
+            if (meterRegistry != null) {
+                dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+            pools.put(workload, dataSource);
+        }
+        return new WorkloadPools(pools);
+    }
+
+    // DataSource enrutador por WorkloadContext
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public DataSource get(Workload workload) {
+        return pools.get(workload);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,44 @@
+package com.laura.payment_links.workload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Pools por clase de trabajo (payment-links.workloads.*).
+ * Con enabled=false se usa un único pool (spring.datasource.* o uno por shard).
+ * Con sharding, cada shard tiene sus tres pools y el interactivo usa payment-links.sharding.pool-size.
+ */
+@Data
+@ConfigurationProperties(prefix = "payment-links.workloads")
+public class WorkloadProperties {
+
+    private boolean enabled = true;
+
+    // minIdle null = pool de tamaño fijo (recomendado para el tráfico de la API).
+    // Sin sharding, max-size toma por defecto spring.datasource.hikari.maximum-pool-size (WorkloadConfig)
+    private Pool interactive = new Pool(10, null, 30_000);
+
+    // Los pools de fondo se abren bajo demanda y su tamaño es el tope de conexiones que pueden ocupar
+    private Pool batch = new Pool(4, 0, 30_000);
+
+    private Pool reporting = new Pool(4, 0, 60_000);
+
+    public Pool pool(Workload workload) {
+        return switch (workload) {
+            case INTERACTIVE -> interactive;
+            case BATCH -> batch;
+            case REPORTING -> reporting;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int maxSize;
+        private Integer minIdle;
+        private long connectionTimeoutMs;   // Espera máxima por una conexión cuando el pool está agotado
+    }
+}
@@ -0,0 +1,76 @@
+-- Índices que JPA (@Index) no puede expresar.
+-- Se ejecuta en cada arranque después de que Hibernate crea/actualiza las tablas
+-- (spring.jpa.defer-datasource-initialization=true), por eso todo es IF NOT EXISTS, y los cambios únicos
+-- (datos o restricciones) consultan el catálogo antes de tocar la tabla.
+
+-- Filtros por metadata (metadata @> '{"orderId":"123"}')
+CREATE INDEX IF NOT EXISTS idx_payment_links_metadata_gin
+    ON payment_links USING gin (metadata jsonb_path_ops);
+
+-- Búsqueda por fragmentos (q=) con ILIKE '%texto%' sobre description y reference, siempre dentro de un comercio.
+-- btree_gin permite poner merchant_id en el mismo GIN: el índice solo devuelve filas del comercio, en lugar de
+-- todas las coincidencias de la tabla que después se filtran por merchant_id. description y reference van en una
+-- sola expresión (la misma que usa PaymentLinkSearchRepositoryImpl): un recorrido del índice en lugar de dos.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX IF NOT EXISTS idx_payment_links_merchant_text_trgm
+    ON payment_links USING gin (merchant_id, (coalesce(description, '') || ' ' || reference) gin_trgm_ops);
+
+-- Reemplazados por el anterior
+DROP INDEX IF EXISTS idx_payment_links_description_trgm;
+DROP INDEX IF EXISTS idx_payment_links_reference_trgm;
+
+-- Liquidaciones diarias (SettlementReportGenerator): solo links PAID, por día y por comercio
+CREATE INDEX IF NOT EXISTS idx_payment_links_paid_day
+    ON payment_links (paid_at, merchant_id) WHERE status = 'PAID';
+
+CREATE INDEX IF NOT EXISTS idx_payment_links_merchant_paid
+    ON payment_links (merchant_id, paid_at) WHERE status = 'PAID';
+
+-- Rollup horario (VolumeRollupService): links sin updated_at (anteriores a la columna) toman created_at.
+-- Cambio único: mientras la columna admita NULL se completa y después queda NOT NULL; desde entonces el bloque solo
+-- consulta pg_attribute. Hibernate (@UpdateTimestamp) la asigna también en el alta.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = ''payment_links''::regclass AND attname = ''updated_at'' AND NOT attnotnull) THEN
+        UPDATE payment_links SET updated_at = created_at WHERE updated_at IS NULL;
+        ALTER TABLE payment_links ALTER COLUMN updated_at SET NOT NULL;
+    END IF;
+END';
+
+-- Recalcular una hora de un comercio: creados por created_at, expirados por expires_at (pagados usan idx_payment_links_merchant_paid)
+CREATE INDEX IF NOT EXISTS idx_payment_links_merchant_created
+    ON payment_links (merchant_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_payment_links_merchant_expired
+    ON payment_links (merchant_id, expires_at) WHERE status = 'EXPIRED';
+
+-- Pagos reservados (PENDING): Hibernate no actualiza el CHECK del enum con ddl-auto=update.
+-- Cambio único: solo si el CHECK existente todavía no admite PENDING. Se agrega NOT VALID (bloqueo breve, sin
+-- recorrer la tabla) y se valida aparte, con un bloqueo que no detiene lecturas ni escrituras.
+-- Los bloques DO van entre comillas simples (no $$): el separador de spring.sql.init no entiende $$.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint
+               WHERE conrelid = ''payment_attempts''::regclass AND conname = ''payment_attempts_status_check''
+                 AND pg_get_constraintdef(oid) NOT LIKE ''%PENDING%'') THEN
+        ALTER TABLE payment_attempts DROP CONSTRAINT payment_attempts_status_check;
+        ALTER TABLE payment_attempts ADD CONSTRAINT payment_attempts_status_check
+            CHECK (status IN (''PENDING'', ''SUCCESS'', ''FAILED'')) NOT VALID;
+    END IF;
+END';
+
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_constraint
+               WHERE conrelid = ''payment_attempts''::regclass AND conname = ''payment_attempts_status_check''
+                 AND NOT convalidated) THEN
+        ALTER TABLE payment_attempts VALIDATE CONSTRAINT payment_attempts_status_check;
+    END IF;
+END';
+
+-- Cierre de intentos PENDING huérfanos (PaymentLinkService.expirePaymentLinks)
+CREATE INDEX IF NOT EXISTS idx_payment_attempts_pending
+    ON payment_attempts (created_at) WHERE status = 'PENDING';
@@ -0,0 +1,67 @@
+-- Esquema de las tablas para los shards (payment-links.sharding.enabled=true).
+-- Sin sharding lo genera Hibernate (ddl-auto=update) a partir de las entidades; mantener ambos alineados.
+-- Se ejecuta en cada shard al arrancar, por eso todo es IF NOT EXISTS.
+
+CREATE TABLE IF NOT EXISTS merchants (
+    id            uuid PRIMARY KEY,
+    name          varchar(255) NOT NULL,
+    email         varchar(255) NOT NULL UNIQUE,
+    password_hash varchar(255) NOT NULL,
+    created_at    timestamp(6) with time zone NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS payment_links (
+    id           uuid PRIMARY KEY,
+    merchant_id  uuid NOT NULL REFERENCES merchants (id),
+    reference    varchar(255) NOT NULL UNIQUE,
+    amount_cents integer NOT NULL CHECK (amount_cents >= 1),
+    currency     varchar(3) NOT NULL,
+    description  varchar(255) NOT NULL,
+    status       varchar(255) NOT NULL CHECK (status IN ('CREATED', 'PAID', 'CANCELLED', 'EXPIRED')),
+    expires_at   timestamp(6) with time zone NOT NULL,
+    paid_at      timestamp(6) with time zone,
+    metadata     jsonb,
+    created_at   timestamp(6) with time zone NOT NULL,
+    updated_at   timestamp(6) with time zone NOT NULL,
+    version      bigint DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_links_expires_at ON payment_links (expires_at);
+CREATE INDEX IF NOT EXISTS idx_payment_links_merchant_status ON payment_links (merchant_id, status);
+CREATE INDEX IF NOT EXISTS idx_payment_links_created_at ON payment_links (created_at);
+CREATE INDEX IF NOT EXISTS idx_payment_links_updated_at ON payment_links (updated_at);
+
+CREATE TABLE IF NOT EXISTS payment_attempts (
+    id              uuid PRIMARY KEY,
+    payment_link_id uuid NOT NULL REFERENCES payment_links (id),
+    status          varchar(255) NOT NULL CHECK (status IN ('PENDING', 'SUCCESS', 'FAILED')),
+    reason          varchar(255),
+    idempotency_key varchar(255),
+    needs_reconciliation boolean DEFAULT false NOT NULL,
+    created_at      timestamp(6) with time zone NOT NULL,
+    UNIQUE (payment_link_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_attempts_link_created ON payment_attempts (payment_link_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_payment_attempts_pending ON payment_attempts (created_at) WHERE status = 'PENDING';
+
+CREATE TABLE IF NOT EXISTS merchant_volume_hourly (
+    merchant_id          uuid NOT NULL,
+    currency             varchar(3) NOT NULL,
+    hour_start           timestamp(6) with time zone NOT NULL,
+    created_count        bigint NOT NULL,
+    created_amount_cents bigint NOT NULL,
+    paid_count           bigint NOT NULL,
+    paid_amount_cents    bigint NOT NULL,
+    expired_count        bigint NOT NULL,
+    expired_amount_cents bigint NOT NULL,
+    updated_at           timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (merchant_id, currency, hour_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_merchant_volume_hourly_merchant_hour ON merchant_volume_hourly (merchant_id, hour_start);
+
+CREATE TABLE IF NOT EXISTS rollup_watermarks (
+    name      varchar(255) PRIMARY KEY,
+    watermark timestamp(6) with time zone NOT NULL
+);
@@ -0,0 +1,156 @@
+package com.laura.payment_links.loadtest;
+
+import com.laura.payment_links.PaymentLinksApplication;
+import com.laura.payment_links.reactive.ReactivePaymentLinksApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara GET /payment-links y GET /payment-links/{identifier} entre la API MVC (JPA) y la reactiva (R2DBC)
+ * sobre la misma base de datos embebida, con alta concurrencia de clientes.
+ * Ejecutar con: mvn -Preactive,perf test -Dtest=ReactiveVsMvcBenchmark
+ *   -Dbenchmark.concurrency=512 -Dbenchmark.duration-seconds=30 -Dbenchmark.warmup-seconds=10
+ * Los datos se crean a través de la API MVC; cada API escribe su reporte en target/load-test/.
+ */
+@Tag("perf")
+class ReactiveVsMvcBenchmark {
+
+    @Test
+    void compareReadEndpoints() throws Exception {
+        int concurrency = Integer.getInteger("benchmark.concurrency", 512);
+        int durationSeconds = Integer.getInteger("benchmark.duration-seconds", 30);
+        int warmupSeconds = Integer.getInteger("benchmark.warmup-seconds", 10);
+        int merchantCount = Integer.getInteger("benchmark.merchants", 20);
+        int linksPerMerchant = Integer.getInteger("benchmark.links", 100);
+        int poolSize = Integer.getInteger("benchmark.pool-size", 20);
+        LoadTestHarness.Mix mix = new LoadTestHarness.Mix(System.getProperty("benchmark.mix", "list:40,details:60"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            // Configuración como argumentos: .properties() solo fija valores por defecto y application.properties los pisaría
+            ConfigurableApplicationContext mvc = new SpringApplicationBuilder(PaymentLinksApplication.class)
+                    .web(WebApplicationType.SERVLET)
+                    .run(
+                            "--server.port=0",
+                            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                            "--spring.datasource.username=postgres",
+                            "--spring.datasource.password=",
+                            "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                            "--server.tomcat.threads.max=200",
+                            "--spring.jpa.show-sql=false",
+                            "--payment-links.journal.dir=target/load-test/journal",
+                            "--payment-links.reports.settlement.output-dir=target/load-test/settlement",
+                            "--spring.devtools.restart.enabled=false");
+            ConfigurableApplicationContext reactive = null;
+            ExecutorService httpExecutor = Executors.newFixedThreadPool(8);
+            try {
+                // Misma cantidad de conexiones a la base de datos para ambas APIs
+                reactive = new SpringApplicationBuilder(ReactivePaymentLinksApplication.class)
+                        .web(WebApplicationType.REACTIVE)
+                        .profiles("reactive")
+                        .run(
+                                "--server.port=0",
+                                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                                "--spring.r2dbc.username=postgres",
+                                "--spring.r2dbc.password=",
+                                "--spring.r2dbc.pool.initial-size=" + poolSize,
+                                "--spring.r2dbc.pool.max-size=" + poolSize,
+                                "--spring.devtools.restart.enabled=false");
+
+                HttpClient http = HttpClient.newBuilder()
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .executor(httpExecutor)
+                        .build();
+                String mvcUrl = "http://localhost:" + ((ServletWebServerApplicationContext) mvc).getWebServer().getPort();
+                String reactiveUrl = "http://localhost:"
+                        + ((ReactiveWebServerApplicationContext) reactive).getWebServer().getPort();
+
+                // Datos iniciales por la API MVC (la reactiva es de solo lectura)
+                LoadTestHarness.Client seeder = new LoadTestHarness.Client(http, mvcUrl);
+                List<LoadTestHarness.Merchant> merchants = new ArrayList<>();
+                for (int i = 0; i < merchantCount; i++) {
+                    LoadTestHarness.Merchant merchant = seeder.login(seeder.register(null), null);
+                    for (int j = 0; j < linksPerMerchant; j++) {
+                        seeder.create(merchant, null);
+                    }
+                    merchants.add(merchant);
+                }
+
+                Map<String, Object> settings = new LinkedHashMap<>();
+                settings.put("concurrency", concurrency);
+                settings.put("durationSeconds", durationSeconds);
+                settings.put("warmupSeconds", warmupSeconds);
+                settings.put("merchants", merchantCount);
+                settings.put("linksPerMerchant", linksPerMerchant);
+                settings.put("databasePoolSize", poolSize);
+
+                for (Map.Entry<String, String> target : List.of(Map.entry("mvc", mvcUrl), Map.entry("reactive", reactiveUrl))) {
+                    LoadTestHarness.Client client = new LoadTestHarness.Client(http, target.getValue());
+                    runWorkers(client, merchants, mix, concurrency, null, warmupSeconds);
+
+                    LoadReport report = new LoadReport();
+                    long start = System.nanoTime();
+                    runWorkers(client, merchants, mix, concurrency, report, durationSeconds);
+                    double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+                    Map<String, Object> targetSettings = new LinkedHashMap<>(settings);
+                    targetSettings.put("target", target.getKey());
+                    Path file = Path.of("target/load-test/reactive-vs-mvc-" + target.getKey() + ".json");
+                    report.write(file, targetSettings, elapsedSeconds);
+                    assertTrue(file.toFile().exists(), "No se generó el reporte de " + target.getKey());
+                }
+            } finally {
+                httpExecutor.shutdownNow();
+                if (reactive != null) reactive.close();
+                mvc.close();
+            }
+        }
+    }
+
+    private void runWorkers(LoadTestHarness.Client client, List<LoadTestHarness.Merchant> merchants,
+                            LoadTestHarness.Mix mix, int concurrency, LoadReport report, int seconds)
+            throws InterruptedException {
+        if (seconds <= 0) return;
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    LoadTestHarness.Merchant merchant = merchants.get(random.nextInt(merchants.size()));
+                    try {
+                        switch (mix.next(random)) {
+                            case "list" -> client.list(merchant, report);
+                            case "details" -> client.details(merchant, report);
+                            default -> throw new IllegalStateException("Solo se comparan list y details");
+                        }
+                    } catch (Exception e) {
+                        if (report != null) report.record("client-error", -1, 0);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,191 @@
+package com.laura.payment_links.reactive;
+
+import com.laura.payment_links.dto.response.PageResponse;
+import com.laura.payment_links.exception.ApiError;
+import com.laura.payment_links.exception.AuthException;
+import com.laura.payment_links.exception.GlobalExceptionHandler;
+import com.laura.payment_links.exception.InvalidQueryParameterException;
+import com.laura.payment_links.exception.PaymentLinkNotFoundException;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import com.laura.payment_links.security.JwtTokenValidator;
+import com.laura.payment_links.util.LinkIdentifier;
+import com.laura.payment_links.util.MetadataFilters;
+import com.laura.payment_links.util.PaymentLinkFields;
+import com.laura.payment_links.util.PaymentLinkFilter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Handlers funcionales de la API reactiva. Mismos parámetros, DTOs y errores (ApiError)
+ * que PaymentLinkController para GET /payment-links y GET /payment-links/{identifier}.
+ */
+public class ReactivePaymentLinkHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 2000;
+    private static final int MAX_ATTEMPTS_PAGE_SIZE = 100;
+
+    private final ReactivePaymentLinkQueries queries;
+    private final JwtTokenValidator jwtTokenValidator;
+    private final GlobalExceptionHandler exceptionHandler;
+
+    public ReactivePaymentLinkHandler(ReactivePaymentLinkQueries queries, JwtTokenValidator jwtTokenValidator,
+                                      GlobalExceptionHandler exceptionHandler) {
+        this.queries = queries;
+        this.jwtTokenValidator = jwtTokenValidator;
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * GET /payment-links: listado con filtros (status, montos, fechas, q, metadata.*, fields, page/size/sort).
+     */
+    public Mono<ServerResponse> getPaymentLinks(ServerRequest request) {
+        return Mono.defer(() -> {
+            UUID merchantId = extractMerchantId(request);
+            Set<String> selectedFields = PaymentLinkFields.parse(param(request, "fields"));
+
+            PaymentLinkFilter filter = PaymentLinkFilter.builder()
+                    .status(parseStatus(param(request, "status")))
+                    .minAmount(parseInteger(request, "minAmount"))
+                    .maxAmount(parseInteger(request, "maxAmount"))
+                    .fromDate(parseInstant(request, "fromDate"))
+                    .toDate(parseInstant(request, "toDate"))
+                    .metadata(MetadataFilters.fromQueryParams(request.queryParams().toSingleValueMap()))
+                    .query(param(request, "q"))
+                    .build();
+            boolean includeLatestAttempt = Boolean.parseBoolean(param(request, "includeLatestAttempt"));
+
+            return queries.search(merchantId, filter, parsePageable(request), includeLatestAttempt)
+                    .map(page -> selectedFields == null
+                            ? page
+                            : page.map(link -> PaymentLinkFields.select(link, selectedFields)))
+                    .flatMap(page -> ServerResponse.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(PageResponse.of(page)));
+        }).onErrorResume(this::toErrorResponse);
+    }
+
+    /**
+     * GET /payment-links/{identifier}: detalle por UUID o referencia, con historial de intentos opcional.
+     */
+    public Mono<ServerResponse> getPaymentLinkDetails(ServerRequest request) {
+        return Mono.defer(() -> {
+            UUID merchantId = extractMerchantId(request);
+            String identifier = request.pathVariable("identifier");
+            LinkIdentifier linkIdentifier = LinkIdentifier.parse(identifier);
+            if (!linkIdentifier.isValid()) {
+                throw new PaymentLinkNotFoundException(identifier);
+            }
+
+            boolean includeAttempts = Boolean.parseBoolean(param(request, "includeAttempts"));
+            Pageable attemptsPageable = includeAttempts
+                    ? PageRequest.of(Math.max(parseInt(request, "attemptsPage", 0), 0),
+                            Math.min(Math.max(parseInt(request, "attemptsSize", 20), 1), MAX_ATTEMPTS_PAGE_SIZE))
+                    : null;
+
+            return queries.findDetails(merchantId, linkIdentifier)
+                    .switchIfEmpty(Mono.error(() -> new PaymentLinkNotFoundException(identifier)))
+                    .flatMap(details -> attemptsPageable == null
+                            ? Mono.just(details)
+                            : queries.findAttempts(details.getId(), attemptsPageable).map(attempts -> {
+                                details.setAttempts(attempts);
+                                return details;
+                            }))
+                    .flatMap(details -> ServerResponse.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(details));
+        }).onErrorResume(this::toErrorResponse);
+    }
+
+    // Métodos auxiliares
+
+    private UUID extractMerchantId(ServerRequest request) {
+        return jwtTokenValidator.validateAndGetMerchantId(request.headers().firstHeader(HttpHeaders.AUTHORIZATION));
+    }
+
+    /**
+     * Traduce las excepciones de negocio con los mismos handlers que usa la API MVC.
+     * El resto se propaga al manejo de errores por defecto de WebFlux (500).
+     */
+    private Mono<ServerResponse> toErrorResponse(Throwable error) {
+        ResponseEntity<ApiError> response;
+        if (error instanceof AuthException e) {
+            response = exceptionHandler.handleAuthException(e);
+        } else if (error instanceof InvalidQueryParameterException e) {
+            response = exceptionHandler.handleInvalidQueryParameter(e);
+        } else if (error instanceof PaymentLinkNotFoundException e) {
+            response = exceptionHandler.handleNotFound(e);
+        } else {
+            return Mono.error(error);
+        }
+        return ServerResponse.status(response.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(response.getBody());
+    }
+
+    private String param(ServerRequest request, String name) {
+        return request.queryParam(name).orElse(null);
+    }
+
+    private PaymentLinkStatus parseStatus(String value) {
+        if (value == null) return null;
+        try {
+            return PaymentLinkStatus.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryParameterException("Estado inválido: " + value);
+        }
+    }
+
+    private Integer parseInteger(ServerRequest request, String name) {
+        String value = param(request, name);
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidQueryParameterException("Parámetro " + name + " inválido: " + value);
+        }
+    }
+
+    private int parseInt(ServerRequest request, String name, int defaultValue) {
+        Integer value = parseInteger(request, name);
+        return value != null ? value : defaultValue;
+    }
+
+    private Instant parseInstant(ServerRequest request, String name) {
+        String value = param(request, name);
+        if (value == null) return null;
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidQueryParameterException("Fecha " + name + " inválida: " + value);
+        }
+    }
+
+    // page, size y sort (sort=createdAt,desc; repetible) con los mismos límites que Spring Data Web
+    private Pageable parsePageable(ServerRequest request) {
+        int page = Math.max(parseInt(request, "page", 0), 0);
+        int size = Math.min(Math.max(parseInt(request, "size", DEFAULT_PAGE_SIZE), 1), MAX_PAGE_SIZE);
+
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String sort : request.queryParams().getOrDefault("sort", List.of())) {
+            String[] parts = sort.split(",");
+            boolean descending = parts.length > 1 && parts[1].trim().equalsIgnoreCase("desc");
+            orders.add(descending ? Sort.Order.desc(parts[0].trim()) : Sort.Order.asc(parts[0].trim()));
+        }
+        return PageRequest.of(page, size, Sort.by(orders));
+    }
+}
@@ -0,0 +1,254 @@
+package com.laura.payment_links.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laura.payment_links.dto.response.PaymentAttemptResponse;
+import com.laura.payment_links.dto.response.PaymentLinkDetailsResponse;
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import com.laura.payment_links.exception.InvalidQueryParameterException;
+import com.laura.payment_links.util.LinkIdentifier;
+import com.laura.payment_links.util.MetadataFilters;
+import com.laura.payment_links.util.PaymentLinkFilter;
+import com.laura.payment_links.util.TextSearchPatterns;
+import io.r2dbc.spi.Readable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Consultas R2DBC equivalentes a las de PaymentLinkRepository/PaymentAttemptRepository (mismos filtros e índices).
+ * Solo se agregan al WHERE los filtros presentes, en lugar del patrón "(:x IS NULL OR ...)" de JPQL.
+ */
+public class ReactivePaymentLinkQueries {
+
+    private static final String LIST_COLUMNS = "id, reference, status, expires_at, amount_cents, currency";
+    private static final String DETAIL_COLUMNS = LIST_COLUMNS
+            + ", description, paid_at, created_at, metadata::text AS metadata, merchant_id";
+
+    // Propiedades ordenables (sort=createdAt,desc) y su columna
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "createdAt", "created_at",
+            "expiresAt", "expires_at",
+            "amountCents", "amount_cents",
+            "reference", "reference",
+            "status", "status");
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    public ReactivePaymentLinkQueries(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Página de links del comercio con los filtros del listado.
+     * Como Spring Data, omite el COUNT si la primera página no se llena.
+     * @throws InvalidQueryParameterException (400) si un filtro o el orden son inválidos.
+     */
+    public Mono<Page<PaymentLinkResponse>> search(UUID merchantId, PaymentLinkFilter filter, Pageable pageable,
+                                                  boolean includeLatestAttempt) {
+        Map<String, Object> binds = new LinkedHashMap<>();
+        String where = searchConditions(merchantId, filter, binds);
+
+        String sql = "SELECT " + LIST_COLUMNS + " FROM payment_links WHERE " + where
+                + orderBy(pageable.getSort()) + " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
+        Mono<List<PaymentLinkResponse>> content = query(sql, binds, this::toResponse).collectList();
+        if (includeLatestAttempt) {
+            content = content.flatMap(this::attachLatestAttempts);
+        }
+
+        return content.flatMap(links -> {
+            if (pageable.getOffset() == 0 && links.size() < pageable.getPageSize()) {
+                return Mono.just(new PageImpl<>(links, pageable, links.size()));
+            }
+            return query("SELECT COUNT(*) AS total FROM payment_links WHERE " + where, binds,
+                    row -> row.get("total", Long.class))
+                    .single()
+                    .map(total -> new PageImpl<>(links, pageable, total));
+        });
+    }
+
+    /**
+     * Detalle de un link ya clasificado como ID o referencia, con una sola consulta.
+     * @return vacío si no existe para el comercio.
+     */
+    public Mono<PaymentLinkDetailsResponse> findDetails(UUID merchantId, LinkIdentifier identifier) {
+        Map<String, Object> binds = new LinkedHashMap<>();
+        binds.put("merchantId", merchantId);
+        String condition;
+        if (identifier.kind() == LinkIdentifier.Kind.ID) {
+            condition = "id = :id";
+            binds.put("id", identifier.id());
+        } else {
+            condition = "reference = :reference";
+            binds.put("reference", identifier.reference());
+        }
+        return query("SELECT " + DETAIL_COLUMNS + " FROM payment_links WHERE merchant_id = :merchantId AND " + condition,
+                binds, this::toDetailsResponse).next();
+    }
+
+    // Historial paginado de intentos (usa idx_payment_attempts_link_created)
+    public Mono<Page<PaymentAttemptResponse>> findAttempts(UUID paymentLinkId, Pageable pageable) {
+        Map<String, Object> binds = Map.of("paymentLinkId", paymentLinkId);
+        Mono<List<PaymentAttemptResponse>> content = query(
+                "SELECT id, payment_link_id, status, reason, created_at FROM payment_attempts " +
+                        "WHERE payment_link_id = :paymentLinkId ORDER BY created_at DESC " +
+                        "LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset(),
+                binds, this::toAttemptResponse).collectList();
+        Mono<Long> total = query("SELECT COUNT(*) AS total FROM payment_attempts WHERE payment_link_id = :paymentLinkId",
+                binds, row -> row.get("total", Long.class)).single();
+        return Mono.zip(content, total).map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    // Métodos auxiliares
+
+    /**
+     * Condiciones del listado; agrega a binds los parámetros usados.
+     * @UsedBy search()
+     */
+    private String searchConditions(UUID merchantId, PaymentLinkFilter filter, Map<String, Object> binds) {
+        StringBuilder where = new StringBuilder("merchant_id = :merchantId");
+        binds.put("merchantId", merchantId);
+
+        if (filter.getStatus() != null) {
+            where.append(" AND status = :status");
+            binds.put("status", filter.getStatus().name());
+        }
+        if (filter.getFromDate() != null) {
+            where.append(" AND created_at >= :fromDate");
+            binds.put("fromDate", filter.getFromDate());
+        }
+        if (filter.getToDate() != null) {
+            where.append(" AND created_at <= :toDate");
+            binds.put("toDate", filter.getToDate());
+        }
+        if (filter.getMinAmount() != null) {
+            where.append(" AND amount_cents >= :minAmount");
+            binds.put("minAmount", filter.getMinAmount());
+        }
+        if (filter.getMaxAmount() != null) {
+            where.append(" AND amount_cents <= :maxAmount");
+            binds.put("maxAmount", filter.getMaxAmount());
+        }
+
+        // Contención @> sobre idx_payment_links_metadata_gin (valores tipados o como texto)
+        MetadataFilters.Containment metadata = MetadataFilters.toContainment(filter.getMetadata());
+        if (metadata != null) {
+            where.append(" AND (metadata @> CAST(:metadataTyped AS jsonb) OR metadata @> CAST(:metadataText AS jsonb))");
+            binds.put("metadataTyped", metadata.typed());
+            binds.put("metadataText", metadata.text());
+        }
+
+        // Fragmentos (ILIKE) sobre los índices pg_trgm de description y reference
+        String textPattern = TextSearchPatterns.toContainsPattern(filter.getQuery());
+        if (textPattern != null) {
+            where.append(" AND (description ILIKE :descriptionPattern ESCAPE '\\'")
+                    .append(" OR reference ILIKE :referencePattern ESCAPE '\\')");
+            binds.put("descriptionPattern", textPattern);
+            binds.put("referencePattern", textPattern);
+        }
+        return where.toString();
+    }
+
+    /**
+     * ORDER BY a partir del Sort del Pageable (solo columnas permitidas).
+     * @UsedBy search()
+     * @throws InvalidQueryParameterException (400) si la propiedad no es ordenable.
+     */
+    private String orderBy(Sort sort) {
+        if (sort.isUnsorted()) return "";
+
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new InvalidQueryParameterException("No se puede ordenar por: " + order.getProperty());
+            }
+            orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Último intento de cada link de la página en una sola consulta (DISTINCT ON, evita N+1).
+     * @UsedBy search()
+     */
+    private Mono<List<PaymentLinkResponse>> attachLatestAttempts(List<PaymentLinkResponse> links) {
+        if (links.isEmpty()) return Mono.just(links);
+
+        UUID[] ids = links.stream().map(PaymentLinkResponse::getId).toArray(UUID[]::new);
+        return query("SELECT DISTINCT ON (payment_link_id) id, payment_link_id, status, reason, created_at " +
+                        "FROM payment_attempts WHERE payment_link_id = ANY(:ids) " +
+                        "ORDER BY payment_link_id, created_at DESC",
+                Map.of("ids", ids), this::toAttemptResponse)
+                .collectMap(PaymentAttemptResponse::getPaymentLinkId)
+                .map(latestByLink -> {
+                    links.forEach(link -> link.setLatestAttempt(latestByLink.get(link.getId().toString())));
+                    return links;
+                });
+    }
+
+    private <T> Flux<T> query(String sql, Map<String, Object> binds, Function<Readable, T> mapper) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.map(mapper).all();
+    }
+
+    private PaymentLinkResponse toResponse(Readable row) {
+        return PaymentLinkResponse.builder()
+                .id(row.get("id", UUID.class))
+                .reference(row.get("reference", String.class))
+                .status(row.get("status", String.class))
+                .expiresAt(row.get("expires_at", Instant.class))
+                .amountCents(row.get("amount_cents", Integer.class))
+                .currency(row.get("currency", String.class))
+                .build();
+    }
+
+    private PaymentLinkDetailsResponse toDetailsResponse(Readable row) {
+        PaymentLinkDetailsResponse response = new PaymentLinkDetailsResponse();
+        response.setId(row.get("id", UUID.class));
+        response.setReference(row.get("reference", String.class));
+        response.setStatus(row.get("status", String.class));
+        response.setExpiresAt(row.get("expires_at", Instant.class));
+        response.setAmountCents(row.get("amount_cents", Integer.class));
+        response.setCurrency(row.get("currency", String.class));
+        response.setDescription(row.get("description", String.class));
+        response.setPaidAt(row.get("paid_at", Instant.class));
+        response.setCreatedAt(row.get("created_at", Instant.class));
+        response.setMetadata(toMap(row.get("metadata", String.class)));
+        response.setMerchantId(row.get("merchant_id", UUID.class));
+        return response;
+    }
+
+    private PaymentAttemptResponse toAttemptResponse(Readable row) {
+        return PaymentAttemptResponse.builder()
+                .id(row.get("id", UUID.class))
+                .status(row.get("status", String.class))
+                .reason(row.get("reason", String.class))
+                .createdAt(row.get("created_at", Instant.class))
+                .paymentLinkId(String.valueOf(row.get("payment_link_id", UUID.class)))
+                .build();
+    }
+
+    private Map<String, Object> toMap(String json) {
+        if (json == null) return null;
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Metadata inválida en la base de datos", e);
+        }
+    }
+}
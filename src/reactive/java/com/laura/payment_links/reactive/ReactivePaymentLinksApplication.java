@@ -0,0 +1,79 @@
+package com.laura.payment_links.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laura.payment_links.exception.GlobalExceptionHandler;
+import com.laura.payment_links.security.JwtTokenValidator;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveUserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * API reactiva de solo lectura (WebFlux + R2DBC) para GET /payment-links y GET /payment-links/{identifier}.
+ * Opcional: se compila con -Preactive y se arranca con su propio main (perfil "reactive").
+ *
+ * No usa component scan: la aplicación MVC escanea com.laura.payment_links y la condición REACTIVE
+ * descarta esta configuración completa allí. Lee una sola base de datos (spring.r2dbc.url), sin sharding.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        ReactiveUserDetailsServiceAutoConfiguration.class
+})
+@Import({JwtTokenValidator.class, GlobalExceptionHandler.class})
+public class ReactivePaymentLinksApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactivePaymentLinksApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+
+    @Bean
+    public ReactivePaymentLinkQueries reactivePaymentLinkQueries(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        return new ReactivePaymentLinkQueries(databaseClient, objectMapper);
+    }
+
+    @Bean
+    public ReactivePaymentLinkHandler reactivePaymentLinkHandler(ReactivePaymentLinkQueries queries,
+                                                                 JwtTokenValidator jwtTokenValidator,
+                                                                 GlobalExceptionHandler exceptionHandler) {
+        return new ReactivePaymentLinkHandler(queries, jwtTokenValidator, exceptionHandler);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> paymentLinkRoutes(ReactivePaymentLinkHandler handler) {
+        return RouterFunctions.route()
+                .GET("/payment-links", handler::getPaymentLinks)
+                .GET("/payment-links/{identifier}", handler::getPaymentLinkDetails)
+                .build();
+    }
+
+    // El JWT se valida en el handler (igual que en los controladores MVC); aquí no hay sesión ni login
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .authorizeExchange(exchanges -> exchanges.anyExchange().permitAll())
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.laura.payment_links.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.laura.payment_links.dto.response.PageResponse;
+import com.laura.payment_links.dto.response.PaymentAttemptResponse;
+import com.laura.payment_links.dto.response.PaymentLinkResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara tamaño y throughput de JSON, CBOR y Smile sobre páginas realistas de GET /payment-links
+ * (con y sin latestAttempt), usando la misma configuración de Jackson que BinaryFormatsConfig.
+ * Ejecutar con: mvn -Pperf test -Dtest=BinaryFormatBenchmark -Dbenchmark.page-sizes=50,500,2000
+ * El reporte queda en target/load-test/binary-formats.json.
+ */
+@Tag("perf")
+class BinaryFormatBenchmark {
+
+    private static final Map<String, JsonFactory> FORMATS = new LinkedHashMap<>();
+
+    static {
+        FORMATS.put("application/json", new JsonFactory());
+        FORMATS.put("application/cbor", new CBORFactory());
+        FORMATS.put("application/x-jackson-smile", new SmileFactory());
+    }
+
+    @Test
+    void compareFormats() throws Exception {
+        long measureMillis = Long.getLong("benchmark.measure-millis", 2000);
+        String[] pageSizes = System.getProperty("benchmark.page-sizes", "50,500,2000").split(",");
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String pageSizeValue : pageSizes) {
+            int pageSize = Integer.parseInt(pageSizeValue.trim());
+            for (boolean withAttempts : new boolean[]{false, true}) {
+                PageResponse<PaymentLinkResponse> page = page(pageSize, withAttempts);
+                Map<String, Object> byFormat = new LinkedHashMap<>();
+                long jsonBytes = 0;
+
+                for (Map.Entry<String, JsonFactory> format : FORMATS.entrySet()) {
+                    ObjectMapper mapper = mapper(format.getValue());
+                    JavaType type = mapper.getTypeFactory()
+                            .constructParametricType(PageResponse.class, PaymentLinkResponse.class);
+
+                    byte[] encoded = mapper.writeValueAsBytes(page);
+                    PageResponse<PaymentLinkResponse> decoded = mapper.readValue(encoded, type);
+                    assertEquals(page, decoded, "La página no sobrevive la ida y vuelta en " + format.getKey());
+                    if (jsonBytes == 0) jsonBytes = encoded.length;
+
+                    double encodesPerSecond = opsPerSecond(measureMillis, () -> mapper.writeValueAsBytes(page));
+                    double decodesPerSecond = opsPerSecond(measureMillis, () -> mapper.readValue(encoded, type));
+
+                    Map<String, Object> stats = new LinkedHashMap<>();
+                    stats.put("bytes", encoded.length);
+                    stats.put("sizeVsJson", (double) encoded.length / jsonBytes);
+                    stats.put("encodesPerSecond", encodesPerSecond);
+                    stats.put("decodesPerSecond", decodesPerSecond);
+                    stats.put("encodeMbPerSecond", encodesPerSecond * encoded.length / 1_000_000);
+                    stats.put("decodeMbPerSecond", decodesPerSecond * encoded.length / 1_000_000);
+                    byFormat.put(format.getKey(), stats);
+                }
+                results.put("page=" + pageSize + (withAttempts ? ",includeLatestAttempt" : ""), byFormat);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("measureMillis", measureMillis);
+        report.put("results", results);
+        Path file = Path.of(System.getProperty("benchmark.report", "target/load-test/binary-formats.json"));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        assertTrue(file.toFile().exists(), "No se generó el reporte de formatos");
+    }
+
+    // Misma configuración que el builder de Spring Boot (fechas ISO-8601, módulos registrados automáticamente)
+    private static ObjectMapper mapper(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    private static double opsPerSecond(long measureMillis, Operation operation) throws Exception {
+        // Calentamiento (JIT) y luego la ventana medida
+        long warmupDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(measureMillis / 2);
+        while (System.nanoTime() < warmupDeadline) operation.run();
+
+        long operations = 0;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(measureMillis);
+        Object sink = null;
+        while (System.nanoTime() < deadline) {
+            sink = operation.run();
+            operations++;
+        }
+        assertTrue(sink != null);
+        return operations / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    // Página con la forma de las respuestas reales (referencias PL-YYYY-NNNNNN, montos, monedas y fechas variadas)
+    private static PageResponse<PaymentLinkResponse> page(int size, boolean withAttempts) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<PaymentLinkResponse> links = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            UUID id = UUID.randomUUID();
+            PaymentAttemptResponse latestAttempt = null;
+            if (withAttempts && random.nextInt(3) > 0) {
+                boolean success = random.nextInt(4) > 0;
+                latestAttempt = PaymentAttemptResponse.builder()
+                        .id(UUID.randomUUID())
+                        .status(success ? "SUCCESS" : "FAILED")
+                        .reason(success ? null : "insufficient_funds")
+                        .createdAt(now.minusSeconds(random.nextInt(86_400)))
+                        .paymentLinkId(id.toString())
+                        .build();
+            }
+            links.add(PaymentLinkResponse.builder()
+                    .id(id)
+                    .reference(String.format("PL-2026-%06d", random.nextInt(1_000_000)))
+                    .status(latestAttempt != null && "SUCCESS".equals(latestAttempt.getStatus()) ? "PAID" : "CREATED")
+                    .expiresAt(now.plusSeconds(random.nextInt(7 * 86_400)))
+                    .amountCents(100 + random.nextInt(10_000_000))
+                    .currency(random.nextBoolean() ? "COP" : "USD")
+                    .latestAttempt(latestAttempt)
+                    .build());
+        }
+        return new PageResponse<>(links, 0, size, size * 40L, 40);
+    }
+}
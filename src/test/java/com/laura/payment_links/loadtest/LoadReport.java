@@ -0,0 +1,84 @@
+package com.laura.payment_links.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Acumula latencias y códigos de estado por endpoint y escribe el reporte en JSON
+ * (throughput y percentiles por endpoint).
+ */
+class LoadReport {
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, int status, long latencyNanos) {
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).record(status, latencyNanos);
+    }
+
+    void write(Path file, Map<String, Object> settings, double elapsedSeconds) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("elapsedSeconds", elapsedSeconds);
+
+        long totalRequests = 0;
+        Map<String, Object> byEndpoint = new TreeMap<>();
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            totalRequests += stats.count();
+            byEndpoint.put(entry.getKey(), stats.summary(elapsedSeconds));
+        }
+        report.put("totalRequests", totalRequests);
+        report.put("throughputPerSecond", totalRequests / elapsedSeconds);
+        report.put("endpoints", byEndpoint);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+    }
+
+    private static class EndpointStats {
+        private long[] latencies = new long[1024];
+        private int size;
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        synchronized void record(int status, long latencyNanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            statuses.computeIfAbsent(status, key -> new AtomicLong()).incrementAndGet();
+        }
+
+        synchronized long count() {
+            return size;
+        }
+
+        synchronized Map<String, Object> summary(double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", size);
+            summary.put("throughputPerSecond", size / elapsedSeconds);
+            summary.put("statusCodes", new TreeMap<>(statuses));
+            summary.put("p50Ms", percentileMs(sorted, 0.50));
+            summary.put("p90Ms", percentileMs(sorted, 0.90));
+            summary.put("p99Ms", percentileMs(sorted, 0.99));
+            summary.put("p999Ms", percentileMs(sorted, 0.999));
+            summary.put("maxMs", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+            return summary;
+        }
+
+        private static double percentileMs(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
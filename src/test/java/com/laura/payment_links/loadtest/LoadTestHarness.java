@@ -0,0 +1,355 @@
+package com.laura.payment_links.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laura.payment_links.PaymentLinksApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arnés de carga de extremo a extremo.
+ * Levanta la aplicación contra un PostgreSQL embebido (o usa -Dload.base-url=http://host:puerto)
+ * y ejecuta una mezcla de register, login, create, list, details, pay y cancel con la concurrencia
+ * indicada. El reporte (throughput y percentiles por endpoint) se escribe en load.report.
+ *
+ * mvn -Pperf test -Dtest=LoadTestHarness -Dload.concurrency=64 -Dload.duration-seconds=120
+ */
+@Tag("perf")
+class LoadTestHarness {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Test
+    void runLoad() throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        LoadReport report = new LoadReport();
+
+        try (Target target = Target.start(settings)) {
+            HttpClient http = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newFixedThreadPool(4))
+                    .build();
+            Client client = new Client(http, target.baseUrl());
+
+            // Comercios iniciales con algunos links para que list/details/pay tengan datos
+            List<Merchant> merchants = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < settings.merchants; i++) {
+                Merchant merchant = client.register(null);
+                client.login(merchant, null);
+                for (int j = 0; j < settings.initialLinksPerMerchant; j++) {
+                    client.create(merchant, null);
+                }
+                merchants.add(merchant);
+            }
+
+            // Calentamiento sin medir, luego la ventana medida
+            runWorkers(settings, client, merchants, null, settings.warmupSeconds);
+            long start = System.nanoTime();
+            runWorkers(settings, client, merchants, report, settings.durationSeconds);
+            double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Path file = Path.of(settings.reportFile);
+            report.write(file, settings.asMap(), elapsedSeconds);
+            assertTrue(file.toFile().exists(), "No se generó el reporte de carga");
+        }
+    }
+
+    private void runWorkers(Settings settings, Client client, List<Merchant> merchants,
+                            LoadReport report, int seconds) throws InterruptedException {
+        if (seconds <= 0) return;
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+        for (int i = 0; i < settings.concurrency; i++) {
+            workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Merchant merchant = merchants.get(random.nextInt(merchants.size()));
+                    try {
+                        switch (settings.mix.next(random)) {
+                            case "register" -> merchants.add(client.login(client.register(report), report));
+                            case "login" -> client.login(merchant, report);
+                            case "create" -> client.create(merchant, report);
+                            case "list" -> client.list(merchant, report);
+                            case "details" -> client.details(merchant, report);
+                            case "pay" -> client.pay(merchant, settings.duplicatePayRatio, report);
+                            case "cancel" -> client.cancel(merchant, report);
+                            default -> throw new IllegalStateException("Operación desconocida");
+                        }
+                    } catch (Exception e) {
+                        if (report != null) report.record("client-error", -1, 0);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+    }
+
+    // Estado del lado cliente de cada comercio
+    static class Merchant {
+        final String email;
+        final String password = "load-test-password";
+        volatile String token;
+        final List<String> openLinks = Collections.synchronizedList(new ArrayList<>());
+        final List<String> allLinks = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, String> lastIdempotencyKey = new ConcurrentHashMap<>();
+
+        Merchant(String email) {
+            this.email = email;
+        }
+
+        String randomLink(List<String> links, ThreadLocalRandom random) {
+            synchronized (links) {
+                return links.isEmpty() ? null : links.get(random.nextInt(links.size()));
+            }
+        }
+    }
+
+    // Operaciones HTTP contra la API; cada llamada se mide y se registra por endpoint
+    static class Client {
+        private static final AtomicInteger SEQUENCE = new AtomicInteger();
+        private final HttpClient http;
+        private final String baseUrl;
+
+        Client(HttpClient http, String baseUrl) {
+            this.http = http;
+            this.baseUrl = baseUrl;
+        }
+
+        Merchant register(LoadReport report) throws Exception {
+            Merchant merchant = new Merchant("load-" + UUID.randomUUID() + "-" + SEQUENCE.incrementAndGet() + "@example.com");
+            String body = JSON.writeValueAsString(Map.of(
+                    "name", "Load test", "email", merchant.email, "password", merchant.password));
+            send("POST /payment-links/register", post("/payment-links/register", body, null).build(), report);
+            return merchant;
+        }
+
+        Merchant login(Merchant merchant, LoadReport report) throws Exception {
+            String query = "?email=" + URLEncoder.encode(merchant.email, StandardCharsets.UTF_8)
+                    + "&password=" + URLEncoder.encode(merchant.password, StandardCharsets.UTF_8);
+            HttpResponse<String> response = send("POST /payment-links/login",
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/payment-links/login" + query))
+                            .POST(HttpRequest.BodyPublishers.noBody()).build(), report);
+            if (response.statusCode() == 200) {
+                merchant.token = response.body();
+            }
+            return merchant;
+        }
+
+        void create(Merchant merchant, LoadReport report) throws Exception {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String body = JSON.writeValueAsString(Map.of(
+                    "amountCents", 100 + random.nextInt(1_000_000),
+                    "currency", random.nextBoolean() ? "COP" : "USD",
+                    "description", "Pedido de carga " + random.nextInt(100_000),
+                    "expiresInMinutes", 60,
+                    "metadata", Map.of("orderId", String.valueOf(random.nextInt(1_000_000)))));
+            HttpResponse<String> response = send("POST /payment-links",
+                    post("/payment-links", body, merchant.token).build(), report);
+            if (response.statusCode() == 201) {
+                JsonNode link = JSON.readTree(response.body());
+                merchant.openLinks.add(link.get("id").asText());
+                merchant.allLinks.add(random.nextBoolean() ? link.get("id").asText() : link.get("reference").asText());
+            }
+        }
+
+        void list(Merchant merchant, LoadReport report) throws Exception {
+            send("GET /payment-links", get("/payment-links?status=CREATED&size=50", merchant.token), report);
+        }
+
+        void details(Merchant merchant, LoadReport report) throws Exception {
+            String identifier = merchant.randomLink(merchant.allLinks, ThreadLocalRandom.current());
+            if (identifier == null) return;
+            send("GET /payment-links/{identifier}", get("/payment-links/" + identifier, merchant.token), report);
+        }
+
+        void pay(Merchant merchant, double duplicateRatio, LoadReport report) throws Exception {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String id = merchant.randomLink(merchant.openLinks, random);
+            if (id == null) return;
+
+            // Parte de los pagos reutiliza la última Idempotency-Key (reintentos de clientes)
+            String previousKey = merchant.lastIdempotencyKey.get(id);
+            String key = previousKey != null && random.nextDouble() < duplicateRatio
+                    ? previousKey
+                    : UUID.randomUUID().toString();
+            merchant.lastIdempotencyKey.put(id, key);
+
+            String token = random.nextDouble() < 0.8 ? "ok_visa_4242" : "fail_insufficient_funds";
+            HttpResponse<String> response = send("POST /payment-links/{id}/pay",
+                    post("/payment-links/" + id + "/pay", JSON.writeValueAsString(Map.of("paymentToken", token)),
+                            merchant.token).header("Idempotency-Key", key).build(), report);
+            if (response.statusCode() == 200 && response.body().contains("SUCCESS")) {
+                merchant.openLinks.remove(id);
+            }
+        }
+
+        void cancel(Merchant merchant, LoadReport report) throws Exception {
+            String id = merchant.randomLink(merchant.openLinks, ThreadLocalRandom.current());
+            if (id == null) return;
+            HttpResponse<String> response = send("POST /payment-links/{id}/cancel",
+                    post("/payment-links/" + id + "/cancel", "", merchant.token).build(), report);
+            if (response.statusCode() == 200) {
+                merchant.openLinks.remove(id);
+            }
+        }
+
+        private HttpRequest.Builder post(String path, String body, String token) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+            if (token != null) builder.header("Authorization", token);
+            return builder;
+        }
+
+        private HttpRequest get(String path, String token) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", token)
+                    .GET()
+                    .build();
+        }
+
+        private HttpResponse<String> send(String endpoint, HttpRequest request, LoadReport report) throws Exception {
+            long start = System.nanoTime();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (report != null) report.record(endpoint, response.statusCode(), System.nanoTime() - start);
+            return response;
+        }
+    }
+
+    // Mezcla de operaciones con pesos ("list:20,details:30,...")
+    static class Mix {
+        private final String[] operations;
+        private final int[] cumulativeWeights;
+
+        Mix(String spec) {
+            String[] entries = spec.split(",");
+            operations = new String[entries.length];
+            cumulativeWeights = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                String[] parts = entries[i].trim().split(":");
+                operations[i] = parts[0];
+                total += Integer.parseInt(parts[1]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        String next(ThreadLocalRandom random) {
+            int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (value < cumulativeWeights[i]) return operations[i];
+            }
+            return operations[operations.length - 1];
+        }
+    }
+
+    static class Settings {
+        String baseUrl;
+        int concurrency;
+        int durationSeconds;
+        int warmupSeconds;
+        int merchants;
+        int initialLinksPerMerchant;
+        double duplicatePayRatio;
+        String mixSpec;
+        Mix mix;
+        String reportFile;
+
+        static Settings fromSystemProperties() {
+            Settings settings = new Settings();
+            settings.baseUrl = System.getProperty("load.base-url");
+            settings.concurrency = Integer.getInteger("load.concurrency", 32);
+            settings.durationSeconds = Integer.getInteger("load.duration-seconds", 60);
+            settings.warmupSeconds = Integer.getInteger("load.warmup-seconds", 10);
+            settings.merchants = Integer.getInteger("load.merchants", 20);
+            settings.initialLinksPerMerchant = Integer.getInteger("load.initial-links", 20);
+            settings.duplicatePayRatio = Double.parseDouble(System.getProperty("load.duplicate-pay-ratio", "0.1"));
+            settings.mixSpec = System.getProperty("load.mix",
+                    "register:1,login:2,create:15,list:20,details:35,pay:20,cancel:7");
+            settings.mix = new Mix(settings.mixSpec);
+            settings.reportFile = System.getProperty("load.report", "target/load-test/report.json");
+            return settings;
+        }
+
+        Map<String, Object> asMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("target", baseUrl != null ? baseUrl : "embedded");
+            map.put("concurrency", concurrency);
+            map.put("durationSeconds", durationSeconds);
+            map.put("warmupSeconds", warmupSeconds);
+            map.put("merchants", merchants);
+            map.put("initialLinksPerMerchant", initialLinksPerMerchant);
+            map.put("duplicatePayRatio", duplicatePayRatio);
+            map.put("mix", mixSpec);
+            return map;
+        }
+    }
+
+    // Aplicación bajo prueba: embebida (PostgreSQL embebido + contexto Spring) o externa
+    static class Target implements AutoCloseable {
+        private final String baseUrl;
+        private final EmbeddedPostgres postgres;
+        private final ConfigurableApplicationContext context;
+
+        private Target(String baseUrl, EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+            this.baseUrl = baseUrl;
+            this.postgres = postgres;
+            this.context = context;
+        }
+
+        static Target start(Settings settings) throws Exception {
+            if (settings.baseUrl != null) {
+                return new Target(settings.baseUrl, null, null);
+            }
+
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            // Como argumentos de línea de comandos: .properties() solo fija valores por defecto,
+            // que application.properties pisaría (la aplicación se conectaría a localhost:5433)
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentLinksApplication.class)
+                    .run(
+                            "--server.port=0",
+                            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                            "--spring.datasource.username=postgres",
+                            "--spring.datasource.password=",
+                            "--spring.datasource.hikari.maximum-pool-size=" + System.getProperty("load.pool-size", "20"),
+                            "--spring.jpa.show-sql=false",
+                            "--payment-links.journal.dir=target/load-test/journal",
+                            "--payment-links.reports.settlement.output-dir=target/load-test/settlement",
+                            "--spring.devtools.restart.enabled=false");
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            return new Target("http://localhost:" + port, postgres, context);
+        }
+
+        String baseUrl() {
+            return baseUrl;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (context != null) context.close();
+            if (postgres != null) postgres.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.laura.payment_links.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.laura.payment_links.PaymentLinksApplication;
+import com.laura.payment_links.model.PaymentLinkStatus;
+import com.laura.payment_links.repository.PaymentAttemptRepository;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.util.TextSearchPatterns;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regresión de planes de consulta con volumen de producción.
+ * Carga millones de comercios, links e intentos con COPY en un PostgreSQL embebido (esquema de db/schema.sql,
+ * después db/indexes.sql y ANALYZE), levanta la aplicación contra esa base y ejecuta las consultas reales de
+ * los repositorios. Un DataSource de prueba hace EXPLAIN (FORMAT JSON) de cada sentencia con los mismos
+ * parámetros que envía Hibernate. Falla si alguna consulta planea un Seq Scan o no usa su índice esperado.
+ *
+ * mvn -Pperf test -Dtest=QueryPlanRegressionTest -Dplan.merchants=1000000 -Dplan.links=5000000 -Dplan.attempts=2000000
+ * Los planes quedan en target/load-test/query-plans.json.
+ */
+@Tag("perf")
+class QueryPlanRegressionTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Test
+    void repositoryQueriesUseTheirIndexes() throws Exception {
+        SyntheticDataset dataset = SyntheticDataset.fromSystemProperties();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                // Base desechable: se prioriza la velocidad de carga
+                .setServerConfig("fsync", "off")
+                .setServerConfig("synchronous_commit", "off")
+                .setServerConfig("full_page_writes", "off")
+                .setServerConfig("max_wal_size", "8GB")
+                .setServerConfig("maintenance_work_mem", "512MB")
+                .start()) {
+            DataSource database = postgres.getPostgresDatabase();
+            new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(database);
+            long[] loadMillis = dataset.load(database);
+            long indexStart = System.nanoTime();
+            new ResourceDatabasePopulator(new ClassPathResource("db/indexes.sql")).execute(database);
+            try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            long indexMillis = (System.nanoTime() - indexStart) / 1_000_000;
+
+            PlanCapture capture = new PlanCapture();
+            Map<String, Object> searchLatency;
+            // Como argumentos de línea de comandos: .properties() solo fija valores por defecto y
+            // application.properties los pisaría (la aplicación iría a localhost:5433 y no a esta base)
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentLinksApplication.class)
+                    .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(capture.dataSourcePostProcessor()))
+                    .run(
+                            "--server.port=0",
+                            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                            "--spring.datasource.username=postgres",
+                            "--spring.datasource.password=",
+                            "--spring.jpa.hibernate.ddl-auto=none",
+                            "--spring.sql.init.mode=never",
+                            "--spring.jpa.show-sql=false",
+                            "--payment-links.lookup-filter.enabled=false",
+                            "--payment-links.warmup.enabled=false",
+                            "--payment-links.rollups.enabled=false",
+                            "--payment-links.reports.settlement.enabled=false",
+                            "--payment-links.journal.dir=target/load-test/journal",
+                            "--spring.devtools.restart.enabled=false")) {
+                runQueries(context, dataset, capture);
+                searchLatency = measureSearchLatency(context, dataset);
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("merchants", dataset.merchants());
+            report.put("links", dataset.links());
+            report.put("attempts", dataset.attempts());
+            report.put("copyMillis", Map.of("merchants", loadMillis[0], "paymentLinks", loadMillis[1],
+                    "paymentAttempts", loadMillis[2]));
+            report.put("indexAndAnalyzeMillis", indexMillis);
+            report.put("searchLatencyMs", searchLatency);
+            report.put("plans", capture.plans);
+            Path file = Path.of(System.getProperty("plan.report", "target/load-test/query-plans.json"));
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            JSON.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+
+            List<String> failures = capture.check();
+            double p95 = (double) ((Map<?, ?>) searchLatency.get("selective")).get("p95");
+            double maxP95 = Double.parseDouble(System.getProperty("plan.search-p95-ms", "100"));
+            if (p95 > maxP95) {
+                failures.add("search(q): p95 de " + p95 + " ms, el objetivo es " + maxP95 + " ms");
+            }
+            assertTrue(failures.isEmpty(), "Planes con regresión:\n" + String.join("\n", failures));
+        }
+    }
+
+    // Consultas bajo prueba, cada una con los índices que debe usar
+    private static void runQueries(ConfigurableApplicationContext context, SyntheticDataset dataset, PlanCapture capture) {
+        PaymentLinkRepository links = context.getBean(PaymentLinkRepository.class);
+        PaymentAttemptRepository attempts = context.getBean(PaymentAttemptRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        long link = dataset.links() / 2 + 99; // Fuera del comercio grande (ver SyntheticDataset.merchantOf)
+        UUID merchantId = dataset.merchantId(dataset.merchantOf(link));
+        // Comercio grande: con pocos links por comercio cualquier plan por merchant_id es bueno y no prueba nada
+        long hotLink = dataset.hotMerchantLink();
+        UUID hotMerchantId = dataset.merchantId(dataset.merchantOf(hotLink));
+
+        // Página de 1: con al menos un resultado se ejecuta también el conteo
+        capture.explain("search(status)", Set.of("idx_payment_links_merchant_status", "idx_payment_links_merchant_created"),
+                transaction, status -> links.search(merchantId, PaymentLinkStatus.CREATED, null, null, null, null,
+                        null, null, null, PageRequest.of(0, 1)));
+
+        capture.explain("search(status, fromDate)", Set.of("idx_payment_links_merchant_status",
+                        "idx_payment_links_merchant_created"),
+                transaction, status -> links.search(merchantId, PaymentLinkStatus.CREATED,
+                        Instant.now().minus(30, ChronoUnit.DAYS), null, null, null, null, null, null, PageRequest.of(0, 1)));
+
+        // Todas las sentencias (página y conteo) deben pasar por un índice pg_trgm, no por merchant_status
+        capture.explain("search(q)", Set.of("idx_payment_links_merchant_text_trgm"),
+                transaction, status -> links.search(hotMerchantId, null, null, null, null, null, null, null,
+                        TextSearchPatterns.toContainsPattern(dataset.descriptionFragment(hotLink)), PageRequest.of(0, 1)));
+
+        capture.explain("findByReferenceAndMerchantId", Set.of("payment_links_reference_key"),
+                transaction, status -> links.findByReferenceAndMerchantId(dataset.reference(link), merchantId));
+
+        capture.explain("findLinksToExpire", Set.of("idx_payment_links_expires_at"),
+                transaction, status -> links.findLinksToExpire(Instant.now(), PageRequest.of(0, 500)));
+
+        // Se revierte: solo interesa el plan
+        List<UUID> ids = LongStream.range(0, 500).map(i -> i * 97 % dataset.links()).mapToObj(dataset::linkId).toList();
+        capture.explain("expireLinks", Set.of("payment_links_pkey"), transaction, status -> {
+            links.expireLinks(ids, Instant.now());
+            status.setRollbackOnly();
+        });
+
+        long attempt = dataset.attempts() / 3;
+        // Con pocos intentos por link, el índice por (payment_link_id, created_at) es tan bueno como el único
+        capture.explain("findByPaymentLinkIdAndIdempotencyKey",
+                Set.of("payment_attempts_payment_link_id_idempotency_key_key", "idx_payment_attempts_link_created"), transaction,
+                status -> attempts.findByPaymentLinkIdAndIdempotencyKey(
+                        dataset.linkId(dataset.attemptLink(attempt)), dataset.idempotencyKey(attempt)));
+    }
+
+    /**
+     * Latencia de search(q) en el comercio grande, página de 20 con su conteo, como la pide el endpoint.
+     * - selective: fragmentos que identifican pocos links ("#<número>"), el caso de soporte.
+     * - broad: una palabra presente en 1 de cada 8 descripciones; el conteo recorre todas las coincidencias.
+     * @return percentiles en milisegundos por tipo de búsqueda.
+     */
+    private static Map<String, Object> measureSearchLatency(ConfigurableApplicationContext context, SyntheticDataset dataset) {
+        PaymentLinkRepository links = context.getBean(PaymentLinkRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transaction.setReadOnly(true);
+        int samples = Integer.getInteger("plan.search-samples", 200);
+        long hotLink = dataset.hotMerchantLink();
+        UUID hotMerchantId = dataset.merchantId(dataset.merchantOf(hotLink));
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("selective", percentiles(samples, i -> transaction.executeWithoutResult(status ->
+                links.search(hotMerchantId, null, null, null, null, null, null, null,
+                        TextSearchPatterns.toContainsPattern(dataset.descriptionFragment(
+                                (hotLink + i * 100L) % dataset.links())), PageRequest.of(0, 20)))));
+        latency.put("broad", percentiles(Math.max(1, samples / 10), i -> transaction.executeWithoutResult(status ->
+                links.search(hotMerchantId, null, null, null, null, null, null, null,
+                        TextSearchPatterns.toContainsPattern("hotel"), PageRequest.of(0, 20)))));
+        return latency;
+    }
+
+    private static Map<String, Object> percentiles(int samples, IntConsumer query) {
+        query.accept(0); // Primera ejecución fuera de la medición (caché de planes y páginas)
+        double[] millis = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            query.accept(i);
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samples", samples);
+        result.put("p50", millis[(int) (samples * 0.50)]);
+        result.put("p95", millis[Math.min(samples - 1, (int) (samples * 0.95))]);
+        result.put("max", millis[samples - 1]);
+        return result;
+    }
+
+    /**
+     * Envuelve el DataSource de la aplicación: mientras hay una etiqueta activa, antes de ejecutar cada
+     * PreparedStatement corre EXPLAIN (FORMAT JSON) de la misma sentencia, en la misma conexión y con los
+     * mismos parámetros, y guarda el plan bajo esa etiqueta.
+     * La etiqueta es por hilo: las tareas programadas de la aplicación (refresco de índices) no se mezclan.
+     */
+    static final class PlanCapture {
+        final Map<String, List<JsonNode>> plans = new LinkedHashMap<>();
+        private final Map<String, Set<String>> expectedIndexes = new LinkedHashMap<>();
+        private final ThreadLocal<String> label = new ThreadLocal<>();
+
+        void explain(String label, Set<String> indexes, TransactionTemplate transaction,
+                     Consumer<TransactionStatus> work) {
+            this.label.set(label);
+            plans.put(label, new ArrayList<>());
+            expectedIndexes.put(label, indexes);
+            try {
+                transaction.executeWithoutResult(work);
+            } finally {
+                this.label.remove();
+            }
+        }
+
+        // Falla si no se capturó ningún plan, si hay Seq Scan o si alguna sentencia sobre tablas no usa un índice esperado
+        List<String> check() {
+            List<String> failures = new ArrayList<>();
+            for (Map.Entry<String, List<JsonNode>> entry : plans.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    failures.add(entry.getKey() + ": no ejecutó ninguna sentencia");
+                    continue;
+                }
+                for (JsonNode plan : entry.getValue()) {
+                    Set<String> usedIndexes = new TreeSet<>();
+                    List<JsonNode> nodes = new ArrayList<>();
+                    collect(plan.get(0).get("Plan"), nodes);
+                    // Sentencias sin tablas (set_config de la búsqueda con q=) no tienen índice que verificar
+                    if (nodes.stream().noneMatch(node -> node.has("Relation Name"))) continue;
+                    for (JsonNode node : nodes) {
+                        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+                            failures.add(entry.getKey() + ": Seq Scan sobre " + node.path("Relation Name").asText());
+                        }
+                        if (node.has("Index Name")) usedIndexes.add(node.get("Index Name").asText());
+                    }
+                    if (Collections.disjoint(usedIndexes, expectedIndexes.get(entry.getKey()))) {
+                        failures.add(entry.getKey() + ": usa " + usedIndexes + ", se esperaba alguno de "
+                                + expectedIndexes.get(entry.getKey()));
+                    }
+                }
+            }
+            return failures;
+        }
+
+        private static void collect(JsonNode node, List<JsonNode> nodes) {
+            nodes.add(node);
+            for (JsonNode child : node.path("Plans")) collect(child, nodes);
+        }
+
+        BeanPostProcessor dataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(dataSource, (target, method, args) -> {
+                        Object result = method.invoke(target, args);
+                        return result instanceof Connection connection ? wrap(connection) : result;
+                    }) : bean;
+                }
+            };
+        }
+
+        private Connection wrap(Connection connection) {
+            return proxy(connection, (target, method, args) -> {
+                Object result = method.invoke(target, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return wrap(connection, statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement wrap(Connection connection, PreparedStatement statement, String sql) {
+            List<Object[]> binds = new ArrayList<>();   // {Method, args} de cada set*
+            return proxy(statement, (target, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    binds.add(new Object[]{method, args});
+                } else if (name.equals("clearParameters")) {
+                    binds.clear();
+                } else if (label.get() != null && args == null && name.startsWith("execute")) {
+                    plans.get(label.get()).add(explain(connection, sql, binds));
+                }
+                return method.invoke(target, args);
+            });
+        }
+
+        private static JsonNode explain(Connection connection, String sql, List<Object[]> binds) throws Exception {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+                for (Object[] bind : binds) {
+                    ((Method) bind[0]).invoke(explain, (Object[]) bind[1]);
+                }
+                try (ResultSet result = explain.executeQuery()) {
+                    result.next();
+                    return JSON.readTree(result.getString(1));
+                }
+            }
+        }
+
+        private interface Handler {
+            Object invoke(Object target, Method method, Object[] args) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(T target, Handler handler) {
+            return (T) Proxy.newProxyInstance(QueryPlanRegressionTest.class.getClassLoader(),
+                    ClassUtils.getAllInterfaces(target), (p, method, args) -> {
+                        try {
+                            return handler.invoke(target, method, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
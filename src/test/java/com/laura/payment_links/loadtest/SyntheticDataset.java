@@ -0,0 +1,232 @@
+package com.laura.payment_links.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Genera comercios, links e intentos sintéticos y los carga con COPY (formato texto, en bloques de 1 MB).
+ * Los ids se derivan del número de fila, así que una prueba puede reconstruir cualquier id, referencia
+ * o clave de idempotencia sin leerlos de la base de datos. El link i pertenece al comercio i % merchants,
+ * salvo un porcentaje (hotMerchantPercent) que va al comercio 0: un comercio grande, donde filtrar por
+ * merchant_id ya no alcanza y el plan tiene que usar los índices de búsqueda.
+ *
+ * Distribución de estados: 20% CREATED (de ellos ~3% ya vencidos), 50% PAID, 15% EXPIRED, 15% CANCELLED.
+ */
+final class SyntheticDataset {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+    private static final String[] CURRENCIES = {"COP", "USD", "EUR"};
+    private static final String[] DESCRIPTIONS = {"Suscripción mensual", "Pedido tienda online", "Reserva hotel",
+            "Curso de inglés", "Factura servicios", "Entrada concierto", "Plan gimnasio", "Envío express"};
+
+    private final long merchants;
+    private final long links;
+    private final long attempts;
+    private final int hotMerchantPercent;
+    private final Instant now;
+
+    private SyntheticDataset(long merchants, long links, long attempts, int hotMerchantPercent, Instant now) {
+        this.merchants = merchants;
+        this.links = links;
+        this.attempts = attempts;
+        this.hotMerchantPercent = hotMerchantPercent;
+        this.now = now;
+    }
+
+    // Tamaños por propiedades del sistema: -Dplan.merchants, -Dplan.links, -Dplan.attempts, -Dplan.hot-merchant-percent
+    static SyntheticDataset fromSystemProperties() {
+        return new SyntheticDataset(
+                Long.getLong("plan.merchants", 1_000_000),
+                Long.getLong("plan.links", 5_000_000),
+                Long.getLong("plan.attempts", 2_000_000),
+                Integer.getInteger("plan.hot-merchant-percent", 10),
+                Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Carga las tres tablas (el esquema debe existir). Conviene crear los índices pesados después.
+     * @return milisegundos por tabla, en el orden merchants, payment_links, payment_attempts.
+     */
+    long[] load(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            long[] millis = new long[3];
+            millis[0] = timed(() -> copyMerchants(connection));
+            millis[1] = timed(() -> copyLinks(connection));
+            millis[2] = timed(() -> copyAttempts(connection));
+            return millis;
+        }
+    }
+
+    long merchants() {
+        return merchants;
+    }
+
+    long links() {
+        return links;
+    }
+
+    long attempts() {
+        return attempts;
+    }
+
+    UUID merchantId(long merchant) {
+        return uuid(1, merchant);
+    }
+
+    // Comercio dueño del link (el 0 es el comercio grande)
+    long merchantOf(long link) {
+        return link % 100 < hotMerchantPercent ? 0 : link % merchants;
+    }
+
+    // Un link del comercio grande
+    long hotMerchantLink() {
+        return links / 2 / 100 * 100;
+    }
+
+    // Fragmento de la descripción de un link (" #<número>"), para buscarlo con q=
+    String descriptionFragment(long link) {
+        return "#" + link;
+    }
+
+    UUID linkId(long link) {
+        return uuid(2, link);
+    }
+
+    String reference(long link) {
+        return String.format("PL-%d-%06d", 2026, link + 1);
+    }
+
+    // Link del intento j (repartidos al azar pero de forma reproducible)
+    long attemptLink(long attempt) {
+        return Math.floorMod(mix(attempt * 31 + 7), links);
+    }
+
+    String idempotencyKey(long attempt) {
+        return "key-" + attempt;
+    }
+
+    private void copyMerchants(Connection connection) throws SQLException {
+        try (CopyWriter copy = new CopyWriter(connection,
+                "COPY merchants (id, name, email, password_hash, created_at) FROM STDIN")) {
+            for (long m = 0; m < merchants; m++) {
+                copy.row(merchantId(m), "Comercio " + m, "plan" + m + "@example.com", "x", now.minus(400, ChronoUnit.DAYS));
+            }
+        }
+    }
+
+    private void copyLinks(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        try (CopyWriter copy = new CopyWriter(connection,
+                "COPY payment_links (id, merchant_id, reference, amount_cents, currency, description, status, " +
+                        "expires_at, paid_at, metadata, created_at, updated_at, version) FROM STDIN")) {
+            for (long i = 0; i < links; i++) {
+                Instant createdAt = now.minusSeconds(random.nextLong(365L * 86_400));
+                int bucket = random.nextInt(20);
+                String status;
+                Instant expiresAt;
+                Instant paidAt = null;
+                if (bucket < 4) {
+                    status = "CREATED";
+                    expiresAt = random.nextInt(100) < 3
+                            ? now.minusSeconds(1 + random.nextInt(86_400))
+                            : now.plusSeconds(60 + random.nextInt(30 * 86_400));
+                } else if (bucket < 14) {
+                    status = "PAID";
+                    expiresAt = createdAt.plus(1, ChronoUnit.DAYS);
+                    paidAt = createdAt.plusSeconds(random.nextInt(86_400));
+                } else if (bucket < 17) {
+                    status = "EXPIRED";
+                    expiresAt = createdAt.plus(1, ChronoUnit.DAYS);
+                } else {
+                    status = "CANCELLED";
+                    expiresAt = createdAt.plus(1, ChronoUnit.DAYS);
+                }
+                copy.row(linkId(i), merchantId(merchantOf(i)), reference(i), 100 + random.nextInt(1_000_000),
+                        CURRENCIES[random.nextInt(CURRENCIES.length)],
+                        DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] + " #" + i,
+                        status, expiresAt, paidAt, "{\"orderId\":\"" + random.nextInt(10_000_000) + "\"}",
+                        createdAt, paidAt != null ? paidAt : createdAt, 0);
+            }
+        }
+    }
+
+    private void copyAttempts(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(7);
+        try (CopyWriter copy = new CopyWriter(connection,
+                "COPY payment_attempts (id, payment_link_id, status, reason, idempotency_key, created_at) FROM STDIN")) {
+            for (long j = 0; j < attempts; j++) {
+                boolean success = random.nextInt(4) > 0;
+                copy.row(uuid(3, j), linkId(attemptLink(j)), success ? "SUCCESS" : "FAILED",
+                        success ? null : "insufficient_funds", idempotencyKey(j),
+                        now.minusSeconds(random.nextLong(365L * 86_400)));
+            }
+        }
+    }
+
+    // Ids con aspecto aleatorio pero reproducibles a partir de (tipo, número)
+    private static UUID uuid(long kind, long n) {
+        return new UUID(mix((kind << 56) ^ n), mix(n * 0x9E3779B97F4A7C15L + kind));
+    }
+
+    // Finalizador de SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    private static long timed(SqlWork work) throws SQLException {
+        long start = System.nanoTime();
+        work.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // Escribe filas en formato texto de COPY (tabulador entre columnas, \N para null)
+    private static final class CopyWriter implements AutoCloseable {
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 4096);
+
+        CopyWriter(Connection connection, String sql) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) buffer.append('\t');
+                // Los valores generados no contienen tabuladores, saltos de línea ni barras invertidas
+                buffer.append(values[i] == null ? "\\N" : values[i].toString());
+            }
+            buffer.append('\n');
+            if (buffer.length() >= FLUSH_BYTES) flush();
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) copyIn.cancelCopy();
+            }
+        }
+    }
+}
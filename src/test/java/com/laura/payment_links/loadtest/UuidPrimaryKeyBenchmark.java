@@ -0,0 +1,163 @@
+package com.laura.payment_links.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.laura.payment_links.util.UuidV7;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara claves primarias UUID v4 (aleatorias) y v7 (UuidV7, ordenadas por tiempo) insertando decenas de
+ * millones de filas con el mismo ancho que payment_links en dos tablas iguales, con varios hilos y lotes
+ * como la aplicación. Por cada variante reporta el throughput por tramo (para ver cómo cae cuando el índice
+ * deja de caber en shared_buffers), el tamaño final de la tabla y del índice y las lecturas de páginas del
+ * índice fuera de caché.
+ * Ejecutar con: mvn -Pperf test -Dtest=UuidPrimaryKeyBenchmark -Dbenchmark.uuid-rows=20000000
+ * El reporte queda en target/load-test/uuid-primary-keys.json.
+ */
+@Tag("perf")
+class UuidPrimaryKeyBenchmark {
+
+    private static final int SEGMENTS = 10;
+
+    @Test
+    void compareUuidVersions() throws Exception {
+        long rows = Long.getLong("benchmark.uuid-rows", 20_000_000);
+        int threads = Integer.getInteger("benchmark.uuid-threads", 4);
+        int batchSize = Integer.getInteger("benchmark.uuid-batch", 1000);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                // Se deja shared_buffers chico para que el índice aleatorio no quepa en memoria, como en producción
+                .setServerConfig("shared_buffers", System.getProperty("benchmark.shared-buffers", "128MB"))
+                .setServerConfig("max_wal_size", "8GB")
+                .setServerConfig("synchronous_commit", "off")
+                .start()) {
+            DataSource database = postgres.getPostgresDatabase();
+
+            Map<String, Object> results = new LinkedHashMap<>();
+            Map<String, Object> v4 = run(database, "bench_uuid_v4", UUID::randomUUID, rows, threads, batchSize);
+            Map<String, Object> v7 = run(database, "bench_uuid_v7", UuidV7::next, rows, threads, batchSize);
+            results.put("v4", v4);
+            results.put("v7", v7);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("rows", rows);
+            report.put("threads", threads);
+            report.put("batchSize", batchSize);
+            report.put("results", results);
+            report.put("indexSizeV7VsV4", (double) (long) v7.get("indexBytes") / (long) v4.get("indexBytes"));
+            report.put("throughputV7VsV4", (double) v7.get("rowsPerSecond") / (double) v4.get("rowsPerSecond"));
+            Path file = Path.of(System.getProperty("benchmark.report", "target/load-test/uuid-primary-keys.json"));
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+
+            // Con inserciones al final del índice las hojas quedan llenas (fillfactor); con v4 se dividen al azar
+            assertTrue((long) v7.get("indexBytes") < (long) v4.get("indexBytes"),
+                    "El índice con UUID v7 no es más chico que con v4: " + report);
+        }
+    }
+
+    // Inserta rows filas en la tabla en SEGMENTS tramos, midiendo cada tramo por separado
+    private static Map<String, Object> run(DataSource database, String table, Supplier<UUID> ids,
+                                           long rows, int threads, int batchSize) throws Exception {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, merchant_id uuid NOT NULL, " +
+                    "amount_cents integer NOT NULL, currency varchar(3) NOT NULL, created_at timestamptz NOT NULL)");
+        }
+
+        String insert = "INSERT INTO " + table + " (id, merchant_id, amount_cents, currency, created_at) VALUES (?, ?, ?, ?, ?)";
+        UUID merchantId = UUID.randomUUID();
+        List<Double> segmentRowsPerSecond = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            long perSegment = rows / SEGMENTS;
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                long segmentRows = segment == SEGMENTS - 1 ? rows - perSegment * (SEGMENTS - 1) : perSegment;
+                AtomicLong remaining = new AtomicLong(segmentRows);
+                long segmentStart = System.nanoTime();
+
+                List<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    workers.add(executor.submit(() -> {
+                        insertBatches(database, insert, ids, merchantId, remaining, batchSize);
+                        return null;
+                    }));
+                }
+                for (Future<?> worker : workers) worker.get();
+                segmentRowsPerSecond.add(segmentRows / ((System.nanoTime() - segmentStart) / 1_000_000_000.0));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("seconds", seconds);
+        result.put("rowsPerSecond", rows / seconds);
+        result.put("segmentRowsPerSecond", segmentRowsPerSecond);
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE " + table);
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT pg_relation_size('" + table + "'), pg_relation_size('" + table + "_pkey'), " +
+                            "s.idx_blks_read, s.idx_blks_hit FROM pg_statio_user_tables s " +
+                            "WHERE s.relname = '" + table + "'")) {
+                rs.next();
+                result.put("tableBytes", rs.getLong(1));
+                result.put("indexBytes", rs.getLong(2));
+                result.put("indexBlocksRead", rs.getLong(3));
+                result.put("indexBlocksHit", rs.getLong(4));
+            }
+        }
+        return result;
+    }
+
+    // Cada hilo toma lotes de la cuota del tramo hasta agotarla; un lote = una transacción
+    private static void insertBatches(DataSource database, String insert, Supplier<UUID> ids, UUID merchantId,
+                                      AtomicLong remaining, int batchSize) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement statement = connection.prepareStatement(insert)) {
+            connection.setAutoCommit(false);
+            while (true) {
+                long taken = remaining.getAndAdd(-batchSize);
+                if (taken <= 0) return;
+                long count = Math.min(batchSize, taken);
+                Timestamp now = Timestamp.from(Instant.now());
+                for (long i = 0; i < count; i++) {
+                    statement.setObject(1, ids.get());
+                    statement.setObject(2, merchantId);
+                    statement.setInt(3, 100 + (int) (i % 100_000));
+                    statement.setString(4, "COP");
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            }
+        }
+    }
+}
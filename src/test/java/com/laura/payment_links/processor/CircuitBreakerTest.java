@@ -0,0 +1,154 @@
+package com.laura.payment_links.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 1_000;
+
+    private final ManualClock clock = new ManualClock();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, OPEN_MILLIS, clock);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenGrantsASingleProbe() {
+        open();
+        clock.advance(OPEN_MILLIS - 1);
+        assertFalse(breaker.tryAcquire());
+
+        clock.advance(1);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenGrantsASingleProbeUnderContention() throws Exception {
+        open();
+        clock.advance(OPEN_MILLIS);
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            Future<?>[] calls = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                calls[i] = executor.submit(() -> {
+                    start.await();
+                    if (breaker.tryAcquire()) granted.incrementAndGet();
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, granted.get());
+    }
+
+    @Test
+    void successfulProbeCloses() {
+        open();
+        clock.advance(OPEN_MILLIS);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopensForAnotherPeriod() {
+        open();
+        clock.advance(OPEN_MILLIS);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure(); // Un solo fallo alcanza en HALF_OPEN
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        clock.advance(OPEN_MILLIS - 1);
+        assertFalse(breaker.tryAcquire());
+        clock.advance(1);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private static final class ManualClock extends Clock {
+        private volatile long millis;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
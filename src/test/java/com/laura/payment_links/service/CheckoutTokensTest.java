@@ -0,0 +1,47 @@
+package com.laura.payment_links.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CheckoutTokensTest {
+
+    private final CheckoutTokens tokens = new CheckoutTokens("secreto-de-prueba");
+
+    @Test
+    void issuedTokenResolvesToItsReference() {
+        String token = tokens.issue("PL-2026-000042");
+
+        assertEquals("PL-2026-000042", tokens.reference(token));
+    }
+
+    @Test
+    void referenceAloneIsRejected() {
+        assertNull(tokens.reference("PL-2026-000042"));
+    }
+
+    @Test
+    void signatureOfAnotherReferenceIsRejected() {
+        String signature = tokens.issue("PL-2026-000042").substring("PL-2026-000042".length());
+
+        assertNull(tokens.reference("PL-2026-000043" + signature));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertNull(tokens.reference(null));
+        assertNull(tokens.reference(""));
+        assertNull(tokens.reference(".abc"));
+        assertNull(tokens.reference("PL-2026-000042."));
+    }
+
+    @Test
+    void tokensDependOnTheSecret() {
+        CheckoutTokens other = new CheckoutTokens("otro-secreto");
+
+        assertNotEquals(tokens.issue("PL-2026-000042"), other.issue("PL-2026-000042"));
+        assertNull(other.reference(tokens.issue("PL-2026-000042")));
+    }
+}
@@ -0,0 +1,206 @@
+package com.laura.payment_links.service;
+
+import com.laura.payment_links.repository.PaymentLinkKey;
+import com.laura.payment_links.repository.PaymentLinkRepository;
+import com.laura.payment_links.sharding.ShardRouter;
+import com.laura.payment_links.sharding.ShardingProperties;
+import com.laura.payment_links.util.LinkIdentifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentLinkLookupFilterTest {
+
+    private static final long OVERLAP_SECONDS = 120;
+    private static final Instant OLD = Instant.now().minus(Duration.ofHours(1));   // Antes de la marca
+
+    private final UUID merchantId = UUID.randomUUID();
+    private final PaymentLinkRepository repository = mock(PaymentLinkRepository.class);
+    private final TransactionRunner transactions = mock(TransactionRunner.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void runWorkDirectly() {
+        when(transactions.readOnShard(anyInt(), any())).thenAnswer(call -> ((Supplier<Object>) call.getArgument(1)).get());
+    }
+
+    @Test
+    void letsEverythingValidThroughUntilTheFirstRebuild() {
+        PaymentLinkLookupFilter filter = filter(router(false, 1));
+
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.parse(UUID.randomUUID().toString())));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse("PL-2026-000001")));
+        assertFalse(filter.mightExist(merchantId, LinkIdentifier.parse("no-es-un-id")));
+        assertFalse(filter.mightExistReference(LinkIdentifier.parse(UUID.randomUUID().toString())));
+    }
+
+    @Test
+    void uuidV7HorizonFollowsTheRefreshWatermark() {
+        UUID known = uuidV7(OLD);
+        loadShards(List.of(new PaymentLinkKey(known, reference(1), merchantId, OLD)));
+        PaymentLinkLookupFilter filter = filter(router(false, 1));
+        filter.rebuild();
+
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.of(known)));
+        // Anterior a la marca y ausente: 404 sin consultar
+        assertFalse(filter.mightExist(merchantId, LinkIdentifier.of(uuidV7(OLD))));
+        // Dentro del solapamiento o posterior: puede ser de otra instancia que todavía no llegó
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.of(uuidV7(Instant.now().minusSeconds(OVERLAP_SECONDS / 2)))));
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.of(uuidV7(Instant.now()))));
+        // Los v4 son anteriores a los v7: ya están todos cargados
+        assertFalse(filter.mightExist(merchantId, LinkIdentifier.of(UUID.randomUUID())));
+    }
+
+    @Test
+    void knownLinkOfAnotherMerchantIsNotFound() {
+        UUID known = uuidV7(OLD);
+        loadShards(List.of(new PaymentLinkKey(known, reference(1), merchantId, OLD)));
+        PaymentLinkLookupFilter filter = filter(router(false, 1));
+        filter.rebuild();
+
+        assertFalse(filter.mightExist(UUID.randomUUID(), LinkIdentifier.of(known)));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(1)))); // La checkout no conoce el comercio
+    }
+
+    @Test
+    void referenceHorizonIgnoresLinksCreatedAfterTheWatermark() {
+        loadShards(List.of(
+                new PaymentLinkKey(uuidV7(OLD), reference(1), merchantId, OLD),
+                new PaymentLinkKey(uuidV7(OLD), reference(3), merchantId, OLD),
+                new PaymentLinkKey(uuidV7(Instant.now()), reference(10), merchantId, Instant.now())));
+        PaymentLinkLookupFilter filter = filter(router(false, 1));
+        filter.rebuild();
+
+        // Horizonte 3: el 10 es reciente y todavía pueden faltar números anteriores de otras instancias
+        assertFalse(filter.mightExistReference(LinkIdentifier.parse(reference(2))));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(5))));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(10))));
+    }
+
+    @Test
+    void referenceHorizonIsTheLowestMaximumPerOriginShard() {
+        // max-shards 4: el shard 0 emite 1, 5, 9, ... y el shard 1 emite 2, 6, 10, ...
+        loadShards(
+                List.of(old(1), old(5), old(9)),
+                List.of(old(2), old(6)));
+        PaymentLinkLookupFilter filter = filter(router(true, 2));
+        filter.rebuild();
+
+        // Horizonte min(9, 6) = 6
+        assertFalse(filter.mightExistReference(LinkIdentifier.parse(reference(4))));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(7))));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(9))));
+    }
+
+    @Test
+    void movedLinkDoesNotAdvanceTheHorizonOfItsCurrentShard() {
+        // El 21 lo emitió el shard 0 pero el rebalanceo movió el comercio al shard 1
+        loadShards(
+                List.of(old(1), old(5), old(9)),
+                List.of(old(2), old(6), old(21)));
+        PaymentLinkLookupFilter filter = filter(router(true, 2));
+        filter.rebuild();
+
+        // Con el shard físico el horizonte sería min(9, 21) = 9 y el 7 daría 404; por emisor es min(21, 6) = 6
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(7))));
+        assertFalse(filter.mightExistReference(LinkIdentifier.parse(reference(3))));
+    }
+
+    @Test
+    void shardWithoutLinksKeepsTheReferenceHorizonAtZero() {
+        loadShards(List.of(old(1), old(5)), List.of());
+        PaymentLinkLookupFilter filter = filter(router(true, 2));
+        filter.rebuild();
+
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(2))));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(3))));
+    }
+
+    @Test
+    void refreshAddsLinksCreatedByOtherInstances() {
+        loadShards(List.of(old(1)));
+        PaymentLinkLookupFilter filter = filter(router(false, 1));
+        filter.rebuild();
+        UUID remote = uuidV7(OLD);
+        assertFalse(filter.mightExist(merchantId, LinkIdentifier.of(remote)));
+
+        when(repository.findKeysCreatedSince(any())).thenReturn(List.of(new PaymentLinkKey(remote, reference(2), merchantId, OLD)));
+        filter.refresh();
+
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.of(remote)));
+        assertTrue(filter.mightExistReference(LinkIdentifier.parse(reference(2))));
+    }
+
+    @Test
+    void addedLinkIsFoundImmediately() {
+        loadShards(List.of(old(1)));
+        PaymentLinkLookupFilter filter = filter(router(false, 1));
+        filter.rebuild();
+        UUID created = uuidV7(OLD);
+
+        filter.add(merchantId, created, reference(2));
+
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.of(created)));
+        assertTrue(filter.mightExist(merchantId, LinkIdentifier.parse(reference(2))));
+    }
+
+    private PaymentLinkLookupFilter filter(ShardRouter router) {
+        return new PaymentLinkLookupFilter(repository, transactions, router, new SimpleMeterRegistry(),
+                true, 0.01, OVERLAP_SECONDS);
+    }
+
+    // Cada lista es el contenido de un shard, en orden
+    @SafeVarargs
+    private void loadShards(List<PaymentLinkKey>... shards) {
+        var stubbing = when(repository.streamAllKeys());
+        for (List<PaymentLinkKey> keys : shards) {
+            stubbing = stubbing.thenAnswer(call -> keys.stream());
+        }
+    }
+
+    private PaymentLinkKey old(long sequence) {
+        return new PaymentLinkKey(uuidV7(OLD), reference(sequence), merchantId, OLD);
+    }
+
+    private static ShardRouter router(boolean enabled, int shardCount) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(enabled);
+        properties.setMaxShards(4);
+        List<ShardingProperties.Shard> shards = new ArrayList<>();
+        IntStream.range(0, shardCount).forEach(i -> {
+            ShardingProperties.Shard shard = new ShardingProperties.Shard();
+            shard.setName("shard-" + i);
+            shards.add(shard);
+        });
+        properties.setShards(shards);
+        return new ShardRouter(properties);
+    }
+
+    private static String reference(long sequence) {
+        return String.format("PL-2026-%06d", sequence);
+    }
+
+    // UUID v7 con el milisegundo indicado (UuidV7.next() solo genera el actual)
+    private static UUID uuidV7(Instant at) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificant = (at.toEpochMilli() << 16) | 0x7000L | random.nextInt(1 << 12);
+        long leastSignificant = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
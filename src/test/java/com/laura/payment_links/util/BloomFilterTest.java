@@ -0,0 +1,68 @@
+package com.laura.payment_links.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int CAPACITY = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    void neverReturnsFalseForAnAddedValue() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("presente-" + i);
+        }
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(filter.mightContain("presente-" + i), "falso negativo: presente-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateAtCapacityStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("presente-" + i);
+        }
+
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("ausente-" + i)) falsePositives++;
+        }
+
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate <= FALSE_POSITIVE_RATE * 1.5, "tasa de falsos positivos: " + rate);
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    void repeatedValuesDoNotCountAsInsertions() {
+        BloomFilter filter = new BloomFilter(10, FALSE_POSITIVE_RATE);
+
+        assertTrue(filter.put("PL-2026-000001"));
+        assertFalse(filter.put("PL-2026-000001"));
+
+        assertEquals(1, filter.insertions());
+    }
+
+    @Test
+    void saturatesAfterMoreInsertionsThanExpected() {
+        BloomFilter filter = new BloomFilter(100, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 100; i++) {
+            filter.put("valor-" + i);
+        }
+        assertFalse(filter.isSaturated());
+
+        for (int i = 100; i < 200; i++) {
+            filter.put("valor-" + i);
+        }
+
+        assertTrue(filter.isSaturated());
+    }
+}
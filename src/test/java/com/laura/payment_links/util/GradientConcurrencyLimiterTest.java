@@ -0,0 +1,113 @@
+package com.laura.payment_links.util;
+
+import com.laura.payment_links.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Cada muestra cierra una ventana (1 muestra, 0 ms); solo TimeoutException cuenta como sobrecarga
+    private GradientConcurrencyLimiter limiter(int initialLimit, int minLimit, double tolerance) {
+        return new GradientConcurrencyLimiter("test", initialLimit, minLimit, 200, tolerance, 0.2, 600, 1, 0,
+                error -> error instanceof TimeoutException, meterRegistry);
+    }
+
+    @Test
+    void overloadFailureBacksOffMultiplicatively() {
+        GradientConcurrencyLimiter limiter = limiter(20, 4, 1.5);
+
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException(new TimeoutException()); // Se busca en toda la cadena de causas
+        }));
+
+        assertEquals(18, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1.0, meterRegistry.get("payment_links.concurrency.dropped").counter().count());
+    }
+
+    @Test
+    void backoffStopsAtMinLimit() {
+        GradientConcurrencyLimiter limiter = limiter(5, 4, 1.5);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+                throw new IllegalStateException(new TimeoutException());
+            }));
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void businessFailureReleasesWithoutSample() {
+        GradientConcurrencyLimiter limiter = limiter(20, 4, 1.5);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalArgumentException.class, () -> limiter.call(() -> {
+                throw new IllegalArgumentException("404");
+            }));
+        }
+
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0.0, meterRegistry.get("payment_links.concurrency.dropped").counter().count());
+    }
+
+    @Test
+    void doesNotGrowWhileBelowHalfTheLimit() {
+        GradientConcurrencyLimiter limiter = limiter(20, 4, 100);
+
+        // Secuenciales: una en vuelo por ventana, muy por debajo de 20 / 2
+        for (int i = 0; i < 100; i++) {
+            limiter.call(() -> "ok");
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void growsWhenWindowsUseTheLimit() {
+        GradientConcurrencyLimiter limiter = limiter(20, 4, 100); // Tolerancia alta: gradiente 1 siempre
+
+        for (int round = 0; round < 5; round++) {
+            List<CompletableFuture<String>> pending = new ArrayList<>();
+            for (int i = 0; i < 15; i++) {
+                CompletableFuture<String> future = new CompletableFuture<>();
+                limiter.callAsync(() -> future);
+                pending.add(future);
+            }
+            pending.forEach(future -> future.complete("ok"));
+        }
+
+        assertTrue(limiter.getLimit() > 20, "límite: " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsOnceTheLimitIsInFlight() {
+        GradientConcurrencyLimiter limiter = limiter(4, 4, 1.5);
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            limiter.callAsync(() -> future);
+            pending.add(future);
+        }
+
+        assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.call(() -> "ok"));
+        assertEquals(1.0, meterRegistry.get("payment_links.concurrency.rejected").counter().count());
+
+        pending.forEach(future -> future.complete("ok"));
+        assertEquals(0, limiter.getInFlight());
+    }
+}
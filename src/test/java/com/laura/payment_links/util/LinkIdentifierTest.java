@@ -0,0 +1,77 @@
+package com.laura.payment_links.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LinkIdentifierTest {
+
+    @Test
+    void parsesUuid() {
+        UUID id = UUID.randomUUID();
+
+        LinkIdentifier identifier = LinkIdentifier.parse(id.toString());
+
+        assertEquals(LinkIdentifier.Kind.ID, identifier.kind());
+        assertEquals(id, identifier.id());
+        assertEquals(-1, identifier.sequenceNumber());
+    }
+
+    @Test
+    void uppercaseUuidHasTheCanonicalKey() {
+        UUID id = UUID.randomUUID();
+
+        LinkIdentifier identifier = LinkIdentifier.parse(id.toString().toUpperCase());
+
+        assertEquals(LinkIdentifier.Kind.ID, identifier.kind());
+        assertEquals(id.toString(), identifier.key());
+    }
+
+    @Test
+    void parsesReferenceAndItsSequenceNumber() {
+        LinkIdentifier identifier = LinkIdentifier.parse("PL-2026-000042");
+
+        assertEquals(LinkIdentifier.Kind.REFERENCE, identifier.kind());
+        assertEquals("PL-2026-000042", identifier.key());
+        assertEquals(42, identifier.sequenceNumber());
+    }
+
+    @Test
+    void acceptsSequencesFromSixToEighteenDigits() {
+        assertEquals(LinkIdentifier.Kind.REFERENCE, LinkIdentifier.parse("PL-2026-123456").kind());
+        assertEquals(123456789012345678L, LinkIdentifier.parse("PL-2026-123456789012345678").sequenceNumber());
+    }
+
+    @Test
+    void rejectsMalformedIdentifiers() {
+        String[] malformed = {
+                "",
+                "PL-2026-12345",                             // secuencia de 5 dígitos
+                "PL-2026-1234567890123456789",               // 19 dígitos: no entra en un long
+                "pl-2026-000042",                            // prefijo en minúsculas
+                "XX-2026-000042",
+                "PL-20A6-000042",                            // año no numérico
+                "PL-2026_000042",                            // separador incorrecto
+                "PL-2026-00004A",
+                "PL-2026-000042.firma",                      // token de checkout, no referencia
+                "123e4567-e89b-12d3-a456-42661417400",        // 35 caracteres
+                "123e4567-e89b-12d3-a456-4266141740000",      // 37 caracteres
+                "123e4567e-89b-12d3-a456-426614174000",       // guión fuera de lugar
+                "123e4567-e89b-12d3-a456-42661417400g",       // no hexadecimal
+                "00000000-0000-0000-0000-000000000000 ",
+        };
+        for (String identifier : malformed) {
+            LinkIdentifier parsed = LinkIdentifier.parse(identifier);
+            assertFalse(parsed.isValid(), identifier);
+            assertEquals(-1, parsed.sequenceNumber(), identifier);
+        }
+    }
+
+    @Test
+    void rejectsNull() {
+        assertFalse(LinkIdentifier.parse(null).isValid());
+    }
+}
@@ -0,0 +1,136 @@
+package com.laura.payment_links.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void followerSharesTheLeaderResult() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 4, Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+            loads.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return "valor";
+        }), executor);
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+            loads.incrementAndGet();
+            return "otro";
+        }), executor);
+        awaitFollowers(1);
+        release.countDown();
+
+        assertEquals("valor", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("valor", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void followerReceivesTheLeaderException() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 4, Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("la consulta falló");
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+            leaderStarted.countDown();
+            await(release);
+            throw failure;
+        }), executor);
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> flight.execute("k", () -> "no debería cargar"), executor);
+        awaitFollowers(1);
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void slowLeaderMakesTheFollowerLoadOnItsOwn() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 4, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "lento";
+        }), executor);
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // La seguidora no espera al líder bloqueado: vence su espera y carga por su cuenta
+        assertEquals("propio", flight.execute("k", () -> "propio"));
+        assertEquals(1.0, calls("timed_out"));
+
+        release.countDown();
+        assertEquals("lento", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keyIsReleasedWhenTheCallEnds() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 4, Duration.ofSeconds(5), meterRegistry);
+
+        assertEquals("uno", flight.execute("k", () -> "uno"));
+        assertEquals("dos", flight.execute("k", () -> "dos"));
+        assertEquals(2.0, calls("leader"));
+    }
+
+    @Test
+    void rejectsStripeCountThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SingleFlight<String, String>("test", 3, Duration.ofSeconds(1), meterRegistry));
+    }
+
+    private double calls(String role) {
+        return meterRegistry.get("payment_links.singleflight.calls").tag("role", role).counter().count();
+    }
+
+    // El contador de seguidoras sube antes de que la seguidora empiece a esperar al líder
+    private void awaitFollowers(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls("follower") < expected) {
+            if (System.nanoTime() > deadline) throw new AssertionError("La seguidora no se unió a la llamada");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("timeout de la prueba");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
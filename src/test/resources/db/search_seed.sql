@@ -0,0 +1,51 @@
+-- Datos sintéticos para verificar la búsqueda q= (pg_trgm) con volumen de producción.
+-- Uso: psql -v rows=10000000 -f src/test/resources/db/search_seed.sql payment_links_db
+-- Requiere haber arrancado la aplicación una vez (tablas e índices creados).
+
+\if :{?rows}
+\else
+\set rows 10000000
+\endif
+
+INSERT INTO merchants (id, name, email, password_hash, created_at)
+SELECT gen_random_uuid(), 'Comercio ' || g, 'seed' || g || '@example.com', 'x', now()
+FROM generate_series(1, 1000) AS g
+ON CONFLICT DO NOTHING;
+
+CREATE TEMP TABLE seed_merchants AS
+SELECT id, row_number() OVER (ORDER BY id) AS n FROM merchants WHERE email LIKE 'seed%@example.com';
+
+INSERT INTO payment_links (id, merchant_id, reference, amount_cents, currency, description,
+                           status, expires_at, created_at, updated_at)
+SELECT gen_random_uuid(),
+       m.id,
+       'PL-SEED-' || lpad(g::text, 9, '0'),
+       1 + (random() * 1000000)::int,
+       (ARRAY['COP', 'USD', 'EUR'])[1 + (g % 3)],
+       (ARRAY['Suscripción mensual', 'Pedido tienda online', 'Reserva hotel', 'Curso de inglés',
+              'Factura servicios'])[1 + (g % 5)] || ' #' || g,
+       (ARRAY['CREATED', 'PAID', 'CANCELLED', 'EXPIRED'])[1 + (g % 4)],
+       now() + interval '1 day',
+       now() - (g % 365) * interval '1 day',
+       now() - (g % 365) * interval '1 day'
+FROM generate_series(1, :rows) AS g
+JOIN seed_merchants m ON m.n = 1 + (g % 1000);
+
+ANALYZE payment_links;
+
+-- Ambas consultas (las que arma PaymentLinkSearchRepositoryImpl) deben usar Bitmap Index Scan sobre
+-- idx_payment_links_merchant_text_trgm (merchant_id y trigramas en el mismo índice), nunca Seq Scan ni un filtro
+-- por merchant_id sobre todas las coincidencias de la tabla
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, reference, status FROM payment_links
+WHERE merchant_id = (SELECT id FROM seed_merchants WHERE n = 1)
+  AND (coalesce(description, '') || ' ' || reference) ILIKE '%hotel #12%'
+  AND (description ILIKE '%hotel #12%' OR reference ILIKE '%hotel #12%')
+LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, reference, status FROM payment_links
+WHERE merchant_id = (SELECT id FROM seed_merchants WHERE n = 1)
+  AND (coalesce(description, '') || ' ' || reference) ILIKE '%SEED-00000123%'
+  AND (description ILIKE '%SEED-00000123%' OR reference ILIKE '%SEED-00000123%')
+LIMIT 20;